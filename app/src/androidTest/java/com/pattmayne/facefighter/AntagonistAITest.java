@@ -0,0 +1,98 @@
+package com.pattmayne.facefighter;
+
+import android.os.Debug;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the AntagonistAI's look-aheads find the better BattleMove, without creating any objects.
+ */
+public class AntagonistAITest extends TestCase {
+
+    private static final long SEED = 20141104L;
+
+    /**
+     * A hero with only one piece, which destroys a piece with every attack, but which any strong enough attack destroys (and with it, the hero).
+     */
+    private FaceCharacter makeFragileHero()
+    {
+        FaceCharacter character = new FaceCharacter();
+
+        FacePiece eyes = new FacePiece("Eyes", null);
+        eyes.setHP(20);
+        eyes.setDamage(40);
+        eyes.setBattleMove("Laser Burn");
+
+        character.addPiece(eyes, 0);
+        character.setName("Hero");
+
+        return character;
+    }
+
+    /**
+     * An antagonist with a feeble weapon in slot 1 and one which wins the Fight at once in slot 2, and a beard which can respond.
+     */
+    private FaceCharacter makeVillain()
+    {
+        FaceCharacter character = new FaceCharacter();
+
+        FacePiece face = new FacePiece("Face", null);
+        face.setHP(27);
+
+        FacePiece feather = new FacePiece("Feather", null);
+        feather.setHP(10);
+        feather.setDamage(1);
+        feather.setBattleMove("Scratch");
+
+        FacePiece laser = new FacePiece("Laser", null);
+        laser.setHP(10);
+        laser.setDamage(30);
+        laser.setBattleMove("Laser Burn");
+
+        FacePiece beard = new FacePiece("Beard", null);
+        beard.setHP(19);
+        beard.setArmour(7);
+        beard.makeResponsive();
+        beard.makeAbsorbent();
+        beard.setBattleMove("Absorb Damage");
+
+        character.addPiece(face, 0);
+        character.addPiece(feather, 1);
+        character.addPiece(laser, 2);
+        character.addPiece(beard, 3);
+        character.setName("Villain");
+
+        return character;
+    }
+
+    /**
+     * The AntagonistAI's look-aheads reuse its own FightEngine, so a whole decision shouldn't create a single object.
+     */
+    public void testAntagonistAIChoosesTheBetterWeaponWithoutAllocating()
+    {
+        FightEngine engine = new FightEngine(new Player(makeFragileHero()), new Player(makeVillain()), SEED);
+        engine.createFirstTurn();
+
+        AntagonistAI ai = new AntagonistAI(makeFragileHero(), makeVillain(), MoveLog.ANTAGONIST, SEED);
+        int turnCount = ai.takeSnapshot(engine);
+        ai.searchAttack(turnCount, 5);
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+
+        int slot = ai.searchAttack(turnCount, 20);
+        long attackLookAheads = ai.getLastLookAheads();
+        int response = ai.searchResponse(turnCount, 0, 20);
+
+        Debug.stopAllocCounting();
+        assertEquals(0, Debug.getThreadAllocCount());
+
+        //Both weapons were compared: the laser wins the Fight straight away, while after the feather the hero wins about a quarter of the time.
+        assertTrue(attackLookAheads > 0);
+        assertEquals(2, slot);
+
+        //only the beard can respond
+        assertTrue(response == AntagonistAI.NO_RESPONSE || response == 3);
+        assertTrue(ai.getLastLookAheads() > 0);
+    }
+}
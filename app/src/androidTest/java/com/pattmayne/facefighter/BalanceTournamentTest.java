@@ -0,0 +1,92 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Plays a tiny BalanceTournament and checks its win rates, progress reports and CSV files.
+ */
+public class BalanceTournamentTest extends TestCase {
+
+    private static ArrayList<String> readLines(File file) throws IOException
+    {
+        ArrayList<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine())
+            {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+
+        return lines;
+    }
+
+    public void testTournamentRanksAndWritesCSV() throws IOException
+    {
+        //one build with nothing to attack with, which should lose to everybody
+        FaceFactory faceFactory = new FaceFactory();
+        faceFactory.makePiece("Blue Face", 0);
+        faceFactory.makePiece("Mean Brows", 1);
+        faceFactory.setName("\"Harmless\" Hero");
+
+        BalanceTournament tournament = new BalanceTournament();
+        tournament.addAllAntagonists();
+        tournament.addCompetitor(faceFactory.getCharacter(), "Blue Face + Mean Brows");
+
+        final int[] reports = new int[2];
+        tournament.play(50, 7, 2, new BalanceTournament.ProgressListener() {
+            @Override
+            public synchronized void onPairingFinished(int finishedPairings, int pairings) {
+                reports[0]++;
+                reports[1] = Math.max(reports[1], finishedPairings);
+                assertEquals(6, pairings);
+            }
+        });
+        assertEquals(6, reports[0]);
+        assertEquals(6, reports[1]);
+
+        //both sides of a pairing come from the same Fights, so they never add up to more than 1
+        for (int i=0; i<4; i++)
+        {
+            for (int j=0; j<4; j++)
+            {
+                if (i != j)
+                {
+                    assertTrue(tournament.getWinRate(i, j) + tournament.getWinRate(j, i) <= 1.0000001);
+                }
+            }
+            assertEquals(0, tournament.getWinRate(3, i), 1e-9);
+        }
+
+        File winRates = File.createTempFile("win_rates", ".csv");
+        File rankings = File.createTempFile("rankings", ".csv");
+        try {
+            tournament.writeWinRates(winRates);
+            tournament.writeRankings(rankings);
+
+            ArrayList<String> lines = readLines(winRates);
+            assertEquals(5, lines.size());
+            assertEquals("competitor,\"Junk Yard Robot\",\"Satan\",\"Fish Monster\",\"\"\"Harmless\"\" Hero\"", lines.get(0));
+            assertTrue(lines.get(2).startsWith("\"Satan\","));
+            assertEquals(String.format("\"Satan\",%.4f,,%.4f,%.4f", tournament.getWinRate(1, 0), tournament.getWinRate(1, 2), tournament.getWinRate(1, 3)),
+                    lines.get(2));
+
+            lines = readLines(rankings);
+            assertEquals(5, lines.size());
+            assertEquals("rank,competitor,pieces,opponents_beaten,average_win_rate", lines.get(0));
+            assertEquals("4,\"\"\"Harmless\"\" Hero\",\"Blue Face + Mean Brows\",0,0.0000", lines.get(4));
+        } finally {
+            winRates.delete();
+            rankings.delete();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.pattmayne.facefighter;
+
+import android.os.Debug;
+
+import junit.framework.TestCase;
+
+/**
+ * Runs whole Fights through the FightEngine, without any screen.
+ */
+public class FightEngineTest extends TestCase {
+
+    private static final long SEED = 20141104L;
+
+    /**
+     * A FaceCharacter with one of every kind of FacePiece (no pictures, since nothing is drawn).
+     */
+    private FaceCharacter makeCharacter(String name, int hpBonus)
+    {
+        FaceCharacter character = new FaceCharacter();
+
+        FacePiece face = new FacePiece("Face", null);
+        face.setHP(27 + hpBonus);
+
+        FacePiece eyes = new FacePiece("Eyes", null);
+        eyes.setHP(16 + hpBonus);
+        eyes.setDamage(11);
+        eyes.setBattleMove("Laser Burn");
+
+        FacePiece shades = new FacePiece("Shades", null);
+        shades.setHP(19);
+        shades.setArmour(6);
+        shades.makeResponsive();
+        shades.makeReflective();
+        shades.setBattleMove("Reflect Damage");
+
+        FacePiece beard = new FacePiece("Beard", null);
+        beard.setHP(19);
+        beard.setArmour(7);
+        beard.makeResponsive();
+        beard.makeAbsorbent();
+        beard.setBattleMove("Absorb Damage");
+
+        FacePiece brow = new FacePiece("Brow", null);
+
+        character.addPiece(face, 0);
+        character.addPiece(eyes, 1);
+        character.addPiece(shades, 2);
+        character.addPiece(beard, 3);
+        character.addPiece(brow, 4);
+        character.setName(name);
+
+        return character;
+    }
+
+    private FightEngine playOut(long seed)
+    {
+        FightEngine engine = new FightEngine(new Player(makeCharacter("Hero", 0)), new Player(makeCharacter("Villain", 3)), seed);
+        engine.playOut(FightEngine.DEFAULT_MAX_TURNS);
+        return engine;
+    }
+
+    public void testSameSeedPlaysTheSameFight()
+    {
+        FightEngine first = playOut(SEED);
+        FightEngine second = playOut(SEED);
+
+        assertEquals(first.getWinner().getName(), second.getWinner().getName());
+        assertEquals(first.getTurnCount(), second.getTurnCount());
+        assertEquals(first.getMoveLog().size(), second.getMoveLog().size());
+    }
+
+    public void testSeedAndMoveLogReplayTheFight()
+    {
+        FightEngine original = playOut(SEED);
+
+        FightEngine replay = new FightEngine(new Player(makeCharacter("Hero", 0)), new Player(makeCharacter("Villain", 3)), SEED);
+        Player winner = replay.replay(original.getMoveLog());
+
+        assertEquals(original.getWinner().getName(), winner.getName());
+        assertEquals(original.getTurnCount(), replay.getTurnCount());
+        BattleState originalState = original.getWinner().getState();
+        BattleState replayState = winner.getState();
+        assertEquals(originalState.getAliveCount(), replayState.getAliveCount());
+
+        for (int i=0; i<replayState.getAliveCount(); i++)
+        {
+            int slot = replayState.getAliveSlot(i);
+            assertEquals(originalState.getAliveSlot(i), slot);
+            assertEquals(originalState.getHP(slot), replayState.getHP(slot));
+        }
+    }
+
+    public void testFightLeavesTheFaceCharacterUnchanged()
+    {
+        FaceCharacter hero = makeCharacter("Hero", 0);
+        FightEngine engine = new FightEngine(new Player(hero), new Player(makeCharacter("Villain", 3)), SEED);
+        engine.playOut(FightEngine.DEFAULT_MAX_TURNS);
+
+        assertEquals(5, hero.getPieces().size());
+        assertEquals(27, hero.getPieces().get(0).getHP());
+        assertEquals(16, hero.getPieces().get(1).getHP());
+        assertEquals("Reflect Damage", hero.getPieces().get(2).getBattleMove());
+        assertFalse(hero.getPieces().get(4).isKamikaze());
+    }
+
+    public void testRestartedFightPlaysLikeANewFight()
+    {
+        FightEngine fresh = playOut(SEED + 1);
+
+        FightEngine reused = playOut(SEED);
+        reused.restart(SEED + 1);
+        reused.playOut(FightEngine.DEFAULT_MAX_TURNS);
+
+        assertEquals(fresh.getWinner().getName(), reused.getWinner().getName());
+        assertEquals(fresh.getTurnCount(), reused.getTurnCount());
+        assertEquals(fresh.getMoveLog().size(), reused.getMoveLog().size());
+    }
+
+    /**
+     * Once a FightEngine has been created, whole Fights should run without creating a single object.
+     */
+    public void testFightLoopDoesNotAllocate()
+    {
+        FightEngine engine = playOut(SEED);
+
+        Debug.startAllocCounting();
+        Debug.resetThreadAllocCount();
+
+        for (int i=0; i<200; i++)
+        {
+            engine.restart(SEED + i);
+            engine.playOut(FightEngine.DEFAULT_MAX_TURNS);
+        }
+
+        Debug.stopAllocCounting();
+        assertEquals(0, Debug.getThreadAllocCount());
+    }
+
+    public void testRoleIndexesFollowKamikazeConversion()
+    {
+        Player player = new Player(makeCharacter("Hero", 0));
+        BattleState state = player.getState();
+
+        assertEquals(1, state.getWeaponCount());
+        assertEquals(2, state.getResponsiveCount());
+        assertEquals(2, state.getNeutralCount());
+
+        //the face (slot 0) is the first neutral piece
+        int kamikazeSlot = player.makeKamikazePiece();
+        assertEquals(0, kamikazeSlot);
+        assertEquals(MoveRegistry.KAMIKAZE_SMASH, player.getMoveID(kamikazeSlot));
+        assertEquals("Kamikaze Smash", player.getBattleMove(kamikazeSlot));
+        assertEquals(2, state.getWeaponCount());
+        assertEquals(0, state.getWeaponSlot(0));
+        assertEquals(1, state.getNeutralCount());
+        assertEquals(4, state.getNeutralSlot(0));
+    }
+
+    public void testOnlyAWoundKillsAPiece()
+    {
+        Player player = new Player(makeCharacter("Hero", 0));
+        BattleState state = player.getState();
+
+        //an absorbent defense can give a random piece negative HP, which doesn't kill it
+        state.receiveHP(4, -5);
+        assertTrue(state.getHP(4) <= 0);
+        assertTrue(state.isAlive(4));
+
+        //but its next wound does, however small
+        state.sufferWound(4, 0);
+        assertFalse(state.isAlive(4));
+
+        //and so does a wound which takes all of a piece's HP
+        state.sufferWound(1, 15);
+        assertTrue(state.isAlive(1));
+        state.sufferWound(1, 1);
+        assertFalse(state.isAlive(1));
+    }
+}
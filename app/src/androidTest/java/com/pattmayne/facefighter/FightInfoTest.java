@@ -0,0 +1,37 @@
+package com.pattmayne.facefighter;
+
+import android.test.AndroidTestCase;
+
+/**
+ * Checks that every FightInfo shares the antagonists it makes, and hands out copies of its names.
+ */
+public class FightInfoTest extends AndroidTestCase {
+
+    public void testAntagonistsAreMadeOnceForTheWholeApp()
+    {
+        FightInfo first = new FightInfo(getContext());
+        FightInfo second = new FightInfo(getContext());
+
+        for (int i=0; i<AntagonistCatalog.size(); i++)
+        {
+            FaceCharacter antagonist = first.getAntagonist(i);
+            assertEquals(AntagonistCatalog.name(i), antagonist.getName());
+            assertEquals(AntagonistCatalog.PIECES, antagonist.getPieces().size());
+            assertSame(antagonist, second.getAntagonist(i));
+        }
+    }
+
+    public void testNamesAreCopies()
+    {
+        FightInfo fightInfo = new FightInfo(getContext());
+
+        String[] names = fightInfo.getAntagonistNames();
+        names[0] = "Changed";
+        assertEquals(AntagonistCatalog.name(0), fightInfo.getAntagonistNames()[0]);
+
+        String[] locations = fightInfo.getLocationNames();
+        String location = locations[0];
+        locations[0] = "Changed";
+        assertEquals(location, fightInfo.getLocationNames()[0]);
+    }
+}
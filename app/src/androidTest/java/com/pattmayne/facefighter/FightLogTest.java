@@ -0,0 +1,100 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes Fights to a FightLog and reads them back with a FightLogReader.
+ */
+public class FightLogTest extends TestCase {
+
+    private static final long SEED = 20141104L;
+
+    /**
+     * A FaceCharacter with one of every kind of FacePiece (no pictures, since nothing is drawn).
+     */
+    private FaceCharacter makeCharacter(String name, int hpBonus)
+    {
+        FaceCharacter character = new FaceCharacter();
+
+        FacePiece face = new FacePiece("Face", null);
+        face.setHP(27 + hpBonus);
+
+        FacePiece eyes = new FacePiece("Eyes", null);
+        eyes.setHP(16 + hpBonus);
+        eyes.setDamage(11);
+        eyes.setBattleMove("Laser Burn");
+
+        FacePiece shades = new FacePiece("Shades", null);
+        shades.setHP(19);
+        shades.setArmour(6);
+        shades.makeResponsive();
+        shades.makeReflective();
+        shades.setBattleMove("Reflect Damage");
+
+        FacePiece beard = new FacePiece("Beard", null);
+        beard.setHP(19);
+        beard.setArmour(7);
+        beard.makeResponsive();
+        beard.makeAbsorbent();
+        beard.setBattleMove("Absorb Damage");
+
+        FacePiece brow = new FacePiece("Brow", null);
+
+        character.addPiece(face, 0);
+        character.addPiece(eyes, 1);
+        character.addPiece(shades, 2);
+        character.addPiece(beard, 3);
+        character.addPiece(brow, 4);
+        character.setName(name);
+
+        return character;
+    }
+
+    public void testFightLogReadsBackTheFight() throws IOException
+    {
+        FightEngine engine = new FightEngine(new Player(makeCharacter("Hero", 0)), new Player(makeCharacter("Villain", 3)), SEED);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FightLog fightLog = new FightLog(engine, output);
+        engine.playOut(FightEngine.DEFAULT_MAX_TURNS);
+        engine.restart(SEED + 1);
+        engine.playOut(FightEngine.DEFAULT_MAX_TURNS);
+        fightLog.close();
+
+        FightLogReader reader = new FightLogReader(new ByteArrayInputStream(output.toByteArray()));
+
+        assertTrue(reader.next());
+        assertEquals(FightLog.FIGHT_START, reader.getType());
+        assertEquals(SEED, reader.getSeed());
+        assertEquals("Hero", reader.getHeroName());
+        assertEquals("Villain", reader.getAntagonistName());
+        assertEquals(30, reader.getStartingHP(MoveLog.ANTAGONIST)[0]);
+
+        int fights = 1;
+        int moves = 0;
+        int lastType = 0;
+        while (reader.next())
+        {
+            lastType = reader.getType();
+            if (reader.getType() == FightLog.MOVE)
+            {
+                moves++;
+            }
+            else if (reader.getType() == FightLog.FIGHT_START)
+            {
+                assertEquals(SEED + 1, reader.getSeed());
+                fights++;
+            }
+        }
+
+        //the last record is the end of the second Fight
+        assertEquals(2, fights);
+        assertEquals(FightLog.FIGHT_END, lastType);
+        assertEquals(engine.getTurnCount(), reader.getTurns());
+        assertEquals(engine.getWinner() == engine.getHeroPlayer() ? MoveLog.HERO : MoveLog.ANTAGONIST, reader.getWinner());
+        assertTrue(moves >= engine.getMoveLog().size());
+    }
+}
@@ -0,0 +1,27 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that FightParticles stay within their arrays and fade away on the game clock.
+ */
+public class FightParticlesTest extends TestCase {
+
+    public void testParticlesStayWithinCapacityAndFadeAway()
+    {
+        FightParticles particles = new FightParticles();
+        particles.burst(FightParticles.SPARK, 100, 100, FightParticles.CAPACITY + 50, 700);
+        assertEquals(FightParticles.CAPACITY, particles.getCount());
+
+        //nothing moves while the clock doesn't
+        particles.update(0);
+        assertEquals(FightParticles.CAPACITY, particles.getCount());
+
+        particles.update(10000);
+        assertEquals(0, particles.getCount());
+
+        particles.trail(FightParticles.REFLECT, 0, 0, 100, 100, 10);
+        particles.clear();
+        assertEquals(0, particles.getCount());
+    }
+}
@@ -0,0 +1,157 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Reads a Fight back from a FightLog into a FightRecording, and plays it with a FightReplay.
+ */
+public class FightReplayTest extends TestCase {
+
+    private static final long SEED = 20141104L;
+
+    /**
+     * A FaceCharacter with one of every kind of FacePiece (no pictures, since nothing is drawn).
+     */
+    private FaceCharacter makeCharacter(String name, int hpBonus)
+    {
+        FaceCharacter character = new FaceCharacter();
+
+        FacePiece face = new FacePiece("Face", null);
+        face.setHP(27 + hpBonus);
+
+        FacePiece eyes = new FacePiece("Eyes", null);
+        eyes.setHP(16 + hpBonus);
+        eyes.setDamage(11);
+        eyes.setBattleMove("Laser Burn");
+
+        FacePiece shades = new FacePiece("Shades", null);
+        shades.setHP(19);
+        shades.setArmour(6);
+        shades.makeResponsive();
+        shades.makeReflective();
+        shades.setBattleMove("Reflect Damage");
+
+        FacePiece beard = new FacePiece("Beard", null);
+        beard.setHP(19);
+        beard.setArmour(7);
+        beard.makeResponsive();
+        beard.makeAbsorbent();
+        beard.setBattleMove("Absorb Damage");
+
+        FacePiece brow = new FacePiece("Brow", null);
+
+        character.addPiece(face, 0);
+        character.addPiece(eyes, 1);
+        character.addPiece(shades, 2);
+        character.addPiece(beard, 3);
+        character.addPiece(brow, 4);
+        character.setName(name);
+
+        return character;
+    }
+
+    public void testReplayEndsLikeTheRecordedFight() throws IOException
+    {
+        FightEngine engine = new FightEngine(new Player(makeCharacter("Hero", 0)), new Player(makeCharacter("Villain", 3)), SEED);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        FightLog fightLog = new FightLog(engine, output);
+        engine.playOut(FightEngine.DEFAULT_MAX_TURNS);
+        fightLog.close();
+
+        FightLogReader reader = new FightLogReader(new ByteArrayInputStream(output.toByteArray()));
+        reader.next();
+        FightRecording recording = new FightRecording(reader);
+        assertEquals(engine.getTurnCount(), recording.getTurnCount());
+
+        Player hero = new Player(makeCharacter("Hero", 0));
+        Player villain = new Player(makeCharacter("Villain", 3));
+        FightReplay replay = new FightReplay(recording, hero, villain);
+        replay.setSpeed(FightReplay.FASTEST_SPEED);
+
+        //Play the whole replay, then jump back to the last Turn and play it again.
+        for (int pass=0; pass<2; pass++)
+        {
+            replay.play();
+            while (replay.isPlaying())
+            {
+                replay.tick(10);
+            }
+
+            assertTrue(replay.isFinished());
+            assertEquals(engine.getTurnCount(), replay.getTurn());
+            for (int slot=0; slot<hero.getState().size(); slot++)
+            {
+                assertEquals(engine.getHeroPlayer().getState().getHP(slot), hero.getState().getHP(slot));
+                assertEquals(engine.getAntagonistPlayer().getState().getHP(slot), villain.getState().getHP(slot));
+            }
+            assertEquals(engine.getHeroPlayer().getPieces().size(), hero.getPieces().size());
+            assertEquals(engine.getAntagonistPlayer().getPieces().size(), villain.getPieces().size());
+
+            replay.seek(recording.getTurnCount());
+        }
+
+        //Jumping back to the first Turn puts every piece back.
+        replay.seek(1);
+        assertEquals(0, replay.getTurn());
+        assertEquals(5, hero.getPieces().size());
+        assertEquals(27, hero.getState().getHP(0));
+    }
+
+    /**
+     * A Fight which never ended, and a record cut off at the end of the log, mustn't hide the last finished Fight.
+     */
+    public void testReadLastSkipsUnfinishedFightsAndBrokenEnds() throws IOException
+    {
+        File file = File.createTempFile("fights", ".log");
+        File lastFightFile = FightLog.lastFightFile(file);
+
+        try {
+            //The app is stopped three Turns into a Fight: the log was written out, but never closed.
+            FightEngine stopped = new FightEngine(new Player(makeCharacter("Hero", 0)), new Player(makeCharacter("Villain", 3)), SEED);
+            FileOutputStream stoppedOutput = new FileOutputStream(file, true);
+            FightLog stoppedLog = new FightLog(stopped, stoppedOutput);
+            stopped.playOut(3);
+            stoppedLog.flush();
+            stoppedOutput.close();
+
+            assertFalse(stopped.isGameOver());
+            assertNull(FightRecording.readLast(file));
+
+            //The next Fight is appended after it, and finishes.
+            FightEngine finished = new FightEngine(new Player(makeCharacter("Hero", 0)), new Player(makeCharacter("Villain", 3)), SEED + 1);
+            FightLog finishedLog = new FightLog(finished, file);
+            finished.playOut(FightEngine.DEFAULT_MAX_TURNS);
+            finishedLog.close();
+
+            FightRecording recording = FightRecording.readLast(file);
+            assertEquals(SEED + 1, recording.getSeed());
+            assertTrue(recording.isFinished());
+            assertEquals(finished.getTurnCount(), recording.getTurnCount());
+
+            //Then only the first few bytes of another Fight are written.
+            ByteArrayOutputStream another = new ByteArrayOutputStream();
+            FightEngine anotherEngine = new FightEngine(new Player(makeCharacter("Hero", 0)), new Player(makeCharacter("Villain", 3)), SEED + 2);
+            FightLog anotherLog = new FightLog(anotherEngine, another);
+            anotherEngine.playOut(FightEngine.DEFAULT_MAX_TURNS);
+            anotherLog.close();
+
+            FileOutputStream tornOutput = new FileOutputStream(file, true);
+            tornOutput.write(another.toByteArray(), 0, 5);
+            tornOutput.close();
+
+            //The offset the FightLog saved still finds the finished Fight, and so does searching the whole log without it.
+            assertEquals(SEED + 1, FightRecording.readLast(file).getSeed());
+            assertTrue(lastFightFile.delete());
+            assertEquals(SEED + 1, FightRecording.readLast(file).getSeed());
+        } finally {
+            file.delete();
+            lastFightFile.delete();
+        }
+    }
+}
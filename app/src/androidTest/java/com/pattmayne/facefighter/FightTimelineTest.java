@@ -0,0 +1,87 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the FightTimeline's clock and its queue of events.
+ */
+public class FightTimelineTest extends TestCase {
+
+    public void testTimelineFiresEventsWhenTheyAreDue()
+    {
+        final StringBuilder fired = new StringBuilder();
+        FightTimeline timeline = new FightTimeline();
+        FightTimeline.Listener listener = new FightTimeline.Listener() {
+            @Override
+            public void onTimelineEvent(int event) {
+                fired.append(event);
+            }
+        };
+
+        timeline.schedule(1, 300, listener);
+        timeline.schedule(2, 100, listener);
+        timeline.schedule(3, 200, listener);
+        timeline.schedule(4, 200, listener);
+
+        //scheduling an event again moves it
+        timeline.schedule(1, 50, listener);
+
+        timeline.advance(150);
+        assertEquals("12", fired.toString());
+
+        //nothing moves while paused, and the speed scales the clock
+        timeline.pause();
+        assertEquals(0, timeline.advance(1000));
+        timeline.resume();
+        timeline.setSpeed(4);
+        assertEquals(60, timeline.advance(15));
+        assertEquals("1234", fired.toString());
+        assertEquals(210, timeline.getTime());
+        assertFalse(timeline.isScheduled(3, listener));
+    }
+
+    public void testCancelAllOnlyRemovesOneListenersEvents()
+    {
+        final StringBuilder firedA = new StringBuilder();
+        final StringBuilder firedB = new StringBuilder();
+        FightTimeline timeline = new FightTimeline();
+        FightTimeline.Listener listenerA = new FightTimeline.Listener() {
+            @Override
+            public void onTimelineEvent(int event) {
+                firedA.append(event);
+            }
+        };
+        FightTimeline.Listener listenerB = new FightTimeline.Listener() {
+            @Override
+            public void onTimelineEvent(int event) {
+                firedB.append(event);
+            }
+        };
+
+        //an order where removing A's events one at a time used to sift event 1 past the scan
+        timeline.schedule(0, 1, listenerB);
+        timeline.schedule(1, 5, listenerA);
+        timeline.schedule(2, 2, listenerB);
+        timeline.schedule(3, 6, listenerB);
+        timeline.schedule(4, 7, listenerA);
+        timeline.schedule(5, 8, listenerB);
+        timeline.schedule(6, 3, listenerB);
+
+        timeline.cancelAll(listenerA);
+        assertFalse(timeline.isScheduled(1, listenerA));
+        assertFalse(timeline.isScheduled(4, listenerA));
+
+        //the other Listener's events still fire, in the order they are due
+        timeline.advance(100);
+        assertEquals("", firedA.toString());
+        assertEquals("02635", firedB.toString());
+        assertFalse(timeline.hasEvents());
+
+        //cancel removes just one event
+        timeline.schedule(7, 10, listenerA);
+        timeline.schedule(8, 20, listenerA);
+        timeline.cancel(7, listenerA);
+        timeline.advance(100);
+        assertEquals("8", firedA.toString());
+    }
+}
@@ -0,0 +1,34 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the FrameMetrics' totals, dropped frame histogram and ring buffers.
+ */
+public class FrameMetricsTest extends TestCase {
+
+    public void testFrameMetricsCountsDroppedFrames()
+    {
+        FrameMetrics metrics = new FrameMetrics("test");
+        metrics.record(2000000L, 0, 0);
+        metrics.record(4000000L, FrameMetrics.FRAME_NANOS, 0);
+        metrics.record(6000000L, FrameMetrics.FRAME_NANOS * 3, 1);
+        metrics.record(2000000L, FrameMetrics.FRAME_NANOS * 100, 0);
+
+        assertEquals(4, metrics.getFrameCount());
+        assertEquals(1, metrics.getGCCount());
+        assertEquals(3500000L, metrics.getAverageDrawNanos());
+        assertEquals(6000000L, metrics.getMaxDrawNanos());
+        assertEquals(1, metrics.getDroppedCount(0));
+        assertEquals(1, metrics.getDroppedCount(2));
+        assertEquals(1, metrics.getDroppedCount(FrameMetrics.HISTOGRAM_SIZE - 1));
+
+        //the ring buffer only keeps the last CAPACITY frames
+        for (int i=0; i<FrameMetrics.CAPACITY; i++)
+        {
+            metrics.record(1000000L, FrameMetrics.FRAME_NANOS, 0);
+        }
+        assertEquals(1000000L, metrics.getMaxDrawNanos());
+        assertEquals(FrameMetrics.FRAME_NANOS, metrics.getAverageIntervalNanos());
+    }
+}
@@ -0,0 +1,90 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the statistics a MatchupResult keeps: win rates and their confidence intervals, Turns, and each BattleMove's uses and damage.
+ */
+public class MatchupResultTest extends TestCase {
+
+    public void testWinRateIntervalIsAWilsonInterval()
+    {
+        MatchupResult result = new MatchupResult("Hero", "Villain", 50);
+        for (int i=0; i<100; i++)
+        {
+            result.recordFight(i % 2 == 0, i % 2 == 1, 10);
+        }
+
+        assertEquals(0.5, result.getHeroWinRate(), 1e-9);
+        double[] interval = result.getHeroWinRateInterval();
+        assertEquals(0.4038, interval[0], 0.0001);
+        assertEquals(0.5962, interval[1], 0.0001);
+
+        //even with no wins at all, the interval isn't just zero (that's why it's a Wilson interval)
+        MatchupResult losses = new MatchupResult("Hero", "Villain", 50);
+        for (int i=0; i<10; i++)
+        {
+            losses.recordFight(false, true, 10);
+        }
+        interval = losses.getHeroWinRateInterval();
+        assertEquals(0, interval[0], 1e-9);
+        assertEquals(0.2775, interval[1], 0.0001);
+
+        //with no Fights, it could be anything
+        interval = new MatchupResult("Hero", "Villain", 50).getHeroWinRateInterval();
+        assertEquals(0, interval[0], 1e-9);
+        assertEquals(1, interval[1], 1e-9);
+    }
+
+    public void testMovesAndTurnsAreCountedAndMerged()
+    {
+        int bite = MoveRegistry.moveID("Bite");
+        MatchupResult first = new MatchupResult("Hero", "Villain", 50);
+        first.recordMove(true, bite);
+        first.recordDamage(true, bite, 13);
+        first.recordMove(true, bite);
+        first.recordDamage(true, bite, 4);
+        first.recordFight(true, false, 3);
+
+        //a BattleMove registered after the MatchupResult was made still gets counted
+        int newMove = MoveRegistry.moveID("Matchup Result Test Move");
+        MatchupResult second = new MatchupResult("Hero", "Villain", 50);
+        second.recordMove(false, newMove);
+        second.recordDamage(false, newMove, 7);
+        second.recordMove(true, bite);
+        second.recordFight(false, false, 9);
+
+        first.merge(second);
+
+        assertEquals(2, first.getFights());
+        assertEquals(1, first.getDraws());
+        assertEquals(3, first.getHeroMove(bite)[0]);
+        assertEquals(17, first.getHeroMove(bite)[1]);
+        assertEquals(1, first.getAntagonistMove(newMove)[0]);
+        assertEquals(7, first.getAntagonistMove(newMove)[1]);
+        assertEquals(0, first.getAntagonistMove(bite)[0]);
+        assertEquals(6.0, first.getMeanTurns(), 1e-9);
+        assertEquals(3, first.getTurnPercentile(0.5));
+        assertEquals(9, first.getTurnPercentile(1.0));
+    }
+
+    public void testSimulatedDamageAddsUp()
+    {
+        MatchupResult result = MatchupSimulator.simulateBatch(AntagonistCatalog.create(1), AntagonistCatalog.create(2), 200, 42);
+        assertEquals(200, result.getFights());
+
+        //every Fight that somebody won took all of the loser's HP, so the winner did at least that much damage
+        long satanDamage = 0;
+        for (int id=0; id<MoveRegistry.moveCount(); id++)
+        {
+            satanDamage += result.getHeroMove(id)[1];
+        }
+        long fishHP = 0;
+        FaceCharacter fish = AntagonistCatalog.create(2);
+        for (int i=0; i<fish.getPieces().size(); i++)
+        {
+            fishHP += fish.getPieces().get(i).getHP();
+        }
+        assertTrue(satanDamage >= result.getHeroWins() * fishHP);
+    }
+}
@@ -0,0 +1,102 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the MatchupSolver's exact answers against simulated Fights, and that it owns up when it can't give one.
+ */
+public class MatchupSolverTest extends TestCase {
+
+    /**
+     * A tiny FaceCharacter (no absorbent pieces, and little HP), so the MatchupSolver has few positions to work through.
+     */
+    private FaceCharacter makeSmallCharacter(String name, int eyesHP)
+    {
+        FaceCharacter character = new FaceCharacter();
+
+        FacePiece face = new FacePiece("Face", null);
+        face.setHP(6);
+
+        FacePiece eyes = new FacePiece("Eyes", null);
+        eyes.setHP(eyesHP);
+        eyes.setDamage(6);
+        eyes.setBattleMove("Laser Burn");
+
+        FacePiece shades = new FacePiece("Shades", null);
+        shades.setHP(5);
+        shades.setArmour(2);
+        shades.makeResponsive();
+        shades.makeReflective();
+        shades.setBattleMove("Reflect Damage");
+
+        character.addPiece(face, 0);
+        character.addPiece(eyes, 1);
+        character.addPiece(shades, 2);
+        character.setName(name);
+
+        return character;
+    }
+
+    public void testMatchupSolverAgreesWithSimulatedFights()
+    {
+        FaceCharacter hero = makeSmallCharacter("Hero", 5);
+        FaceCharacter villain = makeSmallCharacter("Villain", 7);
+
+        MatchupSolver solver = new MatchupSolver(hero, villain);
+        assertTrue(solver.solve(MatchupSolver.DEFAULT_MAX_POSITIONS));
+        assertTrue(solver.isExact());
+
+        //100,000 simulated Fights are within about 0.5% of the exact answer
+        MatchupResult result = MatchupSimulator.simulateBatch(hero, villain, 100000, 20141104L);
+        assertEquals(solver.getHeroWinProbability(), result.getHeroWinRate(), 0.005);
+        assertEquals(solver.getExpectedTurns(), result.getMeanTurns(), 0.05);
+
+        //with too small a limit, the MatchupSolver gives up
+        assertFalse(solver.solve(10));
+    }
+
+    /**
+     * A FaceCharacter with a weapon, and an absorbent beard which takes back about as much HP as it loses.
+     * When both sides have one, a Fight can come back to a position it has already been in, but neither side's total HP ever grows.
+     */
+    private FaceCharacter makeAbsorbentCharacter(String name, int eyesHP, int beardHP)
+    {
+        FaceCharacter character = new FaceCharacter();
+
+        FacePiece eyes = new FacePiece("Eyes", null);
+        eyes.setHP(eyesHP);
+        eyes.setDamage(4);
+        eyes.setBattleMove("Laser Burn");
+
+        FacePiece beard = new FacePiece("Beard", null);
+        beard.setHP(beardHP);
+        beard.setArmour(2);
+        beard.makeResponsive();
+        beard.makeAbsorbent();
+        beard.setBattleMove("Absorb Damage");
+
+        character.addPiece(eyes, 0);
+        character.addPiece(beard, 1);
+        character.setName(name);
+
+        return character;
+    }
+
+    public void testMatchupSolverGivesUpWhenItDoesNotConverge()
+    {
+        MatchupSolver solver = new MatchupSolver(makeAbsorbentCharacter("Hero", 6, 5), makeAbsorbentCharacter("Villain", 5, 4));
+        assertTrue(solver.solve(MatchupSolver.DEFAULT_MAX_POSITIONS));
+        assertTrue(solver.hasConverged());
+        assertTrue(solver.getPositionCount() < 10000);
+
+        //with too few sweeps to settle, the answer is not reported as solved
+        solver.setMaxSweeps(2);
+        assertFalse(solver.solve(MatchupSolver.DEFAULT_MAX_POSITIONS));
+        assertFalse(solver.hasConverged());
+
+        //Two identical FaceCharacters are equally likely to win, however often their Fight goes round in circles.
+        MatchupSolver mirror = new MatchupSolver(makeAbsorbentCharacter("Hero", 5, 4), makeAbsorbentCharacter("Villain", 5, 4));
+        assertTrue(mirror.solve(MatchupSolver.DEFAULT_MAX_POSITIONS));
+        assertEquals(0.5, mirror.getHeroWinProbability(), 1e-9);
+    }
+}
@@ -0,0 +1,47 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the MoveRegistry maps names to IDs and back, and keeps the built-in IDs fixed.
+ */
+public class MoveRegistryTest extends TestCase {
+
+    public void testBuiltInIDsAreFixed()
+    {
+        assertEquals(MoveRegistry.NO_MOVE, MoveRegistry.moveID("none"));
+        assertEquals(MoveRegistry.KAMIKAZE_SMASH, MoveRegistry.moveID("Kamikaze Smash"));
+        assertEquals(MoveRegistry.BLUE_FACE, MoveRegistry.findPieceType("Blue Face"));
+        assertEquals(MoveRegistry.COOL_SHADES, MoveRegistry.findPieceType("Cool Shades"));
+        assertEquals(MoveRegistry.MEAN_BROWS, MoveRegistry.findPieceType("Mean Brows"));
+
+        for (int id=0; id<MoveRegistry.BUILT_IN_PIECE_TYPES; id++)
+        {
+            assertEquals(id, MoveRegistry.findPieceType(MoveRegistry.pieceTypeName(id)));
+        }
+    }
+
+    public void testNamesAndIDsRoundTrip()
+    {
+        int count = MoveRegistry.moveCount();
+        int id = MoveRegistry.moveID("Move Registry Test Move");
+
+        //a new name gets the next ID, and asking again gives the same one
+        assertEquals(count, id);
+        assertEquals(count + 1, MoveRegistry.moveCount());
+        assertEquals(id, MoveRegistry.moveID("Move Registry Test Move"));
+        assertEquals("Move Registry Test Move", MoveRegistry.moveName(id));
+
+        //finding a piece type never registers it, but creating a FacePiece does
+        assertEquals(-1, MoveRegistry.findPieceType("Move Registry Test Piece"));
+        assertEquals(-1, MoveRegistry.findPieceType("Move Registry Test Piece"));
+        FacePiece piece = new FacePiece("Move Registry Test Piece", null);
+        assertTrue(piece.getPieceType() >= MoveRegistry.BUILT_IN_PIECE_TYPES);
+        assertEquals(piece.getPieceType(), MoveRegistry.findPieceType("Move Registry Test Piece"));
+        assertEquals("Move Registry Test Piece", MoveRegistry.pieceTypeName(piece.getPieceType()));
+
+        //a FacePiece's BattleMove is kept as its ID
+        piece.setBattleMove("Move Registry Test Move");
+        assertEquals(id, piece.getMoveID());
+    }
+}
@@ -0,0 +1,51 @@
+package com.pattmayne.facefighter;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.test.AndroidTestCase;
+
+/**
+ * Checks that the PieceBitmapCache decodes each picture once, counts its hits and misses, and keeps densities apart.
+ */
+public class PieceBitmapCacheTest extends AndroidTestCase {
+
+    public void testPicturesAreDecodedOnceAndCounted()
+    {
+        Resources res = getContext().getResources();
+        PieceBitmapCache.clear();
+
+        int hits = PieceBitmapCache.getHitCount();
+        int misses = PieceBitmapCache.getMissCount();
+
+        Bitmap first = PieceBitmapCache.get(res, R.drawable.face_one);
+        assertNotNull(first);
+        assertEquals(misses + 1, PieceBitmapCache.getMissCount());
+        assertEquals(hits, PieceBitmapCache.getHitCount());
+
+        //the second time, it is the very same Bitmap
+        assertSame(first, PieceBitmapCache.get(res, R.drawable.face_one));
+        assertEquals(misses + 1, PieceBitmapCache.getMissCount());
+        assertEquals(hits + 1, PieceBitmapCache.getHitCount());
+
+        //another picture is another miss
+        assertNotSame(first, PieceBitmapCache.get(res, R.drawable.face_two));
+        assertEquals(misses + 2, PieceBitmapCache.getMissCount());
+
+        //after clear, the picture is decoded again
+        PieceBitmapCache.clear();
+        assertNotSame(first, PieceBitmapCache.get(res, R.drawable.face_one));
+        assertEquals(misses + 3, PieceBitmapCache.getMissCount());
+    }
+
+    public void testKeysKeepDensitiesApart()
+    {
+        int id = R.drawable.face_one;
+        assertTrue(PieceBitmapCache.key(id, 160) != PieceBitmapCache.key(id, 320));
+        assertTrue(PieceBitmapCache.key(id, 320) != PieceBitmapCache.key(R.drawable.face_two, 320));
+        assertEquals(PieceBitmapCache.key(id, 320), PieceBitmapCache.key(id, 320));
+
+        //resource IDs use the top bit of an int, which mustn't spill into the density
+        assertEquals(0xffffffffL, PieceBitmapCache.key(-1, 0));
+        assertEquals(320L << 32, PieceBitmapCache.key(0, 320));
+    }
+}
@@ -0,0 +1,31 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the FaceFactory makes built-in FacePieces from their rows in the PieceCatalog.
+ */
+public class PieceCatalogTest extends TestCase {
+
+    public void testCatalogMakesPiecesFromTheirRows()
+    {
+        assertEquals(MoveRegistry.BUILT_IN_PIECE_TYPES, PieceCatalog.size());
+        assertEquals("Cool Shades", FaceFactory.PIECE_CATEGORIES[1][2]);
+        assertEquals("Mean Brows", FaceFactory.PIECE_CATEGORIES[5][1]);
+
+        FaceFactory faceFactory = new FaceFactory();
+        FacePiece teeth = faceFactory.makePiece("Big Teeth", 0);
+        assertEquals(MoveRegistry.BIG_TEETH, teeth.getPieceType());
+        assertEquals(11, teeth.getHP());
+        assertEquals(13, teeth.getDamage());
+        assertEquals(3, teeth.getRechargeTime());
+        assertEquals("Bite", teeth.getBattleMove());
+        assertTrue(teeth.isWeapon());
+
+        FacePiece beard = faceFactory.makePiece(MoveRegistry.MIGHTY_ABSORBENT_BEARD, 1);
+        assertEquals(7, beard.getArmour());
+        assertTrue(beard.isAbsorbent());
+
+        assertNull(faceFactory.makePiece("Devil Face", 0));
+    }
+}
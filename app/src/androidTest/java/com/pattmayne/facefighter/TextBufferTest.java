@@ -0,0 +1,18 @@
+package com.pattmayne.facefighter;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a TextBuffer writes text and numbers like a String would.
+ */
+public class TextBufferTest extends TestCase {
+
+    public void testTextBufferWritesNumbers()
+    {
+        TextBuffer text = new TextBuffer(2);
+        assertEquals("-12 HP!", text.append('-').append(12).append(" HP!").toString());
+        assertEquals("+0 HP!", text.clear().append('+').append(0).append(" HP!").toString());
+        assertEquals("-2147483648", text.clear().append(Integer.MIN_VALUE).toString());
+        assertEquals("Matt's Turn", text.clear().append("Matt").append("'s Turn").toString());
+    }
+}
@@ -0,0 +1,413 @@
+package com.pattmayne.facefighter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A smarter computer-controlled antagonist, which looks ahead before choosing its attacks and responses.
+ *
+ * For every BattleMove it could make, it plays the rest of the Fight over and over on its own FightEngine (so every rule of the real Turn applies:
+ * armour, reflection, absorption, kamikaze pieces and the effect modifier), with both sides choosing randomly after that first BattleMove.
+ * The BattleMoves which win more often get tried more often (UCB1), and when time runs out the most-tried BattleMove is chosen.
+ *
+ * Every decision has a strict time budget, and the search runs on its own background Thread, so the FightView never waits for it.
+ * The answer comes back through a DecisionListener, on the background Thread.
+ * The search's FightEngine, Players and BattleStates are created once, and every look-ahead reuses them, so searching creates no garbage.
+ */
+public class AntagonistAI {
+
+    //difficulties
+    public static final int EASY = 0;
+    public static final int NORMAL = 1;
+    public static final int HARD = 2;
+
+    public static final String[] DIFFICULTY_NAMES = {"Easy", "Normal", "Hard"};
+
+    //the time budget of one decision, for each difficulty (EASY doesn't search at all)
+    private static final long[] BUDGET_MILLIS = {0, 40, 200};
+
+    //A look-ahead stops after this many Turns, and the Fight is scored by how much HP each side has left.
+    private static final int LOOK_AHEAD_TURNS = 60;
+
+    //How much UCB1 favours BattleMoves which haven't been tried much.
+    private static final double EXPLORATION = 1.4;
+
+    //The deadline is only checked after this many look-aheads, because each one takes a few microseconds.
+    private static final int BATCH = 8;
+
+    //responding with nothing at all is one of the choices
+    public static final int NO_RESPONSE = -1;
+
+    /**
+     * Receives the AntagonistAI's decision.
+     */
+    public interface DecisionListener
+    {
+        /**
+         * @param slot the chosen slot (or NO_RESPONSE)
+         */
+        void onDecision(int slot);
+    }
+
+    //variables
+    private int difficulty = NORMAL;
+    private int side;
+
+    //The search's own copy of the Fight
+    private FightEngine searchEngine;
+    private Player searcher;
+    private BattleState heroSnapshot;
+    private BattleState antagonistSnapshot;
+    private FightRandom seedRandomizer;
+
+    //the statistics of the BattleMoves being compared
+    private int[] candidates;
+    private int candidateCount;
+    private double[] scores;
+    private int[] tries;
+
+    private long lastLookAheads = 0;
+    private long lastTurnsSimulated = 0;
+
+    private ExecutorService thread;
+    private volatile boolean busy = false;
+
+    /**
+     * @param heroCharacter
+     * @param antagonistCharacter
+     * @param side the side this AntagonistAI chooses for (MoveLog.ANTAGONIST in a normal Fight)
+     * @param seed
+     */
+    public AntagonistAI(FaceCharacter heroCharacter, FaceCharacter antagonistCharacter, int side, long seed)
+    {
+        this.side = side;
+
+        Player hero = new Player(heroCharacter);
+        Player antagonist = new Player(antagonistCharacter);
+        searchEngine = new FightEngine(hero, antagonist, seed);
+        searcher = (side == MoveLog.HERO) ? hero : antagonist;
+
+        heroSnapshot = new BattleState(hero.getState());
+        antagonistSnapshot = new BattleState(antagonist.getState());
+        seedRandomizer = new FightRandom(seed);
+
+        int size = Math.max(hero.getState().size(), antagonist.getState().size());
+        candidates = new int[size + 1];
+        scores = new double[size + 1];
+        tries = new int[size + 1];
+    }
+
+    public void setDifficulty(int difficulty)
+    {
+        this.difficulty = difficulty;
+    }
+
+    public int getDifficulty()
+    {
+        return difficulty;
+    }
+
+    /**
+     * Choose an attack for the current Turn, on the background Thread.
+     * The Fight is copied right away (on the calling Thread), so the real Fight can carry on while the search runs.
+     * @param engine the real Fight, at the start of this AntagonistAI's Turn
+     * @param listener
+     */
+    public void chooseAttack(FightEngine engine, final DecisionListener listener)
+    {
+        claim();
+        final int turnCount = takeSnapshot(engine);
+
+        startSearch(new Runnable() {
+            @Override
+            public void run() {
+                int slot = searchAttack(turnCount, BUDGET_MILLIS[difficulty]);
+                busy = false;
+                listener.onDecision(slot);
+            }
+        });
+    }
+
+    /**
+     * Choose a response to the opponent's attack, on the background Thread.
+     * @param engine the real Fight, after the opponent's attack
+     * @param attackingSlot the slot of the opponent's attacking piece
+     * @param listener
+     */
+    public void chooseResponse(FightEngine engine, final int attackingSlot, final DecisionListener listener)
+    {
+        claim();
+        final int turnCount = takeSnapshot(engine);
+
+        startSearch(new Runnable() {
+            @Override
+            public void run() {
+                int slot = searchResponse(turnCount, attackingSlot, BUDGET_MILLIS[difficulty]);
+                busy = false;
+                listener.onDecision(slot);
+            }
+        });
+    }
+
+    /**
+     * The snapshot belongs to one search at a time, and the Fight only ever waits for one decision at a time.
+     */
+    private void claim()
+    {
+        if (busy)
+        {
+            throw new IllegalStateException("The AntagonistAI is still making its last decision");
+        }
+        busy = true;
+    }
+
+    private void startSearch(Runnable search)
+    {
+        if (thread == null)
+        {
+            thread = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread searchThread = new Thread(runnable, "antagonist-ai");
+                    searchThread.setDaemon(true);
+                    searchThread.setPriority(Thread.MIN_PRIORITY);
+                    return searchThread;
+                }
+            });
+        }
+
+        thread.execute(search);
+    }
+
+    /**
+     * Stop the background Thread (when the Fight is over, or the FightActivity is closed).
+     */
+    public void shutdown()
+    {
+        if (thread != null)
+        {
+            thread.shutdownNow();
+            thread = null;
+        }
+    }
+
+    /**
+     * Choose an attack right now, on this Thread. The BattleStates must already be in the snapshot (see takeSnapshot).
+     * If this side has no weapons, the FightEngine's kamikaze rule applies, so there is nothing to choose and -1 is returned.
+     * @param turnCount the number of the current Turn
+     * @param budgetMillis
+     * @return the attacking slot
+     */
+    public int searchAttack(int turnCount, long budgetMillis)
+    {
+        BattleState state = (side == MoveLog.HERO) ? heroSnapshot : antagonistSnapshot;
+
+        candidateCount = 0;
+        for (int i=0; i<state.getWeaponCount(); i++)
+        {
+            candidates[candidateCount++] = state.getWeaponSlot(i);
+        }
+
+        if (candidateCount == 0)
+        {
+            return -1;
+        }
+
+        return search(turnCount, -1, budgetMillis);
+    }
+
+    /**
+     * Choose a response right now, on this Thread.
+     * @param turnCount the number of the current Turn
+     * @param attackingSlot the slot of the opponent's attacking piece
+     * @param budgetMillis
+     * @return the responding slot, or NO_RESPONSE
+     */
+    public int searchResponse(int turnCount, int attackingSlot, long budgetMillis)
+    {
+        BattleState state = (side == MoveLog.HERO) ? heroSnapshot : antagonistSnapshot;
+
+        candidateCount = 0;
+        candidates[candidateCount++] = NO_RESPONSE;
+        for (int i=0; i<state.getResponsiveCount(); i++)
+        {
+            candidates[candidateCount++] = state.getResponsiveSlot(i);
+        }
+
+        return search(turnCount, attackingSlot, budgetMillis);
+    }
+
+    /**
+     * Copy both Players' BattleStates from the real Fight, for the next search.
+     * chooseAttack and chooseResponse do this themselves. Call it directly to search on this Thread instead.
+     * @param engine
+     * @return the number of the current Turn
+     */
+    public int takeSnapshot(FightEngine engine)
+    {
+        heroSnapshot.copyFrom(engine.getHeroPlayer().getState());
+        antagonistSnapshot.copyFrom(engine.getAntagonistPlayer().getState());
+        return engine.getTurnCount();
+    }
+
+    /**
+     * Compare the candidates with look-aheads until the time budget runs out.
+     * @param turnCount
+     * @param opponentAttackingSlot -1 when choosing an attack, otherwise the opponent's attacking slot
+     * @param budgetMillis
+     * @return the candidate which was tried most
+     */
+    private int search(int turnCount, int opponentAttackingSlot, long budgetMillis)
+    {
+        if (candidateCount == 1 || budgetMillis <= 0)
+        {
+            //With no time to think, choose like the FightEngine's computer-controlled Players: at random.
+            lastLookAheads = 0;
+            lastTurnsSimulated = 0;
+            return candidates[seedRandomizer.nextInt(candidateCount)];
+        }
+
+        for (int i=0; i<candidateCount; i++)
+        {
+            scores[i] = 0;
+            tries[i] = 0;
+        }
+
+        long deadline = System.nanoTime() + budgetMillis * 1000000L;
+        int totalTries = 0;
+        long turnsSimulated = 0;
+
+        while (System.nanoTime() < deadline)
+        {
+            for (int b=0; b<BATCH; b++)
+            {
+                int choice = chooseCandidate(totalTries);
+                scores[choice] += lookAhead(turnCount, candidates[choice], opponentAttackingSlot);
+                tries[choice]++;
+                totalTries++;
+                turnsSimulated += searchEngine.getTurnCount() - turnCount + 1;
+            }
+        }
+
+        lastLookAheads = totalTries;
+        lastTurnsSimulated = turnsSimulated;
+
+        int best = 0;
+        for (int i=1; i<candidateCount; i++)
+        {
+            if (tries[i] > tries[best])
+            {
+                best = i;
+            }
+        }
+
+        return candidates[best];
+    }
+
+    /**
+     * UCB1: the candidate with the best average score, plus a bonus for candidates which haven't been tried much.
+     */
+    private int chooseCandidate(int totalTries)
+    {
+        double logTries = Math.log(totalTries + 1);
+        int best = 0;
+        double bestValue = -1;
+
+        for (int i=0; i<candidateCount; i++)
+        {
+            if (tries[i] == 0)
+            {
+                return i;
+            }
+
+            double value = scores[i] / tries[i] + EXPLORATION * Math.sqrt(logTries / tries[i]);
+            if (value > bestValue)
+            {
+                bestValue = value;
+                best = i;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Play one possible future of the Fight, starting with a BattleMove, and score it.
+     * @return 1 for a win, 0 for a loss, and the share of the HP left for a Fight which is still going after LOOK_AHEAD_TURNS
+     */
+    private double lookAhead(int turnCount, int slot, int opponentAttackingSlot)
+    {
+        Player opponent = searcher.getOpponent();
+
+        if (opponentAttackingSlot == -1)
+        {
+            //This side's Turn: attack with the slot, and the opponent may respond.
+            searchEngine.restartAt(heroSnapshot, antagonistSnapshot, side, turnCount, seedRandomizer.nextLong());
+            searchEngine.makeMove(searcher, slot);
+
+            if (searchEngine.computerWillRespond())
+            {
+                int respondingSlot = searchEngine.chooseResponse(opponent);
+                if (respondingSlot != -1)
+                {
+                    searchEngine.makeMove(opponent, respondingSlot);
+                }
+            }
+        }
+        else
+        {
+            //The opponent's Turn: their attack is known, and this side responds with the slot (or doesn't).
+            searchEngine.restartAt(heroSnapshot, antagonistSnapshot, 1 - side, turnCount, seedRandomizer.nextLong());
+            searchEngine.makeMove(opponent, opponentAttackingSlot);
+
+            if (slot != NO_RESPONSE)
+            {
+                searchEngine.makeMove(searcher, slot);
+            }
+        }
+
+        searchEngine.resolveTurn();
+
+        if (!searchEngine.isGameOver())
+        {
+            searchEngine.nextTurn();
+            searchEngine.playRemainingTurns(turnCount + LOOK_AHEAD_TURNS);
+        }
+
+        if (searchEngine.isGameOver())
+        {
+            return (searchEngine.getWinner() == searcher) ? 1 : 0;
+        }
+
+        int myHP = totalHP(searcher.getState());
+        int opponentHP = totalHP(opponent.getState());
+        return (double) myHP / Math.max(1, myHP + opponentHP);
+    }
+
+    private static int totalHP(BattleState state)
+    {
+        int hp = 0;
+        for (int i=0; i<state.getAliveCount(); i++)
+        {
+            hp += state.getHP(state.getAliveSlot(i));
+        }
+        return hp;
+    }
+
+    /**
+     * @return how many look-aheads the last decision tried
+     */
+    public long getLastLookAheads()
+    {
+        return lastLookAheads;
+    }
+
+    /**
+     * @return how many Turns the last decision simulated, over all its look-aheads
+     */
+    public long getLastTurnsSimulated()
+    {
+        return lastTurnsSimulated;
+    }
+}
@@ -0,0 +1,118 @@
+package com.pattmayne.facefighter;
+
+/**
+ * The table of antagonists: for each antagonist, one row per FacePiece (in layer order), and one array per column.
+ * Like the PieceCatalog, a new antagonist only needs new rows here, not a new method.
+ *
+ * This class uses nothing from Android, so the balance-testing tools (MatchupSimulator, MatchupSolver, BalanceTournament)
+ * can make the antagonists on a plain JVM. The FightInfo gives them their pictures when the game needs them.
+ */
+public class AntagonistCatalog {
+
+    //every antagonist has one FacePiece in each layer
+    public static final int PIECES = 6;
+
+    //the columns, indexed [antagonist][layer]
+    static final String[] NAMES = {"Junk Yard Robot", "Satan", "Fish Monster"};
+
+    static final String[][] PIECE_NAMES = {
+            {"Metal Face", "Glowing Eyes", "Speaker Mouth", "Rocket Beard", "Wire Hair", "Brow"},
+            {"Face", "Eyes", "Mouth", "Beard", "Horns", "Brow"},
+            {"Face", "Eyes", "Beak", "Beard", "Antlers", "Brow"}
+    };
+
+    static final int[][] DRAWABLES = {
+            {R.drawable.face_robot, R.drawable.eyes_robot, R.drawable.mouth_robot, R.drawable.beard_robot, R.drawable.head_robot, R.drawable.brow_mean},
+            {R.drawable.face_devil, R.drawable.eyes_devil, R.drawable.mouth_devil, R.drawable.beard_devil, R.drawable.head_devil, R.drawable.brow_mean},
+            {R.drawable.face_fish, R.drawable.eyes_fish, R.drawable.mouth_fish, R.drawable.beard_fish, R.drawable.head_fish, R.drawable.brow_curious}
+    };
+
+    static final int[][] HP =     {{37, 24, 29,  7, 17, 2}, {25, 18, 13, 13, 19, 1}, {31, 14, 23, 15, 19, 4}};
+    static final int[][] DAMAGE = {{ 0,  6,  5, 15,  0, 0}, { 0,  8,  7,  0, 14, 0}, { 0,  0,  6, 10,  0, 0}};
+    static final int[][] ARMOUR = {{ 1,  1,  1,  1,  6, 1}, { 1,  2,  5,  8,  1, 1}, { 1,  7,  1,  4,  6, 1}};
+
+    static final int[][] FLAGS = {
+            {0, PieceCatalog.WEAPON, PieceCatalog.WEAPON, PieceCatalog.WEAPON, PieceCatalog.RESPONSIVE | PieceCatalog.REFLECTIVE, 0},
+            {0, PieceCatalog.WEAPON, PieceCatalog.WEAPON | PieceCatalog.ABSORBENT, PieceCatalog.RESPONSIVE | PieceCatalog.ABSORBENT, PieceCatalog.WEAPON, 0},
+            {0, 0, PieceCatalog.WEAPON, PieceCatalog.WEAPON | PieceCatalog.ABSORBENT, PieceCatalog.RESPONSIVE | PieceCatalog.REFLECTIVE, 0}
+    };
+
+    static final String[][] BATTLE_MOVES = {
+            {"none", "Annoying Lights", "Sonic Screech", "Rocket Blast", "Ping Damage", "none"},
+            {"none", "Fiery Glare", "Devour Soul", "Absorb Damage", "Horn Ram", "none"},
+            {"none", "none", "Peck", "Beardy Tangle!", "Throw Back", "none"}
+    };
+
+    //where each FacePiece is drawn (x and y, in design pixels)
+    static final int[][][] PIC_LOCATIONS = {
+            {{210, 250}, {194, 368}, {267, 548}, {244, 595}, {178, 184}, {196, 345}},
+            {{201, 202}, {193, 342}, {263, 462}, {205, 532}, {196, 106}, {205, 334}},
+            {{143, 195}, {68, 330}, {102, 407}, {113, 426}, {149, 172}, {80, 313}}
+    };
+
+    /**
+     * @return how many antagonists there are
+     */
+    public static int size()
+    {
+        return NAMES.length;
+    }
+
+    /**
+     * @param name
+     * @return the antagonist's index, or -1 if there is no antagonist with that name (ignoring case)
+     */
+    public static int find(String name)
+    {
+        for (int i=0; i<NAMES.length; i++)
+        {
+            if (NAMES[i].equalsIgnoreCase(name))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static String name(int antagonist)
+    {
+        return NAMES[antagonist];
+    }
+
+    /**
+     * @param antagonist
+     * @param layer
+     * @return the drawable of one of the antagonist's FacePieces
+     */
+    public static int drawable(int antagonist, int layer)
+    {
+        return DRAWABLES[antagonist][layer];
+    }
+
+    /**
+     * Create an antagonist FaceCharacter from its rows. Its FacePieces have all their battle properties but no pictures.
+     * @param antagonist
+     * @return
+     */
+    public static FaceCharacter create(int antagonist)
+    {
+        FaceCharacter character = new FaceCharacter();
+        character.setName(NAMES[antagonist]);
+
+        for (int layer=0; layer<PIECES; layer++)
+        {
+            FacePiece piece = new FacePiece(PIECE_NAMES[antagonist][layer], null);
+            piece.setHP(HP[antagonist][layer]);
+            piece.setDamage(DAMAGE[antagonist][layer]);
+            piece.setArmour(ARMOUR[antagonist][layer]);
+            piece.setBattleMove(BATTLE_MOVES[antagonist][layer]);
+            piece.setPicLocation(PIC_LOCATIONS[antagonist][layer][0], PIC_LOCATIONS[antagonist][layer][1]);
+
+            PieceCatalog.applyFlags(piece, FLAGS[antagonist][layer]);
+
+            character.addPiece(piece, layer);
+        }
+
+        return character;
+    }
+}
@@ -4,7 +4,6 @@ import android.app.AlertDialog;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.res.Resources;
-import android.graphics.BitmapFactory;
 import android.support.v7.app.ActionBarActivity;
 import android.os.Bundle;
 import android.text.InputType;
@@ -98,42 +97,42 @@ public class BadguyBuilderActivity extends ActionBarActivity {
 
     public void placeDevilFace(View view)
     {
-        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Face", BitmapFactory.decodeResource(res, R.drawable.face_fish), featureTicker);
+        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Face", PieceBitmapCache.get(res, R.drawable.face_fish), featureTicker);
         featureTicker++;
         faceBuilderView.addPiece(tempPiece);
     }
 
     public void placeDevilEyes(View view)
     {
-        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Eyes", BitmapFactory.decodeResource(res, R.drawable.eyes_fish), featureTicker);
+        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Eyes", PieceBitmapCache.get(res, R.drawable.eyes_fish), featureTicker);
         faceBuilderView.addPiece(tempPiece);
         featureTicker++;
     }
 
     public void placeDevilMouth(View view)
     {
-        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Mouth", BitmapFactory.decodeResource(res, R.drawable.mouth_fish), featureTicker);
+        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Mouth", PieceBitmapCache.get(res, R.drawable.mouth_fish), featureTicker);
         faceBuilderView.addPiece(tempPiece);
         featureTicker++;
     }
 
     public void placeDevilHead(View view)
     {
-        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Head", BitmapFactory.decodeResource(res, R.drawable.head_fish), featureTicker);
+        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Head", PieceBitmapCache.get(res, R.drawable.head_fish), featureTicker);
         faceBuilderView.addPiece(tempPiece);
         featureTicker++;
     }
 
     public void placeDevilBeard(View view)
     {
-        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Beard", BitmapFactory.decodeResource(res, R.drawable.beard_fish), featureTicker);
+        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Beard", PieceBitmapCache.get(res, R.drawable.beard_fish), featureTicker);
         faceBuilderView.addPiece(tempPiece);
         featureTicker++;
     }
 
     public void placeDevilBrow(View view)
     {
-        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Brows", BitmapFactory.decodeResource(res, R.drawable.brow_mean), featureTicker);
+        FacePiece tempPiece = faceFactory.makeExtraPiece("Devil Brows", PieceBitmapCache.get(res, R.drawable.brow_mean), featureTicker);
         faceBuilderView.addPiece(tempPiece);
         featureTicker++;
     }
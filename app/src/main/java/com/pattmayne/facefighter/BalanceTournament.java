@@ -0,0 +1,336 @@
+package com.pattmayne.facefighter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A round-robin tournament between every hero build the FaceFactory can make and every antagonist in the AntagonistCatalog.
+ * Every competitor fights every other competitor, many times, and the results are written to two CSV files:
+ *
+ *   win_rates.csv - a matrix where each cell is the row competitor's win rate against the column competitor.
+ *   rankings.csv  - every competitor, ranked by how many opponents they beat more often than not (then by average win rate).
+ *
+ * Each pairing is one job. Worker threads keep taking the next unplayed pairing until none are left,
+ * so a thread which finishes quick pairings simply plays more of them and no core sits idle.
+ * Every pairing has its own seed, split from the tournament's seed, so the same seed always produces the same CSV files.
+ */
+public class BalanceTournament {
+
+    /**
+     * Hears how far a tournament has got. It is called on the worker Threads, so it must be thread-safe.
+     */
+    public interface ProgressListener
+    {
+        /**
+         * @param finishedPairings how many pairings have been played (each number is reported exactly once)
+         * @param pairings how many pairings there are
+         */
+        void onPairingFinished(int finishedPairings, int pairings);
+    }
+
+    //variables
+    private ArrayList<FaceCharacter> competitors;
+    private ArrayList<String> descriptions;
+
+    //winRates[i][j] is competitor i's win rate against competitor j
+    private double[][] winRates;
+
+    public BalanceTournament()
+    {
+        competitors = new ArrayList<FaceCharacter>();
+        descriptions = new ArrayList<String>();
+    }
+
+    /**
+     * Add every combination of one FacePiece from each FaceFactory category as a competitor.
+     */
+    public void addAllBuilds()
+    {
+        String[][] categories = FaceFactory.PIECE_CATEGORIES;
+        int[] choice = new int[categories.length];
+        int buildNumber = 1;
+
+        //Count through every combination like an odometer, with the last category turning fastest.
+        boolean finished = false;
+        while (!finished)
+        {
+            FaceFactory faceFactory = new FaceFactory();
+            String description = "";
+
+            for (int category=0; category<categories.length; category++)
+            {
+                String pieceName = categories[category][choice[category]];
+                faceFactory.makePiece(pieceName, category);
+                description = description + (category == 0 ? "" : " + ") + pieceName;
+            }
+
+            faceFactory.setName(String.format("Build %03d", buildNumber++));
+            addCompetitor(faceFactory.getCharacter(), description);
+
+            finished = true;
+            for (int category=categories.length - 1; category>=0 && finished; category--)
+            {
+                choice[category]++;
+                if (choice[category] < categories[category].length)
+                {
+                    finished = false;
+                } else {
+                    choice[category] = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add every antagonist from the AntagonistCatalog as a competitor.
+     */
+    public void addAllAntagonists()
+    {
+        for (int i=0; i<AntagonistCatalog.size(); i++)
+        {
+            addCompetitor(AntagonistCatalog.create(i), "Antagonist");
+        }
+    }
+
+    public void addCompetitor(FaceCharacter character, String description)
+    {
+        competitors.add(character);
+        descriptions.add(description);
+    }
+
+    /**
+     * Play every pairing of competitors.
+     * @param fightsPerPairing
+     * @param seed
+     * @param threads
+     */
+    public void play(int fightsPerPairing, long seed, int threads)
+    {
+        play(fightsPerPairing, seed, threads, null);
+    }
+
+    /**
+     * Play every pairing of competitors, reporting progress as they finish.
+     * @param fightsPerPairing
+     * @param seed
+     * @param threads
+     * @param listener can be null
+     */
+    public void play(final int fightsPerPairing, long seed, int threads, final ProgressListener listener)
+    {
+        final int count = competitors.size();
+        winRates = new double[count][count];
+
+        //List every pairing and give each its own seed, before any thread starts.
+        final int pairings = count * (count - 1) / 2;
+        final int[] firstCompetitor = new int[pairings];
+        final int[] secondCompetitor = new int[pairings];
+        final long[] pairingSeeds = new long[pairings];
+
+        FightRandom seedRandomizer = new FightRandom(seed);
+        int pairing = 0;
+        for (int i=0; i<count; i++)
+        {
+            for (int j=i + 1; j<count; j++)
+            {
+                firstCompetitor[pairing] = i;
+                secondCompetitor[pairing] = j;
+                pairingSeeds[pairing] = seedRandomizer.nextLong();
+                pairing++;
+            }
+        }
+
+        final AtomicInteger nextPairing = new AtomicInteger(0);
+        final AtomicInteger finishedPairings = new AtomicInteger(0);
+
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                for (int p = nextPairing.getAndIncrement(); p < pairings; p = nextPairing.getAndIncrement())
+                {
+                    int i = firstCompetitor[p];
+                    int j = secondCompetitor[p];
+
+                    MatchupResult result = MatchupSimulator.simulateBatch(competitors.get(i), competitors.get(j), fightsPerPairing, pairingSeeds[p], false);
+
+                    //Each cell is only ever written by the thread which played its pairing.
+                    winRates[i][j] = (double) result.getHeroWins() / result.getFights();
+                    winRates[j][i] = (double) result.getAntagonistWins() / result.getFights();
+
+                    int finished = finishedPairings.incrementAndGet();
+                    if (listener != null)
+                    {
+                        listener.onPairingFinished(finished, pairings);
+                    }
+                }
+            }
+        };
+
+        Thread[] workers = new Thread[Math.max(1, threads)];
+        for (int t=0; t<workers.length; t++)
+        {
+            workers[t] = new Thread(worker, "tournament-" + t);
+            workers[t].start();
+        }
+
+        try {
+            for (int t=0; t<workers.length; t++)
+            {
+                workers[t].join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tournament interrupted", e);
+        }
+    }
+
+    /**
+     * Write the win-rate matrix to a CSV file.
+     * @param file
+     * @throws IOException
+     */
+    public void writeWinRates(File file) throws IOException
+    {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+
+        try {
+            writer.print("competitor");
+            for (int j=0; j<competitors.size(); j++)
+            {
+                writer.print("," + quote(competitors.get(j).getName()));
+            }
+            writer.println();
+
+            for (int i=0; i<competitors.size(); i++)
+            {
+                writer.print(quote(competitors.get(i).getName()));
+                for (int j=0; j<competitors.size(); j++)
+                {
+                    writer.print(i == j ? "," : String.format(",%.4f", winRates[i][j]));
+                }
+                writer.println();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Rank every competitor, then write the rankings to a CSV file.
+     * A competitor "beats" another when its win rate against them is over 50%.
+     * @param file
+     * @throws IOException
+     */
+    public void writeRankings(File file) throws IOException
+    {
+        final int count = competitors.size();
+        final int[] opponentsBeaten = new int[count];
+        final double[] averageWinRates = new double[count];
+        Integer[] ranking = new Integer[count];
+
+        for (int i=0; i<count; i++)
+        {
+            for (int j=0; j<count; j++)
+            {
+                if (i != j)
+                {
+                    averageWinRates[i] += winRates[i][j];
+                    if (winRates[i][j] > 0.5)
+                    {
+                        opponentsBeaten[i]++;
+                    }
+                }
+            }
+            averageWinRates[i] /= Math.max(1, count - 1);
+            ranking[i] = i;
+        }
+
+        Arrays.sort(ranking, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                if (opponentsBeaten[a] != opponentsBeaten[b])
+                {
+                    return opponentsBeaten[b] - opponentsBeaten[a];
+                }
+                return Double.compare(averageWinRates[b], averageWinRates[a]);
+            }
+        });
+
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+
+        try {
+            writer.println("rank,competitor,pieces,opponents_beaten,average_win_rate");
+            for (int rank=0; rank<count; rank++)
+            {
+                int i = ranking[rank];
+                writer.println((rank + 1) + "," + quote(competitors.get(i).getName()) + "," + quote(descriptions.get(i))
+                        + "," + opponentsBeaten[i] + String.format(",%.4f", averageWinRates[i]));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String quote(String value)
+    {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    public ArrayList<FaceCharacter> getCompetitors()
+    {
+        return competitors;
+    }
+
+    /**
+     * @param i
+     * @param j
+     * @return competitor i's win rate against competitor j, from the last play
+     */
+    public double getWinRate(int i, int j)
+    {
+        return winRates[i][j];
+    }
+
+    /**
+     * Command line entry point (like the MatchupSimulator's, it runs on a plain JVM with only the app's own classes):
+     *
+     *   BalanceTournament [fightsPerPairing] [outputDirectory] [seed] [threads]
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException
+    {
+        int fightsPerPairing = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        File outputDirectory = new File(args.length > 1 ? args[1] : ".");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : FightRandom.newSeed();
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        BalanceTournament tournament = new BalanceTournament();
+        tournament.addAllBuilds();
+        tournament.addAllAntagonists();
+
+        System.out.println(tournament.getCompetitors().size() + " competitors, " + fightsPerPairing + " fights per pairing, seed " + seed + ", " + threads + " threads");
+
+        long startTime = System.nanoTime();
+        tournament.play(fightsPerPairing, seed, threads, new ProgressListener() {
+            @Override
+            public void onPairingFinished(int finishedPairings, int pairings) {
+                if (finishedPairings % 1000 == 0)
+                {
+                    System.err.println(finishedPairings + " / " + pairings + " pairings");
+                }
+            }
+        });
+        System.out.println("played in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+
+        outputDirectory.mkdirs();
+        tournament.writeWinRates(new File(outputDirectory, "win_rates.csv"));
+        tournament.writeRankings(new File(outputDirectory, "rankings.csv"));
+    }
+}
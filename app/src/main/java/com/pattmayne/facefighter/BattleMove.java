@@ -11,38 +11,42 @@ public class BattleMove {
 
     //variables:
     private Player player;
-    private FacePiece piece;
-    private String name;
-    private int damage;
-    private Turn currentTurn;
+    private int slot = -1;
 
-    public BattleMove(FacePiece piece, Player player)
+    /**
+     * Each Turn keeps its own BattleMove objects and fills them in with set, so no BattleMove is created during a Fight.
+     */
+    public BattleMove()
     {
-        this.player = player;
-        currentTurn = player.getTurn();
+    }
 
-        this.piece = piece;
-        setupBattleMove();
+    /**
+     * @param player
+     * @param slot the slot of the Player's FacePiece which performs this BattleMove
+     */
+    public BattleMove(Player player, int slot)
+    {
+        set(player, slot);
     }
 
-    private void setupBattleMove()
+    public void set(Player player, int slot)
     {
-        name = piece.getBattleMove();
-        damage = piece.getDamage();
+        this.player = player;
+        this.slot = slot;
     }
 
-    public FacePiece getPiece()
+    public Player getPlayer()
     {
-        return piece;
+        return player;
     }
 
-    public void setName(String name)
+    public int getSlot()
     {
-        this.name = name;
+        return slot;
     }
 
     public String getName()
     {
-        return name;
+        return player.getBattleMove(slot);
     }
 }
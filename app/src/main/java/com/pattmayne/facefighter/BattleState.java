@@ -0,0 +1,334 @@
+package com.pattmayne.facefighter;
+
+/**
+ * The battle statistics of one Player's FacePieces, kept in plain int arrays instead of FacePiece objects.
+ * Each FacePiece of the FaceCharacter has a "slot" (its index in the FaceCharacter's list of pieces),
+ * and hp[slot], armour[slot], damage[slot] and flags[slot] describe it during the Fight.
+ *
+ * A template is built once from a FaceCharacter, and every Fight copies the template,
+ * so starting a Fight costs a few small array copies and the FaceCharacter's FacePieces are never changed.
+ *
+ * The slots which are still alive are listed (in their original order) in the first aliveCount entries of aliveSlots.
+ * The alive slots are also indexed by role, in the same order: weapons, responsive pieces, and neutral pieces (neither of those).
+ * The indexes only change when a piece dies or becomes a kamikaze piece, so choosing a piece for a BattleMove never needs a search.
+ */
+public class BattleState {
+
+    //bits of flags[slot]
+    public static final int WEAPON = 1;
+    public static final int RESPONSIVE = 2;
+    public static final int REFLECTIVE = 4;
+    public static final int ABSORBENT = 8;
+    public static final int KAMIKAZE = 16;
+    public static final int DEAD = 32;
+
+    //A kamikaze piece always does this much damage.
+    public static final int KAMIKAZE_DAMAGE = 7;
+
+    //variables
+    private int[] hp;
+    private int[] armour;
+    private int[] damage;
+    private int[] flags;
+
+    private int[] aliveSlots;
+    private int aliveCount;
+
+    private int[] weaponSlots;
+    private int weaponCount;
+    private int[] responsiveSlots;
+    private int responsiveCount;
+    private int[] neutralSlots;
+    private int neutralCount;
+
+    /**
+     * Build a template from the FaceCharacter's FacePieces.
+     * @param character
+     */
+    public BattleState(FaceCharacter character)
+    {
+        int size = character.getPieces().size();
+        allocate(size);
+
+        for (int slot=0; slot<size; slot++)
+        {
+            FacePiece piece = character.getPieces().get(slot);
+            hp[slot] = piece.getHP();
+            armour[slot] = piece.getArmour();
+            damage[slot] = piece.getDamage();
+            flags[slot] = (piece.isWeapon() ? WEAPON : 0)
+                    | (piece.isResponsive() ? RESPONSIVE : 0)
+                    | (piece.isReflective() ? REFLECTIVE : 0)
+                    | (piece.isAbsorbent() ? ABSORBENT : 0)
+                    | (piece.isKamikaze() ? KAMIKAZE : 0);
+            aliveSlots[slot] = slot;
+        }
+
+        aliveCount = size;
+        indexRoles();
+    }
+
+    /**
+     * Copy another BattleState (usually a template), so the copy can be changed during a Fight.
+     * @param template
+     */
+    public BattleState(BattleState template)
+    {
+        allocate(template.size());
+        copyFrom(template);
+    }
+
+    private void allocate(int size)
+    {
+        hp = new int[size];
+        armour = new int[size];
+        damage = new int[size];
+        flags = new int[size];
+        aliveSlots = new int[size];
+        weaponSlots = new int[size];
+        responsiveSlots = new int[size];
+        neutralSlots = new int[size];
+    }
+
+    /**
+     * Sort every alive slot into the role indexes.
+     */
+    private void indexRoles()
+    {
+        weaponCount = 0;
+        responsiveCount = 0;
+        neutralCount = 0;
+
+        for (int i=0; i<aliveCount; i++)
+        {
+            int slot = aliveSlots[i];
+
+            if (isWeapon(slot))
+            {
+                weaponSlots[weaponCount++] = slot;
+            }
+            if (isResponsive(slot))
+            {
+                responsiveSlots[responsiveCount++] = slot;
+            }
+            if (!isWeapon(slot) && !isResponsive(slot))
+            {
+                neutralSlots[neutralCount++] = slot;
+            }
+        }
+    }
+
+    /**
+     * Overwrite this BattleState with another one of the same size.
+     * @param other
+     */
+    public void copyFrom(BattleState other)
+    {
+        int size = other.size();
+        System.arraycopy(other.hp, 0, hp, 0, size);
+        System.arraycopy(other.armour, 0, armour, 0, size);
+        System.arraycopy(other.damage, 0, damage, 0, size);
+        System.arraycopy(other.flags, 0, flags, 0, size);
+        System.arraycopy(other.aliveSlots, 0, aliveSlots, 0, size);
+        System.arraycopy(other.weaponSlots, 0, weaponSlots, 0, size);
+        System.arraycopy(other.responsiveSlots, 0, responsiveSlots, 0, size);
+        System.arraycopy(other.neutralSlots, 0, neutralSlots, 0, size);
+        aliveCount = other.aliveCount;
+        weaponCount = other.weaponCount;
+        responsiveCount = other.responsiveCount;
+        neutralCount = other.neutralCount;
+    }
+
+    /**
+     * A piece only dies from a wound which leaves it with no HP.
+     * @param slot
+     * @param wound
+     */
+    public void sufferWound(int slot, int wound)
+    {
+        hp[slot] -= wound;
+
+        if (hp[slot] <= 0)
+        {
+            flags[slot] |= DEAD;
+        }
+    }
+
+    /**
+     * Gaining HP never kills a piece, even when the HP is negative (an absorbent defense can give less than nothing).
+     * @param slot
+     * @param health
+     */
+    public void receiveHP(int slot, int health)
+    {
+        hp[slot] += health;
+    }
+
+    /**
+     * Take a dead slot off the list of alive slots, keeping the others in order.
+     * @param aliveIndex the slot's position in the list of alive slots
+     */
+    public void removeAliveSlot(int aliveIndex)
+    {
+        int slot = aliveSlots[aliveIndex];
+
+        System.arraycopy(aliveSlots, aliveIndex + 1, aliveSlots, aliveIndex, aliveCount - aliveIndex - 1);
+        aliveCount--;
+
+        weaponCount = removeSlot(weaponSlots, weaponCount, slot);
+        responsiveCount = removeSlot(responsiveSlots, responsiveCount, slot);
+        neutralCount = removeSlot(neutralSlots, neutralCount, slot);
+    }
+
+    /**
+     * Turn a slot into a kamikaze weapon. It can no longer respond to attacks.
+     * @param slot
+     */
+    public void makeKamikaze(int slot)
+    {
+        if (!isWeapon(slot))
+        {
+            weaponCount = insertSlot(weaponSlots, weaponCount, slot);
+        }
+        responsiveCount = removeSlot(responsiveSlots, responsiveCount, slot);
+        neutralCount = removeSlot(neutralSlots, neutralCount, slot);
+
+        flags[slot] = (flags[slot] & ~(RESPONSIVE | REFLECTIVE | ABSORBENT)) | KAMIKAZE | WEAPON;
+        damage[slot] = KAMIKAZE_DAMAGE;
+    }
+
+    /**
+     * Take a slot out of a role index (if it's there), keeping the others in order.
+     * @return the new number of slots in the index
+     */
+    private static int removeSlot(int[] slots, int count, int slot)
+    {
+        for (int i=0; i<count; i++)
+        {
+            if (slots[i] == slot)
+            {
+                System.arraycopy(slots, i + 1, slots, i, count - i - 1);
+                return count - 1;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Put a slot into a role index, in order.
+     * @return the new number of slots in the index
+     */
+    private static int insertSlot(int[] slots, int count, int slot)
+    {
+        int i = count;
+        while (i > 0 && slots[i - 1] > slot)
+        {
+            slots[i] = slots[i - 1];
+            i--;
+        }
+        slots[i] = slot;
+
+        return count + 1;
+    }
+
+    //getter methods
+
+    public int size()
+    {
+        return hp.length;
+    }
+
+    public int getHP(int slot)
+    {
+        return hp[slot];
+    }
+
+    public int getArmour(int slot)
+    {
+        return armour[slot];
+    }
+
+    public int getDamage(int slot)
+    {
+        return damage[slot];
+    }
+
+    public boolean isAlive(int slot)
+    {
+        return (flags[slot] & DEAD) == 0;
+    }
+
+    public boolean isWeapon(int slot)
+    {
+        return (flags[slot] & WEAPON) != 0;
+    }
+
+    public boolean isResponsive(int slot)
+    {
+        return (flags[slot] & RESPONSIVE) != 0;
+    }
+
+    public boolean isReflective(int slot)
+    {
+        return (flags[slot] & REFLECTIVE) != 0;
+    }
+
+    public boolean isAbsorbent(int slot)
+    {
+        return (flags[slot] & ABSORBENT) != 0;
+    }
+
+    public boolean isKamikaze(int slot)
+    {
+        return (flags[slot] & KAMIKAZE) != 0;
+    }
+
+    public int getAliveCount()
+    {
+        return aliveCount;
+    }
+
+    /**
+     * @param aliveIndex from 0 to getAliveCount() - 1
+     * @return the slot
+     */
+    public int getAliveSlot(int aliveIndex)
+    {
+        return aliveSlots[aliveIndex];
+    }
+
+    public int getWeaponCount()
+    {
+        return weaponCount;
+    }
+
+    public int getWeaponSlot(int weaponIndex)
+    {
+        return weaponSlots[weaponIndex];
+    }
+
+    public int getResponsiveCount()
+    {
+        return responsiveCount;
+    }
+
+    public int getResponsiveSlot(int responsiveIndex)
+    {
+        return responsiveSlots[responsiveIndex];
+    }
+
+    /**
+     * Neutral pieces are neither weapons nor responsive.
+     * @return
+     */
+    public int getNeutralCount()
+    {
+        return neutralCount;
+    }
+
+    public int getNeutralSlot(int neutralIndex)
+    {
+        return neutralSlots[neutralIndex];
+    }
+}
@@ -53,6 +53,7 @@ public class CharacterSummaryActivity extends Activity {
         if (gameOver)
         {
             launchButton.setText("Okay");
+            findViewById(R.id.watch_replay_button).setVisibility(View.VISIBLE);
 
             heroStatus = getIntent().getStringExtra("HeroStatus");
             Intent musicIntent = new Intent();
@@ -92,6 +93,20 @@ public class CharacterSummaryActivity extends Activity {
         }
     }
 
+    /**
+     * Replay the Fight which just ended, in the same location.
+     * @param view
+     */
+    public void watchReplay(View view)
+    {
+        Intent replayIntent = new Intent(this, FightActivity.class);
+        replayIntent.putExtra("REPLAY", true);
+        replayIntent.putExtra("location_and_opponent", getIntent().getIntArrayExtra("location_and_opponent"));
+        replayIntent.putExtra("PLAY_MUSIC", playMusic);
+        startActivity(replayIntent);
+        finish();
+    }
+
     public void backToStartScreen()
     {
         Intent finishingIntent = new Intent(this, MainActivity.class);
@@ -23,6 +23,9 @@ public class CharacterSummaryView extends View {
     private int centerX;
     private int centerY;
 
+    //measures every frame, when FrameMetrics.ENABLED is switched on
+    private FrameMetrics frameMetrics = new FrameMetrics("CharacterSummaryView");
+
 
     public CharacterSummaryView(Context context) {
         super(context);
@@ -62,10 +65,22 @@ public class CharacterSummaryView extends View {
         centerX = canvas.getWidth()/3;
         centerY = canvas.getHeight()/3;
 
+        frameMetrics.beginFrame();
+
         for(int i=0; i<facePieces.size(); i++)
         {
             canvas.drawBitmap(facePieces.get(i).getPic(), facePieces.get(i).getPicLocation()[0], facePieces.get(i).getPicLocation()[1], paint);
         }
+
+        frameMetrics.endFrame();
+        frameMetrics.drawOverlay(canvas);
+    }
+
+    @Override
+    protected void onDetachedFromWindow()
+    {
+        super.onDetachedFromWindow();
+        frameMetrics.save(context);
     }
 
     public FaceCharacter getCharacter()
@@ -1,6 +1,7 @@
 package com.pattmayne.facefighter;
 
 import android.app.AlertDialog;
+import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.support.v7.app.ActionBarActivity;
@@ -9,7 +10,9 @@ import android.text.InputType;
 import android.view.View;
 import android.widget.EditText;
 import android.widget.TextView;
+import android.widget.Toast;
 
+import java.io.File;
 import java.util.ArrayList;
 
 /**
@@ -382,11 +385,21 @@ public class FaceBuilderActivity extends ActionBarActivity {
      * This method calls another method which saves the final FaceCharacter image as a PNG,
      * but it also calls another method which saves all the info about the FaceCharacter and its FacePieces.
      * Then it calls the next Activity.
+     * The picture is saved in the background, so this Activity may be gone by the time it's finished.
      * @param view
      */
     public void saveFace(View view)
     {
-        faceBuilderView.saveFaceImage(this);
+        final Context appContext = getApplicationContext();
+        faceBuilderView.saveFaceImage(this, new FaceExporter.ExportListener() {
+            @Override
+            public void onExportFinished(File file, boolean saved) {
+                if (!saved)
+                {
+                    Toast.makeText(appContext, "Could Not Save The Face Picture", Toast.LENGTH_LONG).show();
+                }
+            }
+        });
 
         //save the important information about the face character to a database
         faceFactory.getCharacter().saveFaceToDB(this);
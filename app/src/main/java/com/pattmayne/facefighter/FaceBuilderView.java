@@ -5,14 +5,14 @@ import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
-import android.os.Environment;
+import android.graphics.Rect;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.util.ArrayList;
 
 /**
@@ -20,6 +20,11 @@ import java.util.ArrayList;
  * One by one, FacePiece Bitmap images are added to the screen and placed where the user chooses.
  *
  * The images are displayed by the FaceBuilderActivity.
+ *
+ * While the user drags the activePiece around, the other FacePieces don't change.
+ * So the pieces below the activePiece and the pieces above it are each drawn once onto their own Bitmap (a layer),
+ * and each frame only draws the two layers and the activePiece between them,
+ * and only inside the area the activePiece has just left and moved into.
  * Created by Matt on 2014-10-19.
  */
 public class FaceBuilderView extends View {
@@ -40,10 +45,26 @@ public class FaceBuilderView extends View {
 
     private ArrayList<FacePiece> facePieces;
 
-    private FileOutputStream fileStream;
-    private String filePath;
-    private Bitmap savedBitmap;
-    private File faceFile;
+    //The picture of the finished FaceCharacter is saved in the app's files directory, with this name.
+    public static final String FACE_PICTURE_FILE_NAME = "facePicture.png";
+
+    //saves that picture in the background
+    private FaceExporter faceExporter = new FaceExporter();
+
+    //the FacePieces below and above the activePiece, drawn onto Bitmaps the size of the View
+    private Bitmap belowLayer;
+    private Bitmap aboveLayer;
+    private Canvas belowCanvas;
+    private Canvas aboveCanvas;
+    private boolean layersReady = false;
+
+    //where the activePiece was on the last frame, and the area which needs redrawing
+    private Rect drawnBounds = new Rect();
+    private Rect pieceBounds = new Rect();
+    private Rect dirty = new Rect();
+
+    //measures every frame, when FrameMetrics.ENABLED is switched on
+    private FrameMetrics frameMetrics = new FrameMetrics("FaceBuilderView");
 
     //constructors
 
@@ -51,21 +72,18 @@ public class FaceBuilderView extends View {
     {
         super(sentContext);
         this.context = sentContext;
-        setDrawingCacheEnabled(true);
         instantiateVariables();
     }
 
     public FaceBuilderView(Context sentContext, AttributeSet attrs) {
         super(sentContext, attrs);
         this.context = sentContext;
-        this.setDrawingCacheEnabled(true);
         instantiateVariables();
     }
 
     public FaceBuilderView(Context sentContext, AttributeSet attrs, int defStyleAttr) {
         super(sentContext, attrs, defStyleAttr);
         this.context = sentContext;
-        this.setDrawingCacheEnabled(true);
         instantiateVariables();
     }
 
@@ -79,9 +97,29 @@ public class FaceBuilderView extends View {
         facePieces = faceFactory.getPieces();
     }
 
+    /**
+     * The layers are the size of the View, so they are made again when its size changes.
+     */
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight)
+    {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+
+        releaseLayers();
+        if (width > 0 && height > 0)
+        {
+            belowLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            aboveLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            belowCanvas = new Canvas(belowLayer);
+            aboveCanvas = new Canvas(aboveLayer);
+        }
+    }
+
     /**
      * The Thread calls this method every time invalidate() is invoked.
      * It draws all the FacePiece Bitmap images in their appointed locations.
+     * While there is an activePiece, that means the layer below it, the activePiece, and the layer above it.
+     * (When only part of the View was invalidated, the Canvas is clipped to that part.)
      * @param canvas
      */
     @Override public void onDraw(Canvas canvas)
@@ -89,20 +127,99 @@ public class FaceBuilderView extends View {
         centerX = canvas.getWidth()/3;
         centerY = canvas.getHeight()/3;
 
+        frameMetrics.beginFrame();
+
+        int activeIndex = (activePiece == null) ? -1 : facePieces.indexOf(activePiece);
+
+        if (activeIndex == -1 || belowLayer == null)
+        {
+            for(int i=0; i<facePieces.size(); i++)
+            {
+                canvas.drawBitmap(facePieces.get(i).getPic(), facePieces.get(i).getPicLocation()[0], facePieces.get(i).getPicLocation()[1], paint);
+            }
+        }
+        else
+        {
+            if (!layersReady)
+            {
+                drawLayers(activeIndex);
+            }
+
+            canvas.drawBitmap(belowLayer, 0, 0, paint);
+            canvas.drawBitmap(activePiece.getPic(), activePiece.getPicLocation()[0], activePiece.getPicLocation()[1], paint);
+            canvas.drawBitmap(aboveLayer, 0, 0, paint);
+
+            getPieceBounds(activePiece, drawnBounds);
+        }
+
+        frameMetrics.endFrame();
+        frameMetrics.drawOverlay(canvas);
+    }
+
+    @Override
+    protected void onDetachedFromWindow()
+    {
+        super.onDetachedFromWindow();
+        releaseLayers();
+
+        //(an export which has already started still finishes)
+        faceExporter.shutdown();
+        frameMetrics.save(context);
+    }
+
+    /**
+     * Draw every FacePiece except the activePiece onto the layer below it or the layer above it.
+     * @param activeIndex
+     */
+    private void drawLayers(int activeIndex)
+    {
+        belowLayer.eraseColor(Color.TRANSPARENT);
+        aboveLayer.eraseColor(Color.TRANSPARENT);
+
         for(int i=0; i<facePieces.size(); i++)
         {
-            canvas.drawBitmap(facePieces.get(i).getPic(), facePieces.get(i).getPicLocation()[0], facePieces.get(i).getPicLocation()[1], paint);
+            if (i != activeIndex)
+            {
+                FacePiece piece = facePieces.get(i);
+                Canvas layerCanvas = (i < activeIndex) ? belowCanvas : aboveCanvas;
+                layerCanvas.drawBitmap(piece.getPic(), piece.getPicLocation()[0], piece.getPicLocation()[1], paint);
+            }
         }
+
+        layersReady = true;
+    }
+
+    private void getPieceBounds(FacePiece piece, Rect bounds)
+    {
+        int x = piece.getPicLocation()[0];
+        int y = piece.getPicLocation()[1];
+        bounds.set(x, y, x + piece.getPic().getWidth(), y + piece.getPic().getHeight());
+    }
+
+    private void releaseLayers()
+    {
+        if (belowLayer != null)
+        {
+            belowLayer.recycle();
+            aboveLayer.recycle();
+            belowLayer = null;
+            aboveLayer = null;
+            belowCanvas = null;
+            aboveCanvas = null;
+        }
+        layersReady = false;
     }
 
     /**
      * When the user selects a new FacePiece from the menu,
      * the selected FacePiece is fed to this method and displayed on the screen.
+     * The other pieces are drawn onto the layers again, since they are now below and above a different piece.
      * @param piece
      */
     public void addPiece(FacePiece piece)
     {
         activePiece = piece;
+        layersReady = false;
         invalidate();
     }
 
@@ -111,6 +228,9 @@ public class FaceBuilderView extends View {
      * this method redraws the FacePiece, activePiece, to the location the user touched.
      *
      * It does this by changing the FacePiece object's picLocation variables to the touched location.
+     * A drag sends more touch events than the screen can show, so the redraw waits for the next frame
+     * (however many touches come in before it, the View is only drawn once),
+     * and only the area where the activePiece was last drawn and where it is now is redrawn.
      * @param event
      * @return
      */
@@ -125,9 +245,14 @@ public class FaceBuilderView extends View {
                 case MotionEvent.ACTION_MOVE:
                 case MotionEvent.ACTION_UP:
             }
-            invalidate();
             activePiece.setPicLocation(x, y);
 
+            //Touches before the next frame add to the same dirty area, which still starts where the piece was last drawn.
+            getPieceBounds(activePiece, pieceBounds);
+            dirty.set(drawnBounds);
+            dirty.union(pieceBounds);
+            postInvalidateOnAnimation(dirty.left, dirty.top, dirty.right, dirty.bottom);
+
             return true;
         }
         else {return false;}
@@ -135,22 +260,13 @@ public class FaceBuilderView extends View {
 
     /**
      * This method saves a picture of the completed FaceCharacter to disk.
+     * The FaceExporter does the drawing, encoding and writing on a background Thread, so the screen never waits for it.
      * @param context
+     * @param listener hears when the picture is saved (or couldn't be). Can be null.
      */
-    public void saveFaceImage(Context context)
+    public void saveFaceImage(Context context, FaceExporter.ExportListener listener)
     {
-        savedBitmap = getDrawingCache();
-        filePath = Environment.getExternalStorageDirectory().getAbsolutePath();
-        faceFile = new File(filePath+"/facePicture.png");
-
-        try {
-
-        faceFile.createNewFile();
-        fileStream = new FileOutputStream(faceFile);
-        savedBitmap.compress(Bitmap.CompressFormat.PNG, 100, fileStream);
-
-        } catch (Exception e) {}
-
+        faceExporter.export(facePieces, getWidth(), getHeight(), new File(context.getFilesDir(), FACE_PICTURE_FILE_NAME), listener);
         activePiece = null;
     }
 
@@ -118,7 +118,7 @@ public class FaceCharacter implements Serializable {
         for (int i=0; i<facePieces.size(); i++)
         {
             FacePiece tempPiece = facePieces.get(i);
-            if(!tempPiece.getBattleMove().contains("none")) {
+            if(tempPiece.getMoveID() != MoveRegistry.NO_MOVE) {
                 totalBattleMoves = totalBattleMoves + tempPiece.getBattleMove() + "\n";
             }
             totalArmour = totalArmour + tempPiece.getArmour();
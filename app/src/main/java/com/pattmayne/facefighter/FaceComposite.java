@@ -0,0 +1,150 @@
+package com.pattmayne.facefighter;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import java.util.ArrayList;
+
+/**
+ * One Player's FacePieces, drawn in their layers onto a single Bitmap.
+ * The FightView draws this one Bitmap for each Player on every frame, instead of every FacePiece,
+ * and only draws the FacePieces again when they change (a piece is destroyed, or hidden while it flashes).
+ *
+ * The Bitmap covers exactly the area of the FacePieces, and remembers where its top-left corner is
+ * (relative to the point the pieces are drawn from).
+ * The pieces come from a FightSprites, already resampled to the screen, so they are drawn onto the Bitmap 1:1 as well.
+ */
+public class FaceComposite {
+
+    //variables
+    private Bitmap bitmap;
+    private Canvas bitmapCanvas;
+    private int left = 0;
+    private int top = 0;
+    private int width = 0;
+    private int height = 0;
+
+    //What the Bitmap currently shows, so we know when it has to be drawn again.
+    private Player player;
+    private int piecesVersion = -1;
+    private FacePiece hiddenPiece;
+    private float scale = 0;
+
+    /**
+     * Draw the Player's FacePieces with their zero-point at (x, y).
+     * @param canvas
+     * @param player
+     * @param hiddenPiece a FacePiece to leave out (while it flashes), or null
+     * @param sprites the FacePieces' pictures at the screen's scale
+     * @param x
+     * @param y
+     * @param paint
+     */
+    public void draw(Canvas canvas, Player player, FacePiece hiddenPiece, FightSprites sprites, int x, int y, Paint paint)
+    {
+        if (player != this.player || player.getPiecesVersion() != piecesVersion || hiddenPiece != this.hiddenPiece
+                || sprites.getScale() != scale)
+        {
+            compose(player, hiddenPiece, sprites);
+        }
+
+        if (width > 0 && height > 0)
+        {
+            canvas.drawBitmap(bitmap, x + left, y + top, paint);
+        }
+    }
+
+    /**
+     * Draw the FacePieces onto the Bitmap.
+     * Pieces are only ever removed during a Fight, so the old Bitmap is usually big enough and is just cleared.
+     */
+    private void compose(Player player, FacePiece hiddenPiece, FightSprites sprites)
+    {
+        this.player = player;
+        this.hiddenPiece = hiddenPiece;
+        piecesVersion = player.getPiecesVersion();
+        scale = sprites.getScale();
+
+        ArrayList<FacePiece> pieces = player.getPieces();
+
+        //find the area which the pieces cover
+        int right = Integer.MIN_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        left = Integer.MAX_VALUE;
+        top = Integer.MAX_VALUE;
+
+        for (int i=0; i<pieces.size(); i++)
+        {
+            FacePiece piece = pieces.get(i);
+            Bitmap pic = sprites.getPic(piece);
+            if (piece == hiddenPiece || pic == null)
+            {
+                continue;
+            }
+
+            int pieceX = sprites.scale(piece.getPicLocation()[0]);
+            int pieceY = sprites.scale(piece.getPicLocation()[1]);
+            left = Math.min(left, pieceX);
+            top = Math.min(top, pieceY);
+            right = Math.max(right, pieceX + pic.getWidth());
+            bottom = Math.max(bottom, pieceY + pic.getHeight());
+        }
+
+        if (left == Integer.MAX_VALUE)
+        {
+            //nothing to draw
+            left = 0;
+            top = 0;
+            width = 0;
+            height = 0;
+            return;
+        }
+
+        width = right - left;
+        height = bottom - top;
+
+        if (bitmap == null || bitmap.getWidth() < width || bitmap.getHeight() < height)
+        {
+            if (bitmap != null)
+            {
+                bitmap.recycle();
+            }
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            bitmapCanvas = new Canvas(bitmap);
+        }
+        else
+        {
+            bitmap.eraseColor(Color.TRANSPARENT);
+        }
+
+        for (int i=0; i<pieces.size(); i++)
+        {
+            FacePiece piece = pieces.get(i);
+            Bitmap pic = sprites.getPic(piece);
+            if (piece == hiddenPiece || pic == null)
+            {
+                continue;
+            }
+
+            bitmapCanvas.drawBitmap(pic, sprites.scale(piece.getPicLocation()[0]) - left, sprites.scale(piece.getPicLocation()[1]) - top, null);
+        }
+    }
+
+    /**
+     * Free the Bitmap's memory. The next draw makes a new one.
+     */
+    public void release()
+    {
+        if (bitmap != null)
+        {
+            bitmap.recycle();
+            bitmap = null;
+            bitmapCanvas = null;
+        }
+        player = null;
+        piecesVersion = -1;
+        scale = 0;
+    }
+}
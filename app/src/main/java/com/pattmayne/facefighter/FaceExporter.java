@@ -0,0 +1,202 @@
+package com.pattmayne.facefighter;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Saves a picture of a FaceCharacter as a PNG file, without making the screen wait.
+ *
+ * On the calling (UI) Thread, export only notes which pictures go where. Drawing them together, encoding the PNG
+ * and writing the file all happen on a background Thread, one export at a time.
+ * The PNG is encoded into a buffer which every export reuses, then written to a temporary file which is renamed over the real one,
+ * so the file is never left half-written.
+ * The ExportListener hears the result on the UI Thread.
+ */
+public class FaceExporter {
+
+    /**
+     * Hears when an export is finished.
+     */
+    public interface ExportListener
+    {
+        /**
+         * @param file the PNG file
+         * @param saved false if it couldn't be saved (the old file, if any, is left as it was)
+         */
+        void onExportFinished(File file, boolean saved);
+    }
+
+    //variables
+    private ExecutorService thread;
+    private Handler uiHandler = new Handler(Looper.getMainLooper());
+
+    //reused by every export (only the background Thread touches them)
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 * 1024);
+    private Bitmap picture;
+    private Canvas pictureCanvas;
+
+    /**
+     * Save the FacePieces, as they are right now, to a PNG file.
+     * @param pieces the FacePieces, from the bottom layer to the top
+     * @param width the size of the picture
+     * @param height
+     * @param file
+     * @param listener can be null
+     */
+    public void export(ArrayList<FacePiece> pieces, final int width, final int height, final File file, final ExportListener listener)
+    {
+        //Copy where everything is now, since the user can keep moving pieces while the export runs.
+        final int count = pieces.size();
+        final Bitmap[] pics = new Bitmap[count];
+        final int[] xs = new int[count];
+        final int[] ys = new int[count];
+
+        for (int i=0; i<count; i++)
+        {
+            FacePiece piece = pieces.get(i);
+            pics[i] = piece.getPic();
+            xs[i] = piece.getPicLocation()[0];
+            ys[i] = piece.getPicLocation()[1];
+        }
+
+        startExport(new Runnable() {
+            @Override
+            public void run() {
+                final boolean saved = save(pics, xs, ys, count, width, height, file);
+
+                if (listener != null)
+                {
+                    uiHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            listener.onExportFinished(file, saved);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Draw, encode and write the picture (on the background Thread).
+     * @return whether the file was saved
+     */
+    private boolean save(Bitmap[] pics, int[] xs, int[] ys, int count, int width, int height, File file)
+    {
+        if (width <= 0 || height <= 0)
+        {
+            return false;
+        }
+
+        if (picture == null || picture.getWidth() != width || picture.getHeight() != height)
+        {
+            if (picture != null)
+            {
+                picture.recycle();
+            }
+            picture = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            pictureCanvas = new Canvas(picture);
+        }
+        else
+        {
+            picture.eraseColor(Color.TRANSPARENT);
+        }
+
+        for (int i=0; i<count; i++)
+        {
+            if (pics[i] != null && !pics[i].isRecycled())
+            {
+                pictureCanvas.drawBitmap(pics[i], xs[i], ys[i], null);
+            }
+        }
+
+        buffer.reset();
+        if (!picture.compress(Bitmap.CompressFormat.PNG, 100, buffer))
+        {
+            return false;
+        }
+
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        FileOutputStream output = null;
+
+        try {
+            output = new FileOutputStream(temporaryFile);
+            buffer.writeTo(output);
+            output.getFD().sync();
+            output.close();
+            output = null;
+
+            if (!temporaryFile.renameTo(file))
+            {
+                temporaryFile.delete();
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            temporaryFile.delete();
+            return false;
+        } finally {
+            if (output != null)
+            {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    //it already failed
+                }
+            }
+        }
+    }
+
+    private void startExport(Runnable export)
+    {
+        if (thread == null)
+        {
+            thread = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread exportThread = new Thread(runnable, "face-exporter");
+                    exportThread.setPriority(Thread.MIN_PRIORITY);
+                    return exportThread;
+                }
+            });
+        }
+
+        thread.execute(export);
+    }
+
+    /**
+     * Let any export which has started finish, then free the picture and stop the background Thread.
+     */
+    public void shutdown()
+    {
+        if (thread != null)
+        {
+            //The picture belongs to the background Thread, so it is recycled there, after the last export.
+            thread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (picture != null)
+                    {
+                        picture.recycle();
+                        picture = null;
+                    }
+                    pictureCanvas = null;
+                }
+            });
+            thread.shutdown();
+            thread = null;
+        }
+    }
+}
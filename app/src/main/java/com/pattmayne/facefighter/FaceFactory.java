@@ -7,7 +7,6 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.view.View;
 import java.util.ArrayList;
 
@@ -23,6 +22,10 @@ import java.util.ArrayList;
  */
 public class FaceFactory{
 
+    //The names of the pre-defined FacePieces, in each of the categories the FaceBuilderActivity offers (see the PieceCatalog).
+    //A piece's category index is also its layerPlacement.
+    public static final String[][] PIECE_CATEGORIES = PieceCatalog.namesByCategory();
+
     //variables
 
     private Context context;
@@ -58,6 +61,18 @@ public class FaceFactory{
         facePieces = character.getPieces();
     }
 
+    /**
+     * This constructor creates a FaceFactory without any screen.
+     * Its FacePieces have all their battle properties but no pictures,
+     * so it can build FaceCharacters for simulated Fights in a plain JVM (see MatchupSimulator).
+     * It cannot revive a saved FaceCharacter, because there is no database without a Context.
+     */
+    public FaceFactory()
+    {
+        character = new FaceCharacter();
+        facePieces = character.getPieces();
+    }
+
     public void setName(String name)
     {
         character.setName(name);
@@ -91,177 +106,130 @@ public class FaceFactory{
         return tempPiece;
     }
 
-    //These methods create specific FacePiece objects with pre-defined properties.
-    //Each method receives an int value which decides their layerPlacement (who gets drawn on top of who),
-    //and automatically adds that piece to the FaceCharacter's ArrayList of FacePieces.
-
-    public FacePiece makeFaceOne(int layer)
+    /**
+     * Get the picture for a FacePiece from the PieceBitmapCache, unless this FaceFactory has no screen (and therefore no pictures).
+     * @param resourceID
+     * @return
+     */
+    private Bitmap decodePiece(int resourceID)
     {
-        FacePiece tempPiece = new FacePiece("Blue Face", BitmapFactory.decodeResource(res, R.drawable.face_one));
-        tempPiece.setHP(27);
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
+        if (res == null)
+        {
+            return null;
+        }
 
-        return tempPiece;
+        return PieceBitmapCache.get(res, resourceID);
     }
 
-    public FacePiece makeFaceTwo(int layer) {
-        FacePiece tempPiece = new FacePiece("Green Face", BitmapFactory.decodeResource(res, R.drawable.face_two));
-        tempPiece.setHP(27);
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
+    /**
+     * This method creates one of the pre-defined FacePiece objects from its name (the same name the user sees).
+     * @param name
+     * @param layer
+     * @return the new FacePiece, or null if there is no pre-defined FacePiece with that name
+     */
+    public FacePiece makePiece(String name, int layer)
+    {
+        int pieceType = MoveRegistry.findPieceType(name);
 
-        return tempPiece;
+        if (!PieceCatalog.isBuiltIn(pieceType))
+        {
+            return null;
+        }
+        return makePiece(pieceType, layer);
     }
 
-    public FacePiece makeEyesLaser(int layer) {
-        FacePiece tempPiece = new FacePiece("Laser Eyes", BitmapFactory.decodeResource(res, R.drawable.eyes_laser));
-        tempPiece.makeWeapon();
-        tempPiece.setDamage(11);
-        tempPiece.setHP(16);
-        tempPiece.setBattleMove("Laser Burn");
+    /**
+     * This method creates one of the pre-defined FacePiece objects from its row in the PieceCatalog,
+     * and automatically adds it to the FaceCharacter's ArrayList of FacePieces.
+     * @param pieceType the MoveRegistry ID of a built-in FacePiece type
+     * @param layer decides its layerPlacement (who gets drawn on top of who)
+     * @return the new FacePiece
+     */
+    public FacePiece makePiece(int pieceType, int layer)
+    {
+        FacePiece tempPiece = new FacePiece(PieceCatalog.NAMES[pieceType], decodePiece(PieceCatalog.drawable(pieceType)));
+        PieceCatalog.applyStats(tempPiece, pieceType);
         tempPiece.setLayerPlacement(layer);
         character.addPiece(tempPiece, layer);
 
         return tempPiece;
     }
 
-    public FacePiece makeEyesCat(int layer) {
-        FacePiece tempPiece = new FacePiece("Cat Eyes", BitmapFactory.decodeResource(res, R.drawable.eyes_cat));
-        tempPiece.makeWeapon();
-        tempPiece.setDamage(9);
-        tempPiece.setHP(18);
-        tempPiece.setBattleMove("Scratch");
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
+    //These methods create specific FacePiece objects (one for each button of the FaceBuilderActivity).
 
-        return tempPiece;
+    public FacePiece makeFaceOne(int layer)
+    {
+        return makePiece(MoveRegistry.BLUE_FACE, layer);
     }
 
-    public FacePiece makeEyesShades(int layer) {
-        FacePiece tempPiece = new FacePiece("Cool Shades", BitmapFactory.decodeResource(res, R.drawable.eyes_shades));
-        tempPiece.setArmour(6);
-        tempPiece.setHP(19);
-        tempPiece.makeResponsive();
-        tempPiece.makeReflective();
-        tempPiece.setBattleMove("Reflect Damage");
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
+    public FacePiece makeFaceTwo(int layer)
+    {
+        return makePiece(MoveRegistry.GREEN_FACE, layer);
+    }
 
-        return tempPiece;
+    public FacePiece makeEyesLaser(int layer)
+    {
+        return makePiece(MoveRegistry.LASER_EYES, layer);
     }
 
-    public FacePiece makeMouthBigTeeth(int layer) {
-        FacePiece tempPiece = new FacePiece("Big Teeth", BitmapFactory.decodeResource(res, R.drawable.mouth_bigteeth));
-        tempPiece.makeWeapon();
-        tempPiece.setHP(11);
-        tempPiece.setArmour(1);
-        tempPiece.setDamage(13);
-        tempPiece.setRechargeTime(3);
-        tempPiece.setBattleMove("Bite");
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
+    public FacePiece makeEyesCat(int layer)
+    {
+        return makePiece(MoveRegistry.CAT_EYES, layer);
+    }
 
-        return tempPiece;
+    public FacePiece makeEyesShades(int layer)
+    {
+        return makePiece(MoveRegistry.COOL_SHADES, layer);
     }
 
-    public FacePiece makeMouthMetalTongue(int layer) {
-        FacePiece tempPiece = new FacePiece("Heavy Metal Tongue", BitmapFactory.decodeResource(res, R.drawable.mouth_metaltongue));
-        tempPiece.makeWeapon();
-        tempPiece.setHP(27);
-        tempPiece.setDamage(7);
-        tempPiece.setBattleMove("Tongue Lash");
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
+    public FacePiece makeMouthBigTeeth(int layer)
+    {
+        return makePiece(MoveRegistry.BIG_TEETH, layer);
+    }
 
-        return tempPiece;
+    public FacePiece makeMouthMetalTongue(int layer)
+    {
+        return makePiece(MoveRegistry.HEAVY_METAL_TONGUE, layer);
     }
 
     public FacePiece makeHeadHelmet(int layer)
     {
-        FacePiece tempPiece = new FacePiece("Spiked Helmet", BitmapFactory.decodeResource(res, R.drawable.head_helmet));
-        tempPiece.setArmour(6);
-        tempPiece.setHP(19);
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
-
-        return tempPiece;
+        return makePiece(MoveRegistry.SPIKED_HELMET, layer);
     }
 
     public FacePiece makeHeadSpikedHair(int layer)
     {
-        FacePiece tempPiece = new FacePiece("Spiked Hair", BitmapFactory.decodeResource(res, R.drawable.head_spikedhair));
-        tempPiece.setArmour(3);
-        tempPiece.setHP(24);
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
-
-        return tempPiece;
+        return makePiece(MoveRegistry.SPIKED_HAIR, layer);
     }
 
     public FacePiece makeHeadTopHat(int layer)
     {
-        FacePiece tempPiece = new FacePiece("Stylish Top Hat", BitmapFactory.decodeResource(res, R.drawable.head_tophat));
-        tempPiece.setArmour(4);
-        tempPiece.setHP(21);
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
-
-        return tempPiece;
+        return makePiece(MoveRegistry.STYLISH_TOP_HAT, layer);
     }
 
-    public FacePiece makeBeardAbsorbent(int layer) {
-        FacePiece tempPiece = new FacePiece("Mighty Absorbent Beard", BitmapFactory.decodeResource(res, R.drawable.beard_absorbent));
-        tempPiece.setHP(19);
-        tempPiece.setArmour(7);
-        tempPiece.makeResponsive();
-        tempPiece.makeAbsorbent();
-        tempPiece.setBattleMove("Absorb Damage");
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
-
-        return tempPiece;
+    public FacePiece makeBeardAbsorbent(int layer)
+    {
+        return makePiece(MoveRegistry.MIGHTY_ABSORBENT_BEARD, layer);
     }
 
-    public FacePiece makeBeardSonic(int layer) {
-        FacePiece tempPiece = new FacePiece("Sonic Moustache", BitmapFactory.decodeResource(res, R.drawable.beard_sonic));
-        tempPiece.makeWeapon();
-        tempPiece.setHP(13);
-        tempPiece.setDamage(13);
-        tempPiece.setRechargeTime(2);
-        tempPiece.setBattleMove("Sonic Slice");
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
-
-        return tempPiece;
+    public FacePiece makeBeardSonic(int layer)
+    {
+        return makePiece(MoveRegistry.SONIC_MOUSTACHE, layer);
     }
 
-    public FacePiece makeBeardSpikedTie(int layer) {
-        FacePiece tempPiece = new FacePiece("Spiked Tie", BitmapFactory.decodeResource(res, R.drawable.beard_spikedtie));
-        tempPiece.makeWeapon();
-        tempPiece.setDamage(8);
-        tempPiece.setHP(22);
-        tempPiece.setBattleMove("Stab");
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
-
-        return tempPiece;
+    public FacePiece makeBeardSpikedTie(int layer)
+    {
+        return makePiece(MoveRegistry.SPIKED_TIE, layer);
     }
 
-    public FacePiece makeBrowMean(int layer) {
-        FacePiece tempPiece = new FacePiece("Mean Brows", BitmapFactory.decodeResource(res, R.drawable.brow_mean));
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
-
-        return tempPiece;
+    public FacePiece makeBrowMean(int layer)
+    {
+        return makePiece(MoveRegistry.MEAN_BROWS, layer);
     }
 
-    public FacePiece makeBrowCurious(int layer) {
-        FacePiece tempPiece = new FacePiece("Curious Brows", BitmapFactory.decodeResource(res, R.drawable.brow_curious));
-        tempPiece.setLayerPlacement(layer);
-        character.addPiece(tempPiece, layer);
-
-        return tempPiece;
+    public FacePiece makeBrowCurious(int layer)
+    {
+        return makePiece(MoveRegistry.CURIOUS_BROWS, layer);
     }
 
 
@@ -343,53 +311,7 @@ public class FaceFactory{
      */
     private Bitmap choosePieceBitmap(String name)
     {
-
-        if (name.contains("Blue Face"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.face_one);
-        } else if (name.contains("Green Face"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.face_two);
-        } else if (name.contains("Curious Brows"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.brow_curious);
-        } else if (name.contains("Mean Brows"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.brow_mean);
-        } else if (name.contains("Laser Eyes"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.eyes_laser);
-        } else if (name.contains("Cool Shades"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.eyes_shades);
-        } else if (name.contains("Cat Eyes"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.eyes_cat);
-        } else if (name.contains("Spiked Helmet"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.head_helmet);
-        } else if (name.contains("Stylish Top Hat"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.head_tophat);
-        } else if (name.contains("Spiked Hair"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.head_spikedhair);
-        } else if (name.contains("Heavy Metal Tongue"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.mouth_metaltongue);
-        } else if (name.contains("Big Teeth"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.mouth_bigteeth);
-        } else if (name.contains("Mighty Absorbent Beard"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.beard_absorbent);
-        } else if (name.contains("Sonic Moustache"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.beard_sonic);
-        } else if (name.contains("Spiked Tie"))
-        {
-            pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.beard_spikedtie);
-        } else {pieceBitmap = BitmapFactory.decodeResource(res, R.drawable.beard_red);}
+        pieceBitmap = decodePiece(PieceCatalog.drawable(MoveRegistry.findPieceType(name)));
 
         return pieceBitmap;
     }
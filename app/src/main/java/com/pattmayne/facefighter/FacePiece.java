@@ -4,6 +4,8 @@ import android.content.ContentValues;
 import android.database.sqlite.SQLiteDatabase;
 import android.graphics.Bitmap;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
@@ -38,6 +40,10 @@ public class FacePiece implements Serializable {
     private int[] picLocation = {0,0};
     private int[] picSize = {0,0};
 
+    //The MoveRegistry's IDs for this piece's name and BattleMove. They are not saved, because IDs can change between runs of the app.
+    private transient int pieceType;
+    private transient int moveID = MoveRegistry.NO_MOVE;
+
 
     //layerPlacement will become this object's index(status) in the FaceCharacter's ArrayList of FacePiece objects.
     //That decides which pieces will be drawn on top or on bottom.
@@ -45,6 +51,7 @@ public class FacePiece implements Serializable {
 
     /**
      * Constructor. A name and picture are required.
+     * The picture may only be null for FacePieces which are never drawn (for instance in simulated Fights without a screen).
      * @param newName
      * @param newPic
      */
@@ -52,8 +59,13 @@ public class FacePiece implements Serializable {
     {
         pic = newPic;
         name = newName;
-        picSize[0] = pic.getWidth();
-        picSize[1] = pic.getHeight();
+        pieceType = MoveRegistry.pieceTypeID(name);
+
+        if (pic != null)
+        {
+            picSize[0] = pic.getWidth();
+            picSize[1] = pic.getHeight();
+        }
     }
 
     /**
@@ -183,6 +195,21 @@ public class FacePiece implements Serializable {
         cost = newCost;
     }
 
+    /**
+     * Give the FacePiece a picture (for instance an antagonist made without one, by the AntagonistCatalog).
+     * @param newPic
+     */
+    public void setPic(Bitmap newPic)
+    {
+        pic = newPic;
+
+        if (pic != null)
+        {
+            picSize[0] = pic.getWidth();
+            picSize[1] = pic.getHeight();
+        }
+    }
+
     public void setPicLocation(int x, int y)
     {
         picLocation[0] = x;
@@ -197,6 +224,7 @@ public class FacePiece implements Serializable {
     public void setBattleMove(String move)
     {
         battleMove = move;
+        moveID = MoveRegistry.moveID(move);
     }
 
     public void makeWeapon()
@@ -308,6 +336,37 @@ public class FacePiece implements Serializable {
         return name;
     }
 
+    /**
+     * The MoveRegistry ID of this kind of FacePiece.
+     * @return
+     */
+    public int getPieceType()
+    {
+        return pieceType;
+    }
+
+    /**
+     * The MoveRegistry ID of this FacePiece's BattleMove (MoveRegistry.NO_MOVE if it has none).
+     * @return
+     */
+    public int getMoveID()
+    {
+        return moveID;
+    }
+
+    /**
+     * When a FacePiece is deserialized (for instance when it is passed to another Activity) its IDs are looked up again.
+     * @param in
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        pieceType = MoveRegistry.pieceTypeID(name);
+        moveID = MoveRegistry.moveID(battleMove);
+    }
+
     /**
      * When the FaceCharacter is saved to a database, each FacePiece must be individually stored to a different database.
      * This method performs that function.
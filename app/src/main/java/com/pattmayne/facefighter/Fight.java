@@ -2,46 +2,62 @@ package com.pattmayne.facefighter;
 
 import android.content.Context;
 import android.content.Intent;
-import android.media.MediaPlayer;
 import android.widget.Toast;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * Created by Matt on 2014-11-04.
- * An object of this class represents a single battle between two FaceCharacters.
- * A Fight object manages the battle-logic between Player objects (based on FaceCharacters), and initiates many sequential turns (represented as Turn objects).
- * Plus it will send info to the UI (Activity and View) to display.
+ * An object of this class represents a single battle between two FaceCharacters, as it is shown on the screen.
+ * The actual battle-logic lives in a FightEngine. This class is the adapter between that FightEngine and the UI:
+ * it listens to the FightEngine and sends information to the FightActivity and FightView to display,
+ * and it schedules each next step of the battle on the FightView's FightTimeline ("resolve the Turn in 2.17 seconds").
+ * The FightTimeline fires on the FightView's render Thread, so each step is sent back to the UI Thread before it runs.
  */
-public class Fight {
+public class Fight implements FightListener, FightTimeline.Listener {
+
+    //the steps of a battle, as FightTimeline events
+    private static final int OPPONENT_RESPONSE = 0;
+    private static final int RESOLVE_TURN = 1;
+    private static final int NEXT_TURN = 2;
+    private static final int SHOW_RESPONSIVE_BUTTONS = 3;
+    private static final int RESPONSE_TIME_UP = 4;
+    private static final int ANTAGONIST_ATTACK = 5;
+    private static final int ENDGAME = 6;
+
+    //How long to wait before each step, in milliseconds.
+    private static final int OPPONENT_RESPONSE_MILLIS = 1680;
+    private static final int RESOLVE_TURN_MILLIS = 2170;
+    private static final int NEXT_TURN_MILLIS = 1280;
+    private static final int SHOW_RESPONSIVE_BUTTONS_MILLIS = 720;
+    private static final int RESPONSE_TIME_UP_MILLIS = 780;
+    private static final int ANTAGONIST_ATTACK_MILLIS = 2820;
+    private static final int ENDGAME_MILLIS = 2330;
 
     //variables
     private Player heroPlayer;
     private Player antagonistPlayer;
-    public Player currentPlayer;
-    private Player winner;
-    private Player loser;
 
-    private Turn currentTurn;
-    private boolean gameOver = false;
+    private FightEngine engine;
+    private FightSoundEffects soundEffects;
+    private FightLog fightLog;
+    private AntagonistAI antagonistAI;
 
     public FightView fightView;
     public FightActivity fightActivity;
+    private FightTimeline timeline;
+
+    //one Runnable for each step, so a step creates no garbage on its way to the UI Thread
+    private StepRunner[] stepRunners = new StepRunner[ENDGAME + 1];
 
     private String announcementTop = "null announcement";
     private String announcementMiddle = "null middle";
     private String announcementBottom = "null";
 
-    private Random randomizer;
-
-    MediaPlayer soundEffectPlayer;
-
-    public boolean playSound = true;
-
     /**
      * The constructor receives and sets the two Player objects, as well as the FightView class which displays the visual battle.
-     * Then it prepares the sound effects and waits for the first Turn to be created when the user pushes the appropriate button.
+     * Then it creates the FightEngine, prepares the sound effects, and waits for the first Turn to be created when the user pushes the appropriate button.
      * @param heroPlayer
      * @param antagonistPlayer
      * @param fightView
@@ -49,130 +65,83 @@ public class Fight {
      */
     public Fight(Player heroPlayer, Player antagonistPlayer, FightView fightView, Context context)
     {
-        randomizer = new Random();
-
         this.fightView = fightView;
         fightActivity = (FightActivity) context;
+        timeline = fightView.getTimeline();
+
+        for (int step=0; step<stepRunners.length; step++)
+        {
+            stepRunners[step] = new StepRunner(step);
+        }
 
         this.heroPlayer = heroPlayer;
         this.antagonistPlayer = antagonistPlayer;
 
-        heroPlayer.setOpponent(antagonistPlayer);
-        antagonistPlayer.setOpponent(heroPlayer);
-
-        prepareNextSound();
-    }
-
+        engine = new FightEngine(heroPlayer, antagonistPlayer);
+        soundEffects = new FightSoundEffects(context);
 
+        engine.addListener(this);
+        engine.addListener(soundEffects);
 
-    private void prepareNextSound()
-    {
-        int noiseResourceID;
-        int noiseIndex = randomizer.nextInt(2);
+        //The AntagonistAI starts out EASY, which chooses at random just like before.
+        antagonistAI = new AntagonistAI(heroPlayer.getCharacter(), antagonistPlayer.getCharacter(), MoveLog.ANTAGONIST, FightRandom.newSeed());
+        antagonistAI.setDifficulty(AntagonistAI.EASY);
 
-        if (noiseIndex == 0)
-        {
-            noiseResourceID = R.raw.boom;
+        //Every Fight is added to the log in the app's files directory. The Fight goes on without a log if it can't be opened.
+        try {
+            fightLog = new FightLog(engine, new File(fightActivity.getFilesDir(), FightLog.FILE_NAME));
+        } catch (IOException e) {
+            fightLog = null;
         }
-        else
-        {
-            noiseResourceID = R.raw.attack;
-        }
-
-        soundEffectPlayer = MediaPlayer.create(fightActivity, noiseResourceID);
-
-        soundEffectPlayer.setVolume(0.47f, 0.47f);
-        soundEffectPlayer.setLooping(false);
     }
 
     /**
      * When the user starts the battle, the FightActivity calls this method.
-     * This method randomly chooses which of the two Players will get the first turn,
-     * then calls nextTurn, which actually creates the first Turn object.
+     * The FightEngine randomly chooses which of the two Players will get the first turn.
      */
     public void createFirstTurn()
     {
-        int chooser = randomizer.nextInt(2);
-        if (chooser==0)
-        {
-            currentPlayer = heroPlayer;
-            nextTurn();
-        }
-        else {
-            currentPlayer = antagonistPlayer;
-            nextTurn();
-        }
+        engine.createFirstTurn();
     }
 
     /**
-     * This method creates each Turn object, then tells the currentPlayer that it is their turn.
+     * This method is called when it is time for the next Turn.
      */
     public void nextTurn()
     {
-        currentPlayer = currentPlayer.getOpponent();
-        fightView.setCurrentPlayerName(currentPlayer.getName());
-        currentTurn = null;
-        currentTurn = new Turn(currentPlayer, this);
-        currentPlayer.myTurn(true, currentTurn);
-
-        if(currentPlayer == heroPlayer)
-        {
-            fightActivity.displayBattleButtons();
-        }
-        else
-        {
-            fightActivity.hideButtons();
-            fightView.newTurnPauseCountdown();
-        }
-
-        if (playSound) {
-            soundEffectPlayer.release();
-            prepareNextSound();
-        }
+        engine.nextTurn();
     }
 
     /**
      * This method is called when the user selects a BattleMove.
      * Attacks and defenses from the user both call this method, no matter whose Turn it is.
-     * @param battleMoveName
+     * @param battleSlot the slot of the hero's FacePiece which performs the BattleMove (the FightActivity tags each Button with it)
      */
-    public void performHeroBattleMove(String battleMoveName)
+    public void performHeroBattleMove(int battleSlot)
     {
         fightActivity.hideButtons();
 
-        //find which FacePiece will perform the BattleMove
-        boolean searchForPiece = true;
-        FacePiece battlePiece = null;
-        for (int i=0; i<heroPlayer.getPieces().size(); i++)
-        {
-            if (heroPlayer.getPieces().get(i).getBattleMove().contains(battleMoveName) && searchForPiece)
-            {
-                //if the piece is found, set the search for false
-                searchForPiece = false;
-                battlePiece = heroPlayer.getPieces().get(i);
-                BattleMove battleMove = new BattleMove(battlePiece, heroPlayer);
-                currentTurn.makeMove(battleMove);
-            }
-        }
-
         //This will never happen but I feel like creating a contingency plan anyway.
-        if (battlePiece == null)
+        if (!heroPlayer.getState().isAlive(battleSlot))
         {
             Toast.makeText(fightActivity, "No Face Piece Selected", Toast.LENGTH_LONG).show();
             nextTurn();
+            return;
         }
 
+        engine.makeMove(heroPlayer, battleSlot);
+
         //announce the heroPlayer's choice of BattleMove
         announcementTop = heroPlayer.getName();
         announcementMiddle = "Responds With";
 
-        if (heroPlayer == currentPlayer)
+        if (heroPlayer == engine.getCurrentPlayer())
         {
             announcementMiddle = "Uses";
             allowResponse();
         }
 
-        announcementBottom =  battleMoveName + "!";
+        announcementBottom =  heroPlayer.getBattleMove(battleSlot) + "!";
 
         announce(announcementTop, announcementMiddle, announcementBottom);
     }
@@ -186,59 +155,64 @@ public class Fight {
      */
     public void allowResponse()
     {
-        if (currentPlayer == heroPlayer) {
-            int opponentResponseOption = randomizer.nextInt(3);
-            if (opponentResponseOption != 0) {
-                fightView.opponentResponseCountdown();
+        if (engine.getCurrentPlayer() == heroPlayer) {
+            //A smarter antagonist decides for itself whether to respond.
+            if (antagonistAI.getDifficulty() != AntagonistAI.EASY || engine.computerWillRespond()) {
+                timeline.schedule(OPPONENT_RESPONSE, OPPONENT_RESPONSE_MILLIS, this);
             } else {
-                fightView.resolveTurnCountdown();
+                timeline.schedule(RESOLVE_TURN, RESOLVE_TURN_MILLIS, this);
             }
         }
         else {
-            fightView.countdownToResponsiveButtonCountdown();
+            timeline.schedule(SHOW_RESPONSIVE_BUTTONS, SHOW_RESPONSIVE_BUTTONS_MILLIS, this);
         }
     }
 
     /**
-     * This method randomly chooses an attack for the Antagonist
+     * This method lets the FightEngine randomly choose an attack for the Antagonist,
+     * or (at higher difficulties) asks the AntagonistAI, which answers later from its own Thread.
      */
     public void chooseAntagonistAttack()
     {
-        ArrayList<FacePiece> attackingPieces = new ArrayList<FacePiece>();
-
-
-        FacePiece attackingPiece;
-        BattleMove move;
-
-        for (int i=0; i<antagonistPlayer.getPieces().size(); i++)
-        {
-            if (antagonistPlayer.getPieces().get(i).isWeapon())
-            {
-                attackingPieces.add(antagonistPlayer.getPieces().get(i));
-            }
-        }
-
-        //if there are no weaponized pieces, make a SMashPiece to go berserk!!
-        if (attackingPieces.size() == 0)
+        //With no weapons left there's nothing to think about: the FightEngine makes a kamikaze piece.
+        if (antagonistAI.getDifficulty() == AntagonistAI.EASY || antagonistPlayer.getState().getWeaponCount() == 0)
         {
-            FacePiece kamikazePiece = antagonistPlayer.makeKamikazePiece();
-            attackingPieces.add(kamikazePiece);
+            antagonistAttack(engine.chooseAttack(antagonistPlayer));
+            return;
         }
 
-        if (attackingPieces.size() > 0) {
-            int pieceIndex = randomizer.nextInt(attackingPieces.size());
-            attackingPiece = attackingPieces.get(pieceIndex);
-            move = new BattleMove(attackingPiece, currentPlayer);
+        antagonistAI.chooseAttack(engine, new AntagonistAI.DecisionListener() {
+            @Override
+            public void onDecision(final int slot) {
+                fightActivity.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!fightActivity.isFinishing())
+                        {
+                            antagonistAttack(slot);
+                        }
+                    }
+                });
+            }
+        });
+    }
 
+    /**
+     * The antagonist attacks with the chosen slot.
+     * @param attackingSlot
+     */
+    private void antagonistAttack(int attackingSlot)
+    {
+        if (attackingSlot != -1) {
             announcementTop = antagonistPlayer.getName();
             announcementMiddle = "Uses";
-            announcementBottom = attackingPiece.getBattleMove() + "!";
+            announcementBottom = antagonistPlayer.getBattleMove(attackingSlot) + "!";
 
-            currentTurn.makeMove(move);
+            engine.makeMove(antagonistPlayer, attackingSlot);
             allowResponse();
         }
         else {
-            //If there are STILL no weaponized pieces, just end the turn and display a message.
+            //If there are no weaponized pieces, just end the turn and display a message.
             // but I programmed the "makeKamikazePiece" method so that will never happen.
             announcementTop = antagonistPlayer.getName();
             announcementMiddle = "";
@@ -250,93 +224,56 @@ public class Fight {
     }
 
     /**
-     * This method makes an ArrayList out of the opponent's responsive FacePieces,
-     * then randomly chooses one of those pieces for the responding BattleMove.
+     * This method lets the FightEngine randomly choose one of the opponent's responsive pieces for the responding BattleMove,
+     * or (at higher difficulties) asks the AntagonistAI, which may decide not to respond at all.
      */
     public void chooseAntagonistResponse()
     {
-        ArrayList<FacePiece> respondingPieces = new ArrayList<FacePiece>();
-
-        for (int i=0; i<antagonistPlayer.getPieces().size(); i++)
+        if (antagonistAI.getDifficulty() == AntagonistAI.EASY)
         {
-            if (antagonistPlayer.getPieces().get(i).isResponsive())
-            {
-                respondingPieces.add(antagonistPlayer.getPieces().get(i));
-            }
-        }
-
-        if (respondingPieces.size() > 0) {
-            int pieceSelection = randomizer.nextInt(respondingPieces.size());
-            FacePiece respondingPiece = respondingPieces.get(pieceSelection);
-            BattleMove respondingMove = new BattleMove(respondingPiece, antagonistPlayer);
-            currentTurn.makeMove(respondingMove);
-            announcementTop = antagonistPlayer.getName();
-            announcementMiddle =  "Responds With";
-            announcementBottom =  respondingPiece.getBattleMove() + "!";
-            announce(announcementTop, announcementMiddle, announcementBottom);
+            antagonistResponse(engine.chooseResponse(antagonistPlayer));
+            return;
         }
 
-        fightView.resolveTurnCountdown();
+        antagonistAI.chooseResponse(engine, engine.getTurn().getAttackingSlot(), new AntagonistAI.DecisionListener() {
+            @Override
+            public void onDecision(final int slot) {
+                fightActivity.runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!fightActivity.isFinishing())
+                        {
+                            antagonistResponse(slot);
+                        }
+                    }
+                });
+            }
+        });
     }
 
     /**
-     * This method receives information from the Turn object about which FacePieces lost HP.
-     * Then this method sends that information to the FightView object to be displayed on the screen.
-     * @param damageToDefendingPiece
-     * @param damageToAttackingPiece
+     * The antagonist responds with the chosen slot (or doesn't, if it's -1), then the Turn is resolved.
+     * @param respondingSlot
      */
-    public void announceDamage(int damageToDefendingPiece, int damageToAttackingPiece, FacePiece defendingPiece, FacePiece attackingPiece)
+    private void antagonistResponse(int respondingSlot)
     {
-        //The MediaPlayer (soundEffectPlayer) will play a sound to accompany the damage announcement.
-        //The damaged piece should flash as the sound plays for a full battle experience!
-        if (playSound) {
-            soundEffectPlayer.start();
-        }
-
-        //create some local variables to hold the damaged FacePieces and the amount of damage for them to receive.
-        int heroDamage;
-        int antagonistDamage;
-        FacePiece heroPiece;
-        FacePiece antagonistPiece;
-
-        if (currentPlayer == heroPlayer)
-        {
-            heroDamage = damageToAttackingPiece;
-            antagonistDamage = damageToDefendingPiece;
-
-            heroPiece = attackingPiece;
-            antagonistPiece = defendingPiece;
-        } else {
-            heroDamage = damageToDefendingPiece;
-            antagonistDamage = damageToAttackingPiece;
-
-            heroPiece = defendingPiece;
-            antagonistPiece = attackingPiece;
+        if (respondingSlot != -1) {
+            engine.makeMove(antagonistPlayer, respondingSlot);
+            announcementTop = antagonistPlayer.getName();
+            announcementMiddle =  "Responds With";
+            announcementBottom =  antagonistPlayer.getBattleMove(respondingSlot) + "!";
+            announce(announcementTop, announcementMiddle, announcementBottom);
         }
 
-        fightView.damageAnnouncementCountdown(heroDamage, antagonistDamage, heroPiece, antagonistPiece);
+        timeline.schedule(RESOLVE_TURN, RESOLVE_TURN_MILLIS, this);
     }
 
     /**
-     * This method receives information from the Turn object about which FacePieces gained HP.
-     * Then this method sends that information to the FightView object to be displayed on the screen.
-     * @param attackingHealthBenefit
-     * @param defendingHealthBenefit
+     * This method is called once the Fight has waited long enough to show the effects of this Turn's BattleMoves.
      */
-    public void announceHealthBenefit(int attackingHealthBenefit, int defendingHealthBenefit) {
-        int heroHealthBenefit = 0;
-        int antagonistHealthBenefit = 0;
-
-        if (currentPlayer == heroPlayer)
-        {
-            heroHealthBenefit = attackingHealthBenefit;
-            antagonistHealthBenefit = defendingHealthBenefit;
-        } else {
-            heroHealthBenefit = defendingHealthBenefit;
-            antagonistHealthBenefit = attackingHealthBenefit;
-        }
-
-        fightView.healthBenefitAnnouncementCountdown(heroHealthBenefit, antagonistHealthBenefit);
+    public void resolveTurn()
+    {
+        engine.resolveTurn();
     }
 
     /**
@@ -350,37 +287,12 @@ public class Fight {
         fightView.makeAnnouncement(announcementTop, announcementMiddle, announcementBottom);
     }
 
-
     /**
-     * If a Player object has lost all its FacePieces then it calls this method
-     * to let the Fight know that the Player is destroyed.
-     *
-     * This method also sets the gameOver boolean to TRUE,
-     * so when the Turn object calls this class's finishTurn method,
-     * it will initiate the endgameCountdown to end the Fight.
-     * @param destroyedPlayer
-     */
-    public void playerDestroyed(Player destroyedPlayer)
-    {
-        if (!gameOver) {
-            gameOver = true;
-            loser = destroyedPlayer;
-            winner = destroyedPlayer.getOpponent();
-        }
-    }
-
-    /**
-     * After the Turn object has resolved all the BattleMove effects,
-     * it calls this method to end the turn so a new one can be created.
+     * Used when the user cannot make any attack at all, so the Turn has to end early.
      */
     public void finishTurn()
     {
-        if (!gameOver) {
-            fightView.newTurnCountdown();
-        } else {
-            announce(loser.getOpponent().getName(), "Has", "Won!");
-            fightView.endgameCountdown();
-        }
+        engine.finishTurn();
     }
 
     /**
@@ -389,8 +301,20 @@ public class Fight {
      */
     public void endgame()
     {
-        winner.win();
-        loser.lose();
+        Player winner = engine.getWinner();
+        Player loser = engine.getLoser();
+
+        release();
+
+        //Only the hero's record is kept. The antagonist's FaceCharacter is shared by every Fight (see FightInfo), so it is left alone.
+        if (heroPlayer == winner)
+        {
+            heroPlayer.win();
+        }
+        else
+        {
+            heroPlayer.lose();
+        }
 
         //The heroStatus is saved and sent to the next Activity, so appropriate music can be played...
         String heroStatus = "winner";
@@ -399,29 +323,246 @@ public class Fight {
             heroStatus = "loser";
         }
 
-        heroPlayer.saveCharacter(fightActivity);
+        //The only change to the hero's FaceCharacter should be the win or loss added to its stats.
+        heroPlayer.getCharacter().saveFaceToDB(fightActivity);
 
         Intent endGameIntent = new Intent(fightActivity, CharacterSummaryActivity.class);
         endGameIntent.putExtra("GameOver", true);
         endGameIntent.putExtra("HeroStatus", heroStatus);
         endGameIntent.putExtra("PLAY_MUSIC", fightActivity.playMusic);
+        //The location and opponent go along too, so the CharacterSummaryActivity can offer a replay of this Fight.
+        endGameIntent.putExtra("location_and_opponent", fightActivity.getIntent().getIntArrayExtra("location_and_opponent"));
 
         fightActivity.startActivity(endGameIntent);
         fightActivity.finish();
     }
 
-    public void resetBattleButtons()
+    /**
+     * Write out whatever is left of the FightLog (if the Fight isn't over, it is recorded as a Fight with no winner),
+     * and stop the AntagonistAI's Thread.
+     */
+    public void release()
+    {
+        if (fightLog != null)
+        {
+            fightLog.close();
+            fightLog = null;
+        }
+
+        antagonistAI.shutdown();
+        timeline.cancelAll(this);
+    }
+
+    /**
+     * Make the antagonist the next level smarter (after HARD, back to EASY).
+     * @return the name of the new difficulty
+     */
+    public String nextDifficulty()
     {
-        fightActivity.setupBattleButtons();
+        antagonistAI.setDifficulty((antagonistAI.getDifficulty() + 1) % AntagonistAI.DIFFICULTY_NAMES.length);
+        return AntagonistAI.DIFFICULTY_NAMES[antagonistAI.getDifficulty()];
     }
 
     public void toggleSound()
     {
-        playSound = !playSound;
+        soundEffects.toggleSound();
+    }
+
+    public Player getCurrentPlayer()
+    {
+        return engine.getCurrentPlayer();
+    }
+
+    //FightTimeline methods.
+
+    /**
+     * A step is due. The FightTimeline calls this on the FightView's render Thread, so the step is sent to the UI Thread.
+     * @param event
+     */
+    @Override
+    public void onTimelineEvent(int event)
+    {
+        fightActivity.runOnUiThread(stepRunners[event]);
+    }
+
+    /**
+     * Take the next step of the battle, on the UI Thread.
+     * The FightView's lock is held, so the render Thread never draws while the Players are changing.
+     * @param step
+     */
+    private void takeStep(int step)
+    {
+        synchronized (fightView.getLock()) {
+            switch (step)
+            {
+                case OPPONENT_RESPONSE:
+                    chooseAntagonistResponse();
+                    break;
+
+                case RESOLVE_TURN:
+                    resolveTurn();
+                    break;
+
+                case NEXT_TURN:
+                    nextTurn();
+                    break;
+
+                //when the opponent attacks,
+                //the user has a short time period to press a button and initiate a responsive move.
+                case SHOW_RESPONSIVE_BUTTONS:
+                    fightActivity.displayResponsiveButtons();
+                    timeline.schedule(RESPONSE_TIME_UP, RESPONSE_TIME_UP_MILLIS, this);
+                    break;
+
+                case RESPONSE_TIME_UP:
+                    fightActivity.hideButtons();
+                    resolveTurn();
+                    break;
+
+                case ANTAGONIST_ATTACK:
+                    chooseAntagonistAttack();
+                    break;
+
+                case ENDGAME:
+                    endgame();
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Runs one step on the UI Thread (unless the FightActivity is already closing).
+     */
+    private class StepRunner implements Runnable
+    {
+        private int step;
+
+        public StepRunner(int step)
+        {
+            this.step = step;
+        }
+
+        @Override
+        public void run()
+        {
+            if (!fightActivity.isFinishing())
+            {
+                takeStep(step);
+            }
+        }
+    }
+
+    //FightListener methods.
+    //The FightEngine calls these as the battle moves along, and we pass the information to the screen.
+
+    /**
+     * Tell the currentPlayer that it is their turn:
+     * the user gets their battle buttons, while the antagonist waits a moment before attacking.
+     * @param currentPlayer
+     */
+    @Override
+    public void onTurnStarted(Player currentPlayer)
+    {
+        fightView.setCurrentPlayerName(currentPlayer.getName());
+
+        if(currentPlayer == heroPlayer)
+        {
+            fightActivity.displayBattleButtons();
+        }
+        else
+        {
+            fightActivity.hideButtons();
+            timeline.schedule(ANTAGONIST_ATTACK, ANTAGONIST_ATTACK_MILLIS, this);
+        }
+    }
+
+    @Override
+    public void onBattleMove(Player player, int slot, boolean response) {}
+
+    /**
+     * Sort out which of the damaged FacePieces belong to the hero and which belong to the antagonist,
+     * then send that information to the FightView object to be displayed on the screen.
+     */
+    @Override
+    public void onDamage(Player attacker, int attackingSlot, int damageToAttackingPiece, int defendingSlot, int damageToDefendingPiece)
+    {
+        FacePiece attackingPiece = attacker.getPiece(attackingSlot);
+        FacePiece defendingPiece = attacker.getOpponent().getPiece(defendingSlot);
+
+        if (attacker == heroPlayer)
+        {
+            fightView.damageAnnouncementCountdown(damageToAttackingPiece, damageToDefendingPiece, attackingPiece, defendingPiece);
+        } else {
+            fightView.damageAnnouncementCountdown(damageToDefendingPiece, damageToAttackingPiece, defendingPiece, attackingPiece);
+        }
+
+        //Damage to the attacking piece from a reflective piece was reflected (otherwise it's a kamikaze piece hurting itself).
+        if (damageToAttackingPiece > 0 && attacker.getOpponent().getState().isReflective(defendingSlot))
+        {
+            fightView.reflectEffect(attacker, attackingPiece, defendingPiece);
+        }
+    }
+
+    @Override
+    public void onEffectModifier(int modifier) {}
+
+    /**
+     * Sort out which Player gained HP, then send that information to the FightView object to be displayed on the screen.
+     */
+    @Override
+    public void onHealthBenefit(Player attacker, int attackingHealthBenefit, int attackingSlot, int defendingHealthBenefit, int defendingSlot)
+    {
+        //Only actual gains are announced.
+        if (attackingHealthBenefit <= 0 && defendingHealthBenefit <= 0)
+        {
+            return;
+        }
+
+        if (attacker == heroPlayer)
+        {
+            fightView.healthBenefitAnnouncementCountdown(attackingHealthBenefit, defendingHealthBenefit);
+        } else {
+            fightView.healthBenefitAnnouncementCountdown(defendingHealthBenefit, attackingHealthBenefit);
+        }
+
+        if (attackingHealthBenefit > 0 && attackingSlot != -1)
+        {
+            fightView.absorbEffect(attacker, attacker.getPiece(attackingSlot));
+        }
+        if (defendingHealthBenefit > 0 && defendingSlot != -1)
+        {
+            fightView.absorbEffect(attacker.getOpponent(), attacker.getOpponent().getPiece(defendingSlot));
+        }
     }
 
-    public Turn getTurn()
+    @Override
+    public void onPieceDestroyed(Player owner, int slot)
     {
-        return currentTurn;
+        fightView.pieceDestroyedEffect(owner, owner.getPiece(slot));
+        announce(owner.getOpponent().getName(), "Destroyed " + owner.getName() + "'s", owner.getPiece(slot).getName());
+    }
+
+    /**
+     * If any FacePieces have been removed from the user (heroPlayer), associated BattleMoves must be removed from the buttons lists.
+     */
+    @Override
+    public void onPiecesRemoved()
+    {
+        fightActivity.setupBattleButtons();
+    }
+
+    /**
+     * Wait for the next Turn, or if the game is over, announce the winner and wait for the endgame.
+     * @param gameOver
+     */
+    @Override
+    public void onTurnFinished(boolean gameOver)
+    {
+        if (!gameOver) {
+            timeline.schedule(NEXT_TURN, NEXT_TURN_MILLIS, this);
+        } else {
+            announce(engine.getWinner().getName(), "Has", "Won!");
+            timeline.schedule(ENDGAME, ENDGAME_MILLIS, this);
+        }
     }
 }
@@ -8,20 +8,31 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
+import android.widget.Toast;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
  * As the Fight (battle) is taking place, this Activity displays the FightView (which displays the animations and Fight-related information)
  * This Activity also shows a sidebar View where the user can press buttons to initiate attacks (BattleMoves).
  * This Activity needs to retrieve the antagonist and location from the FightInfo class, and re-create the heroPlayer from a database.
+ *
+ * When it is started with the "REPLAY" extra, this Activity replays the last recorded Fight instead,
+ * and the sidebar Buttons control the replay's speed and jump between Turns.
+ * The FightView draws on its own Thread, so the replay is only changed while holding the FightView's lock.
  */
 public class FightActivity extends ActionBarActivity {
 
+    //During a replay, the Back and Ahead Buttons jump this many Turns.
+    private static final int REPLAY_JUMP = 10;
+
     //variables
     private FightInfo fightInfo;
     private FightView fightView;
     private Fight fight;
+    private FightReplay replay;
 
     private FaceCharacter antagonist;
     private FaceCharacter hero;
@@ -53,7 +64,6 @@ public class FightActivity extends ActionBarActivity {
     {
         FaceFactory faceFactory = new FaceFactory(fightView, this);
         fightInfo = new FightInfo(this);
-        fightInfo.createAntagonistsAndLocations(fightView);
 
         int[] locationAndOpponent = getIntent().getExtras().getIntArray("location_and_opponent");
 
@@ -69,23 +79,168 @@ public class FightActivity extends ActionBarActivity {
         heroPlayer = new Player(hero);
         antagonistPlayer = new Player(antagonist);
 
-        fight = new Fight(heroPlayer, antagonistPlayer, fightView, this);
-
         fightView.setHeroPlayer(heroPlayer);
         fightView.setAntagonistPlayer(antagonistPlayer);
         fightView.setLocation(location);
 
-        setupBattleButtons();
+        if (getIntent().getBooleanExtra("REPLAY", false))
+        {
+            setupReplay();
+        }
+        else
+        {
+            fight = new Fight(heroPlayer, antagonistPlayer, fightView, this);
+            setupBattleButtons();
+        }
+    }
+
+    /**
+     * Load the last recorded Fight on another Thread (the log may be long), then give it to the FightView.
+     * The start Button is hidden until the replay is ready.
+     */
+    private void setupReplay()
+    {
+        final File logFile = new File(getFilesDir(), FightLog.FILE_NAME);
+        findViewById(R.id.start_fight_button).setVisibility(View.GONE);
+
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                FightRecording loaded;
+                try {
+                    loaded = FightRecording.readLast(logFile);
+                } catch (IOException e) {
+                    loaded = null;
+                }
+
+                final FightRecording recording = loaded;
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!isFinishing())
+                        {
+                            showReplay(recording);
+                        }
+                    }
+                });
+            }
+        }, "replay-loader").start();
+    }
+
+    /**
+     * Give the loaded Fight to the FightView.
+     * If the last recorded Fight wasn't between these two FaceCharacters, there is nothing to replay.
+     * @param recording the last recorded Fight, or null if there isn't one
+     */
+    private void showReplay(FightRecording recording)
+    {
+        if (recording == null || !recording.getHeroName().equals(hero.getName()) || !recording.getAntagonistName().equals(antagonist.getName()))
+        {
+            Toast.makeText(this, "No Fight To Replay", Toast.LENGTH_LONG).show();
+            finish();
+            return;
+        }
+
+        try {
+            replay = new FightReplay(recording, heroPlayer, antagonistPlayer);
+        } catch (IllegalArgumentException e) {
+            Toast.makeText(this, "No Fight To Replay", Toast.LENGTH_LONG).show();
+            finish();
+            return;
+        }
+
+        fightView.setReplay(replay);
+        setupReplayButtons();
+
+        Button startButton = (Button) findViewById(R.id.start_fight_button);
+        startButton.setText("Start Replay");
+        startButton.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * During a replay, the sidebar Buttons choose the speed, jump between Turns, or start over.
+     */
+    private void setupReplayButtons()
+    {
+        setupReplayButton(R.id.battle_button_1, "Speed 1x", new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                synchronized (fightView.getLock()) {
+                    replay.setSpeed(FightReplay.NORMAL_SPEED);
+                }
+            }
+        });
+        setupReplayButton(R.id.battle_button_2, "Speed 4x", new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                synchronized (fightView.getLock()) {
+                    replay.setSpeed(FightReplay.FAST_SPEED);
+                }
+            }
+        });
+        setupReplayButton(R.id.battle_button_3, "Speed 16x", new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                synchronized (fightView.getLock()) {
+                    replay.setSpeed(FightReplay.FASTEST_SPEED);
+                }
+            }
+        });
+        setupReplayButton(R.id.battle_button_4, "Back " + REPLAY_JUMP + " Turns", new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                synchronized (fightView.getLock()) {
+                    replay.seek(replay.getTurn() - REPLAY_JUMP);
+                    replay.play();
+                }
+            }
+        });
+        setupReplayButton(R.id.battle_button_5, "Ahead " + REPLAY_JUMP + " Turns", new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                synchronized (fightView.getLock()) {
+                    replay.seek(replay.getTurn() + REPLAY_JUMP);
+                    replay.play();
+                }
+            }
+        });
+        setupReplayButton(R.id.battle_button_6, "Start Over", new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                synchronized (fightView.getLock()) {
+                    replay.seek(1);
+                    replay.play();
+                }
+            }
+        });
+    }
+
+    private void setupReplayButton(int id, String text, View.OnClickListener listener)
+    {
+        Button button = (Button) findViewById(id);
+        button.setText(text);
+        button.setOnClickListener(listener);
+        button.setVisibility(View.VISIBLE);
     }
 
     /**
-     *Initiates the actual fight, after the soundEffectPlayer presses the button.
+     *Initiates the actual fight (or the replay), after the soundEffectPlayer presses the button.
      */
     public void startFight(View view)
     {
         Button fightButton = (Button) findViewById(R.id.start_fight_button);
         fightButton.setVisibility(View.GONE);
-        fight.createFirstTurn();
+
+        if (replay != null)
+        {
+            synchronized (fightView.getLock()) {
+                replay.play();
+            }
+        }
+        else
+        {
+            fight.createFirstTurn();
+        }
     }
 
     /**
@@ -115,30 +270,42 @@ public class FightActivity extends ActionBarActivity {
         }
 
         //Any FacePiece with a BattleMove is either added to the battleButtons list, or the responsiveButtons list.
-        for (int i=0; i<heroPlayer.getPieces().size(); i++)
+        //The hero's BattleState already knows which pieces are weapons and which are responsive.
+        BattleState heroState = heroPlayer.getState();
+        int buttonIndex = 0;
+
+        for (int i=0; i<heroState.getWeaponCount(); i++)
         {
-            FacePiece piece = heroPlayer.getPieces().get(i);
+            int slot = heroState.getWeaponSlot(i);
 
-            if(!piece.getBattleMove().contains("none") && !piece.isResponsive())
+            if(heroPlayer.getMoveID(slot) != MoveRegistry.NO_MOVE && !heroState.isResponsive(slot))
             {
-                battleButtons.add(allButtons.get(i));
-                allButtons.get(i).setText(piece.getBattleMove());
+                setupButton(allButtons.get(buttonIndex), slot);
+                battleButtons.add(allButtons.get(buttonIndex));
+                buttonIndex++;
             }
-            else if (!piece.getBattleMove().contains("none") && piece.isResponsive())
+        }
+
+        for (int i=0; i<heroState.getResponsiveCount(); i++)
+        {
+            int slot = heroState.getResponsiveSlot(i);
+
+            if (heroPlayer.getMoveID(slot) != MoveRegistry.NO_MOVE)
             {
-                responsiveButtons.add(allButtons.get(i));
-                allButtons.get(i).setText(heroPlayer.getPieces().get(i).getBattleMove());
+                setupButton(allButtons.get(buttonIndex), slot);
+                responsiveButtons.add(allButtons.get(buttonIndex));
+                buttonIndex++;
             }
         }
 
         //If there are no offensive attacks available to the user, a non-offensice FacePiece is converted into a "Kamikaze Piece."
-        if (battleButtons.size() == 0 && heroPlayer == fight.currentPlayer)
+        if (battleButtons.size() == 0 && heroPlayer == fight.getCurrentPlayer())
         {
-            FacePiece smashPiece = heroPlayer.makeKamikazePiece();
-            if (smashPiece != null)
+            int smashSlot = heroPlayer.makeKamikazePiece();
+            if (smashSlot != -1)
             {
                 Button smashButton = allButtons.get(allButtons.size() - 1);
-                smashButton.setText(smashPiece.getBattleMove());
+                setupButton(smashButton, smashSlot);
                 battleButtons.add(smashButton);
             } else
             {
@@ -148,6 +315,17 @@ public class FightActivity extends ActionBarActivity {
         }
     }
 
+    /**
+     * Label a Button with the BattleMove's name, and tag it with the slot of the hero's FacePiece which performs it.
+     * @param button
+     * @param slot
+     */
+    private void setupButton(Button button, int slot)
+    {
+        button.setText(heroPlayer.getBattleMove(slot));
+        button.setTag(slot);
+    }
+
     /**
      * Displays the buttons for each available BattleMove(when it's the soundEffectPlayer's turn).
      */
@@ -202,9 +380,7 @@ public class FightActivity extends ActionBarActivity {
      */
     public void performBattleMove(View callingButton)
     {
-        Button button = (Button) callingButton;
-        String buttonText = button.getText().toString();
-        fight.performHeroBattleMove(buttonText);
+        fight.performHeroBattleMove((Integer) callingButton.getTag());
     }
 
 
@@ -234,11 +410,19 @@ public class FightActivity extends ActionBarActivity {
             toggleMusicIntent.putExtra("TYPE", "fightMusic");
             startService(toggleMusicIntent);
 
+            return true;
+        } else if (id == R.id.action_difficulty && fight != null)
+        {
+            //Makes the antagonist smarter, or back to choosing at random.
+            Toast.makeText(this, "Opponent: " + fight.nextDifficulty(), Toast.LENGTH_SHORT).show();
             return true;
         } else if (id == R.id.action_toggle_sound)
         {
-            //Turns the in-game sounds on or off.
-            fight.toggleSound();
+            //Turns the in-game sounds on or off. (Replays have no sounds).
+            if (fight != null)
+            {
+                fight.toggleSound();
+            }
         }
 
         return super.onOptionsItemSelected(item);
@@ -264,6 +448,10 @@ public class FightActivity extends ActionBarActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (fight != null)
+        {
+            fight.release();
+        }
         finish();
     }
 
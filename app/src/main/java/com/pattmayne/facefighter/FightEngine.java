@@ -0,0 +1,522 @@
+package com.pattmayne.facefighter;
+
+import java.util.ArrayList;
+
+/**
+ * The FightEngine holds the battle-logic of a single Fight between two Player objects.
+ * It decides who goes first, creates each Turn, chooses BattleMoves for computer-controlled Players,
+ * and decides when the Fight is over.
+ *
+ * It knows nothing about Android. Anything which needs to show or play the Fight registers a FightListener.
+ * The Fight class is the adapter which connects a FightEngine to the FightActivity and FightView,
+ * while the playOut method runs a whole Fight instantly, with both Players controlled by the computer.
+ *
+ * All the randomness of a Fight comes from one seed, split into separate FightRandom streams for
+ * turn order, effect modifiers, random pieces and computer choices.
+ * Every BattleMove is recorded in a MoveLog, so the seed plus the MoveLog replays the Fight exactly.
+ *
+ * Once it has been created, a FightEngine doesn't create any objects while it plays:
+ * the Turn and its BattleMoves are reused for every Turn, the Players' BattleStates index their pieces by role,
+ * and restart puts the same FightEngine (and Players) back at the start of a new Fight.
+ */
+public class FightEngine {
+
+    //Fights which run without a user can (very rarely) go on forever when absorbent pieces keep healing each other,
+    //so playOut gives up after this many Turns and declares no winner.
+    public static final int DEFAULT_MAX_TURNS = 500;
+
+    //variables
+    private Player heroPlayer;
+    private Player antagonistPlayer;
+    private Player currentPlayer;
+    private Player winner;
+    private Player loser;
+
+    private Turn currentTurn;
+    private boolean gameOver = false;
+    private int turnCount = 0;
+
+    private ArrayList<FightListener> listeners;
+    private MoveLog moveLog;
+
+    //One seed, split into a separate stream for each kind of random decision.
+    //That way, (for instance) a different choice of BattleMove never changes the effect modifiers that follow it.
+    private long seed;
+    private FightRandom seedRandomizer;
+    private FightRandom turnOrderRandomizer;
+    private FightRandom effectRandomizer;
+    private FightRandom pieceRandomizer;
+    private FightRandom computerRandomizer;
+
+    /**
+     * Create a FightEngine with a fresh random seed.
+     * @param heroPlayer
+     * @param antagonistPlayer
+     */
+    public FightEngine(Player heroPlayer, Player antagonistPlayer)
+    {
+        this(heroPlayer, antagonistPlayer, FightRandom.newSeed());
+    }
+
+    /**
+     * The constructor receives the two Player objects and makes them opponents, then prepares the random streams from the seed.
+     * Nothing else happens until createFirstTurn is called.
+     * @param heroPlayer
+     * @param antagonistPlayer
+     * @param seed the same seed (and the same BattleMoves) always produce the same Fight
+     */
+    public FightEngine(Player heroPlayer, Player antagonistPlayer, long seed)
+    {
+        listeners = new ArrayList<FightListener>();
+
+        //room for two BattleMoves in every Turn of a full-length simulated Fight
+        moveLog = new MoveLog(2 * (DEFAULT_MAX_TURNS + 1));
+
+        seedRandomizer = new FightRandom(seed);
+        turnOrderRandomizer = new FightRandom(0);
+        effectRandomizer = new FightRandom(0);
+        pieceRandomizer = new FightRandom(0);
+        computerRandomizer = new FightRandom(0);
+
+        this.heroPlayer = heroPlayer;
+        this.antagonistPlayer = antagonistPlayer;
+
+        heroPlayer.setOpponent(antagonistPlayer);
+        antagonistPlayer.setOpponent(heroPlayer);
+
+        heroPlayer.setRandomizer(pieceRandomizer);
+        antagonistPlayer.setRandomizer(pieceRandomizer);
+
+        currentTurn = new Turn(this);
+
+        restart(seed);
+    }
+
+    /**
+     * Put both Players back the way they were before the Fight, and get ready for a new Fight with a new seed.
+     * The listeners stay. A restarted FightEngine plays exactly like a new FightEngine with the same seed.
+     * @param seed
+     */
+    public void restart(long seed)
+    {
+        this.seed = seed;
+        seedRandomizer.setSeed(seed);
+        seedRandomizer.split(turnOrderRandomizer);
+        seedRandomizer.split(effectRandomizer);
+        seedRandomizer.split(pieceRandomizer);
+        seedRandomizer.split(computerRandomizer);
+
+        heroPlayer.reset();
+        antagonistPlayer.reset();
+
+        moveLog.clear();
+        currentPlayer = null;
+        winner = null;
+        loser = null;
+        gameOver = false;
+        turnCount = 0;
+    }
+
+    /**
+     * Restart this FightEngine in the middle of a Fight: both Players take the saved BattleStates, and the given side's Turn starts.
+     * The AntagonistAI uses this to try out BattleMoves on its own FightEngine, without touching the real Fight.
+     * @param heroState
+     * @param antagonistState
+     * @param currentSide MoveLog.HERO or MoveLog.ANTAGONIST
+     * @param turnCount the number of the Turn which starts
+     * @param seed
+     */
+    public void restartAt(BattleState heroState, BattleState antagonistState, int currentSide, int turnCount, long seed)
+    {
+        restart(seed);
+
+        heroPlayer.restore(heroState);
+        antagonistPlayer.restore(antagonistState);
+
+        //nextTurn hands the turn to the opponent of the currentPlayer, and counts it.
+        currentPlayer = playerOnSide(currentSide).getOpponent();
+        this.turnCount = turnCount - 1;
+        nextTurn();
+    }
+
+    public void addListener(FightListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * Randomly choose which of the two Players will get the first turn,
+     * then call nextTurn, which actually creates the first Turn object.
+     */
+    public void createFirstTurn()
+    {
+        //nextTurn hands the turn to the opponent of the currentPlayer, so the chosen Player is the one who waits.
+        if (turnOrderRandomizer.nextInt(2) == 0)
+        {
+            currentPlayer = heroPlayer;
+        }
+        else
+        {
+            currentPlayer = antagonistPlayer;
+        }
+
+        nextTurn();
+    }
+
+    /**
+     * This method starts each Turn, then tells the currentPlayer that it is their turn.
+     */
+    public void nextTurn()
+    {
+        currentPlayer = currentPlayer.getOpponent();
+        currentTurn.start(currentPlayer);
+        currentPlayer.myTurn(true, currentTurn);
+        turnCount++;
+
+        for (int i=0; i<listeners.size(); i++)
+        {
+            listeners.get(i).onTurnStarted(currentPlayer);
+        }
+    }
+
+    /**
+     * Give a BattleMove to the current Turn.
+     * If the player is not the currentPlayer then the BattleMove is a response to an attack.
+     * @param player
+     * @param slot the slot of the FacePiece which performs the BattleMove
+     */
+    public void makeMove(Player player, int slot)
+    {
+        int side = (player == heroPlayer) ? MoveLog.HERO : MoveLog.ANTAGONIST;
+        moveLog.add(side, player != currentPlayer, slot);
+
+        currentTurn.makeMove(player, slot);
+
+        for (int i=0; i<listeners.size(); i++)
+        {
+            listeners.get(i).onBattleMove(player, slot, player != currentPlayer);
+        }
+    }
+
+    /**
+     * Randomly choose one of the Player's weapons for an attack.
+     * If there are no weaponized pieces, a neutral piece is converted into a kamikaze piece to go berserk!!
+     * @param player
+     * @return the attacking slot, or -1 if the Player has no pieces left at all
+     */
+    public int chooseAttack(Player player)
+    {
+        BattleState state = player.getState();
+
+        if (state.getWeaponCount() == 0)
+        {
+            return player.makeKamikazePiece();
+        }
+
+        return state.getWeaponSlot(computerRandomizer.nextInt(state.getWeaponCount()));
+    }
+
+    /**
+     * Randomly choose one of the Player's responsive pieces to respond to an attack.
+     * @param player
+     * @return the responding slot, or -1 if the Player has no responsive pieces
+     */
+    public int chooseResponse(Player player)
+    {
+        BattleState state = player.getState();
+
+        if (state.getResponsiveCount() == 0)
+        {
+            return -1;
+        }
+
+        return state.getResponsiveSlot(computerRandomizer.nextInt(state.getResponsiveCount()));
+    }
+
+    /**
+     * A computer-controlled Player has a 2/3 chance of responding to an attack.
+     * @return true if the computer-controlled Player should respond
+     */
+    public boolean computerWillRespond()
+    {
+        return computerRandomizer.nextInt(3) != 0;
+    }
+
+    /**
+     * Once all the BattleMoves of this Turn have been made, resolve their effects.
+     */
+    public void resolveTurn()
+    {
+        currentTurn.resolveBattleSequence();
+    }
+
+    /**
+     * Play the whole Fight right now, with both Players choosing their BattleMoves like a computer-controlled antagonist.
+     * There is no waiting between events, so this is how we simulate Fights without a screen.
+     * @param maxTurns the Fight is abandoned (with no winner) after this many Turns
+     * @return the winning Player, or null if the Fight was abandoned
+     */
+    public Player playOut(int maxTurns)
+    {
+        createFirstTurn();
+        return playRemainingTurns(maxTurns);
+    }
+
+    /**
+     * Play the rest of a Fight like playOut does, starting with the current Turn (which must have started, with no BattleMoves made yet).
+     * @param maxTurns the Fight is abandoned (with no winner) after this many Turns
+     * @return the winning Player, or null if the Fight was abandoned
+     */
+    public Player playRemainingTurns(int maxTurns)
+    {
+        while (!gameOver && turnCount <= maxTurns)
+        {
+            playComputerTurn();
+
+            if (!gameOver)
+            {
+                nextTurn();
+            }
+        }
+
+        return winner;
+    }
+
+    /**
+     * Replay a recorded Fight. This FightEngine must be brand new (or restarted), with the same FaceCharacters and the same seed as the recorded Fight.
+     * The BattleMoves come from the MoveLog instead of the computer, while every other random decision comes out exactly as it did before.
+     * Listeners hear the whole Fight again, without any waiting between events.
+     * @param recordedMoves
+     * @return the winning Player, or null if the recorded Fight never finished
+     */
+    public Player replay(MoveLog recordedMoves)
+    {
+        createFirstTurn();
+
+        int move = 0;
+        while (!gameOver && move < recordedMoves.size())
+        {
+            //If the attacking Player had run out of weapons, the same neutral piece becomes a kamikaze piece again.
+            Player attacker = playerOnSide(recordedMoves.getSide(move));
+            int attackingSlot = recordedMoves.getSlot(move);
+            if (!attacker.getState().isWeapon(attackingSlot))
+            {
+                attacker.makeKamikazePiece();
+            }
+            makeMove(attacker, attackingSlot);
+            move++;
+
+            if (move < recordedMoves.size() && recordedMoves.isResponse(move))
+            {
+                Player defender = playerOnSide(recordedMoves.getSide(move));
+                makeMove(defender, recordedMoves.getSlot(move));
+                move++;
+            }
+
+            resolveTurn();
+
+            if (!gameOver)
+            {
+                nextTurn();
+            }
+        }
+
+        return winner;
+    }
+
+    private Player playerOnSide(int side)
+    {
+        return (side == MoveLog.HERO) ? heroPlayer : antagonistPlayer;
+    }
+
+    /**
+     * The currentPlayer attacks, the opponent might respond, and the Turn is resolved.
+     */
+    private void playComputerTurn()
+    {
+        Player defender = currentPlayer.getOpponent();
+
+        int attackingSlot = chooseAttack(currentPlayer);
+        if (attackingSlot == -1)
+        {
+            finishTurn();
+            return;
+        }
+        makeMove(currentPlayer, attackingSlot);
+
+        if (computerWillRespond())
+        {
+            int respondingSlot = chooseResponse(defender);
+            if (respondingSlot != -1)
+            {
+                makeMove(defender, respondingSlot);
+            }
+        }
+
+        resolveTurn();
+    }
+
+    //The following methods are called by the Turn and Player objects as the current Turn is resolved.
+
+    /**
+     * The Turn object tells us which slots lost HP.
+     * @param damageToDefendingPiece
+     * @param damageToAttackingPiece
+     * @param defendingSlot
+     * @param attackingSlot
+     */
+    public void announceDamage(int damageToDefendingPiece, int damageToAttackingPiece, int defendingSlot, int attackingSlot)
+    {
+        for (int i=0; i<listeners.size(); i++)
+        {
+            listeners.get(i).onDamage(currentPlayer, attackingSlot, damageToAttackingPiece, defendingSlot, damageToDefendingPiece);
+        }
+    }
+
+    /**
+     * The Turn object tells us how much HP was gained by each side, and which slot received it.
+     * @param attackingHealthBenefit
+     * @param attackingSlot -1 if the attacker gained nothing
+     * @param defendingHealthBenefit
+     * @param defendingSlot -1 if the defender gained nothing
+     */
+    public void announceHealthBenefit(int attackingHealthBenefit, int attackingSlot, int defendingHealthBenefit, int defendingSlot)
+    {
+        for (int i=0; i<listeners.size(); i++)
+        {
+            listeners.get(i).onHealthBenefit(currentPlayer, attackingHealthBenefit, attackingSlot, defendingHealthBenefit, defendingSlot);
+        }
+    }
+
+    /**
+     * The Turn object tells us every random effect modifier it draws.
+     * @param modifier
+     */
+    public void effectModifierDrawn(int modifier)
+    {
+        for (int i=0; i<listeners.size(); i++)
+        {
+            listeners.get(i).onEffectModifier(modifier);
+        }
+    }
+
+    /**
+     * A Player tells us that one of its FacePieces has been destroyed.
+     * @param owner
+     * @param slot
+     */
+    public void pieceDestroyed(Player owner, int slot)
+    {
+        for (int i=0; i<listeners.size(); i++)
+        {
+            listeners.get(i).onPieceDestroyed(owner, slot);
+        }
+    }
+
+    /**
+     * The Turn object tells us that both Players have removed their destroyed FacePieces.
+     */
+    public void piecesRemoved()
+    {
+        for (int i=0; i<listeners.size(); i++)
+        {
+            listeners.get(i).onPiecesRemoved();
+        }
+    }
+
+    /**
+     * If a Player object has lost all its FacePieces then it calls this method
+     * to let the FightEngine know that the Player is destroyed.
+     * @param destroyedPlayer
+     */
+    public void playerDestroyed(Player destroyedPlayer)
+    {
+        if (!gameOver) {
+            gameOver = true;
+            loser = destroyedPlayer;
+            winner = destroyedPlayer.getOpponent();
+        }
+    }
+
+    /**
+     * After the Turn object has resolved all the BattleMove effects,
+     * it calls this method to end the turn so a new one can be created.
+     */
+    public void finishTurn()
+    {
+        for (int i=0; i<listeners.size(); i++)
+        {
+            listeners.get(i).onTurnFinished(gameOver);
+        }
+    }
+
+    //getter methods
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public MoveLog getMoveLog()
+    {
+        return moveLog;
+    }
+
+    /**
+     * The stream for the small random effect modifiers which the Turn adds to damage.
+     * @return
+     */
+    public FightRandom getEffectRandomizer()
+    {
+        return effectRandomizer;
+    }
+
+    /**
+     * The stream for randomly chosen FacePieces (defending pieces and pieces which receive absorbed HP).
+     * @return
+     */
+    public FightRandom getPieceRandomizer()
+    {
+        return pieceRandomizer;
+    }
+
+    public Player getHeroPlayer()
+    {
+        return heroPlayer;
+    }
+
+    public Player getAntagonistPlayer()
+    {
+        return antagonistPlayer;
+    }
+
+    public Player getCurrentPlayer()
+    {
+        return currentPlayer;
+    }
+
+    public Player getWinner()
+    {
+        return winner;
+    }
+
+    public Player getLoser()
+    {
+        return loser;
+    }
+
+    public boolean isGameOver()
+    {
+        return gameOver;
+    }
+
+    public int getTurnCount()
+    {
+        return turnCount;
+    }
+
+    public Turn getTurn()
+    {
+        return currentTurn;
+    }
+}
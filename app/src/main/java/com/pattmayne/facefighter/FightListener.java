@@ -0,0 +1,69 @@
+package com.pattmayne.facefighter;
+
+/**
+ * A FightListener is told about everything that happens inside a FightEngine.
+ * The FightEngine itself knows nothing about the screen or the sound,
+ * so anything that wants to show or play a Fight (the Fight/FightView adapter, the sound effects) implements this interface.
+ *
+ * A FightEngine with no listeners at all simply runs the battle-logic, which is how we simulate Fights in a plain JVM.
+ */
+public interface FightListener {
+
+    /**
+     * A new Turn has been created and it belongs to currentPlayer.
+     * @param currentPlayer
+     */
+    void onTurnStarted(Player currentPlayer);
+
+    /**
+     * A Player has chosen a BattleMove.
+     * @param player
+     * @param slot the slot of the FacePiece which performs the BattleMove (see Player.getPiece and Player.getBattleMove)
+     * @param response true if this BattleMove responds to the opponent's attack
+     */
+    void onBattleMove(Player player, int slot, boolean response);
+
+    /**
+     * The Turn has drawn a random effect modifier, which it adds to some damage.
+     * @param modifier
+     */
+    void onEffectModifier(int modifier);
+
+    /**
+     * The Turn has been resolved and HP has been subtracted from the attacking and defending FacePieces.
+     * @param attacker the Player whose Turn it is
+     * @param attackingSlot
+     * @param damageToAttackingPiece
+     * @param defendingSlot a slot of the attacker's opponent
+     * @param damageToDefendingPiece
+     */
+    void onDamage(Player attacker, int attackingSlot, int damageToAttackingPiece, int defendingSlot, int damageToDefendingPiece);
+
+    /**
+     * Absorbent FacePieces have given bonus HP to their Players (a benefit can also be negative, when an absorbent defense goes badly).
+     * @param attacker the Player whose Turn it is
+     * @param attackingHealthBenefit
+     * @param attackingSlot the attacker's slot which received the HP, or -1
+     * @param defendingHealthBenefit
+     * @param defendingSlot the defender's slot which received the HP, or -1
+     */
+    void onHealthBenefit(Player attacker, int attackingHealthBenefit, int attackingSlot, int defendingHealthBenefit, int defendingSlot);
+
+    /**
+     * A FacePiece has lost all its HP and has been removed from its Player.
+     * @param owner
+     * @param slot
+     */
+    void onPieceDestroyed(Player owner, int slot);
+
+    /**
+     * Both Players have removed their destroyed FacePieces, so any list of available BattleMoves may be out of date.
+     */
+    void onPiecesRemoved();
+
+    /**
+     * The Turn is completely finished.
+     * @param gameOver true if one of the Players has been destroyed
+     */
+    void onTurnFinished(boolean gameOver);
+}
@@ -0,0 +1,372 @@
+package com.pattmayne.facefighter;
+
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * This FightListener writes everything that happens in a Fight to a compact binary log:
+ * every Turn, BattleMove, effect modifier, damage, HP gained, destroyed piece, and the winner.
+ * The log is the single record of a Fight, for replays, for settling arguments about a result, and for offline balance statistics.
+ *
+ * Every record is a record type followed by its values, all written as varints (small numbers take one byte),
+ * with signed values zigzag-encoded, so a whole Fight usually takes a few hundred bytes.
+ * Records go into a reusable buffer, which is only written out when it fills up or when the Fight ends,
+ * so logging doesn't touch the disk on every Turn and doesn't create objects as the Fight goes on.
+ * Many Fights can be appended to the same file, one after another. FightLogReader reads them back.
+ *
+ * A log file can hold thousands of Fights, so a replay shouldn't have to read them all to find the last one.
+ * Whenever a finished Fight has been written out, its byte offset in the log is saved in a small second file (see lastFightFile),
+ * which FightRecording.readLast uses to read just that Fight.
+ *
+ * Record layout (every value is a varint):
+ *   FIGHT_START  version, seed (zigzag), hero name, antagonist name, then for each side: slot count, and the HP of every slot
+ *   TURN_START   side
+ *   MOVE         side, slot, 1 if it's a response (otherwise 0)
+ *   EFFECT       modifier (zigzag)
+ *   DAMAGE       attacking slot, damage to it (zigzag), defending slot, damage to it (zigzag)  (the attacker is the side whose Turn it is)
+ *   HEAL         attacking slot + 1, HP (zigzag), defending slot + 1, HP (zigzag)  (a slot of 0 means nobody gained HP)
+ *   DESTROYED    side, slot
+ *   FIGHT_END    winning side (or NO_WINNER), number of Turns
+ * Names are a byte count followed by UTF-8 bytes.
+ */
+public class FightLog implements FightListener {
+
+    public static final String FILE_NAME = "fights.log";
+    public static final String LAST_FIGHT_SUFFIX = ".last";
+    public static final int VERSION = 1;
+
+    //record types
+    public static final int FIGHT_START = 1;
+    public static final int TURN_START = 2;
+    public static final int MOVE = 3;
+    public static final int EFFECT = 4;
+    public static final int DAMAGE = 5;
+    public static final int HEAL = 6;
+    public static final int DESTROYED = 7;
+    public static final int FIGHT_END = 8;
+
+    //the winning side of a Fight which was abandoned
+    public static final int NO_WINNER = 2;
+
+    //The buffer is written out once it holds this many bytes.
+    private static final int FLUSH_SIZE = 8192;
+
+    //The longest possible record (FIGHT_START, with long names, is written directly and may make the buffer grow).
+    private static final int MAX_RECORD_SIZE = 64;
+
+    //variables
+    private FightEngine engine;
+    private OutputStream output;
+
+    private byte[] buffer;
+    private int position = 0;
+    private boolean fightInProgress = false;
+    private int turns = 0;
+
+    //When the log is a file: where to save the offset of its last finished Fight,
+    //and how long the log is (what was already in the file, plus what has been written out since).
+    private File lastFightFile;
+    private long written = 0;
+    private long fightOffset = 0;
+    private long finishedFightOffset = -1;
+
+    /**
+     * Log the FightEngine's Fights to an OutputStream.
+     * @param engine
+     * @param output
+     */
+    public FightLog(FightEngine engine, OutputStream output)
+    {
+        this.engine = engine;
+        this.output = output;
+        buffer = new byte[FLUSH_SIZE + MAX_RECORD_SIZE];
+
+        engine.addListener(this);
+    }
+
+    /**
+     * Log the FightEngine's Fights to the end of a file (on a phone, use the app's files directory).
+     * @param engine
+     * @param file
+     * @throws IOException
+     */
+    public FightLog(FightEngine engine, File file) throws IOException
+    {
+        this(engine, new FileOutputStream(file, true));
+
+        lastFightFile = lastFightFile(file);
+        written = file.length();
+    }
+
+    /**
+     * @param file a FightLog file
+     * @return the file which holds the byte offset of the last finished Fight in the log
+     */
+    public static File lastFightFile(File file)
+    {
+        return new File(file.getParentFile(), file.getName() + LAST_FIGHT_SUFFIX);
+    }
+
+    //FightListener methods.
+
+    @Override
+    public void onTurnStarted(Player currentPlayer)
+    {
+        //A Fight starts with its first Turn. (A restarted FightEngine starts a new Fight in the same log).
+        if (engine.getTurnCount() == 1)
+        {
+            if (fightInProgress)
+            {
+                writeFightEnd();
+            }
+            writeFightStart();
+        }
+        turns = engine.getTurnCount();
+
+        writeVarint(TURN_START);
+        writeVarint(side(currentPlayer));
+    }
+
+    @Override
+    public void onBattleMove(Player player, int slot, boolean response)
+    {
+        writeVarint(MOVE);
+        writeVarint(side(player));
+        writeVarint(slot);
+        writeVarint(response ? 1 : 0);
+    }
+
+    @Override
+    public void onEffectModifier(int modifier)
+    {
+        writeVarint(EFFECT);
+        writeSigned(modifier);
+    }
+
+    @Override
+    public void onDamage(Player attacker, int attackingSlot, int damageToAttackingPiece, int defendingSlot, int damageToDefendingPiece)
+    {
+        writeVarint(DAMAGE);
+        writeVarint(attackingSlot);
+        writeSigned(damageToAttackingPiece);
+        writeVarint(defendingSlot);
+        writeSigned(damageToDefendingPiece);
+    }
+
+    @Override
+    public void onHealthBenefit(Player attacker, int attackingHealthBenefit, int attackingSlot, int defendingHealthBenefit, int defendingSlot)
+    {
+        writeVarint(HEAL);
+        writeVarint(attackingSlot + 1);
+        writeSigned(attackingHealthBenefit);
+        writeVarint(defendingSlot + 1);
+        writeSigned(defendingHealthBenefit);
+    }
+
+    @Override
+    public void onPieceDestroyed(Player owner, int slot)
+    {
+        writeVarint(DESTROYED);
+        writeVarint(side(owner));
+        writeVarint(slot);
+    }
+
+    @Override
+    public void onPiecesRemoved() {}
+
+    @Override
+    public void onTurnFinished(boolean gameOver)
+    {
+        if (gameOver)
+        {
+            writeFightEnd();
+            flush();
+        } else if (position >= FLUSH_SIZE)
+        {
+            flush();
+        }
+    }
+
+    /**
+     * Record the end of a Fight which never finished (for instance when the user leaves the FightActivity),
+     * write out everything that's buffered, and close the output.
+     */
+    public void close()
+    {
+        if (fightInProgress)
+        {
+            writeFightEnd();
+        }
+        flush();
+
+        try {
+            output.close();
+        } catch (IOException e) {
+            //The log is only a record of the Fight, so losing it must never stop the game.
+        }
+    }
+
+    /**
+     * Write the buffered records to the output.
+     */
+    public void flush()
+    {
+        if (position == 0)
+        {
+            return;
+        }
+
+        try {
+            output.write(buffer, 0, position);
+            output.flush();
+            written += position;
+        } catch (IOException e) {
+            //The log is only a record of the Fight, so losing it must never stop the game.
+            //Some of the buffer may have been written, so the offsets are no longer known.
+            forgetLastFight();
+        }
+
+        position = 0;
+
+        if (finishedFightOffset != -1)
+        {
+            saveLastFight(finishedFightOffset);
+            finishedFightOffset = -1;
+        }
+    }
+
+    /**
+     * Save the offset of a Fight which has been completely written out.
+     * If this goes wrong, FightRecording.readLast falls back to reading the whole log.
+     */
+    private void saveLastFight(long offset)
+    {
+        if (lastFightFile == null)
+        {
+            return;
+        }
+
+        try {
+            DataOutputStream lastFightOutput = new DataOutputStream(new FileOutputStream(lastFightFile));
+            try {
+                lastFightOutput.writeLong(offset);
+            } finally {
+                lastFightOutput.close();
+            }
+        } catch (IOException e) {
+            forgetLastFight();
+        }
+    }
+
+    private void forgetLastFight()
+    {
+        if (lastFightFile != null)
+        {
+            lastFightFile.delete();
+            lastFightFile = null;
+        }
+    }
+
+    private void writeFightStart()
+    {
+        fightInProgress = true;
+        fightOffset = written + position;
+
+        byte[] heroName = utf8(engine.getHeroPlayer().getName());
+        byte[] antagonistName = utf8(engine.getAntagonistPlayer().getName());
+        ensureRoom(heroName.length + antagonistName.length + MAX_RECORD_SIZE * 2);
+
+        writeVarint(FIGHT_START);
+        writeVarint(VERSION);
+        writeSigned(engine.getSeed());
+        writeBytes(heroName);
+        writeBytes(antagonistName);
+        writeHP(engine.getHeroPlayer().getState());
+        writeHP(engine.getAntagonistPlayer().getState());
+    }
+
+    private void writeHP(BattleState state)
+    {
+        ensureRoom(state.size() * 5 + 5);
+
+        writeVarint(state.size());
+        for (int slot=0; slot<state.size(); slot++)
+        {
+            writeSigned(state.getHP(slot));
+        }
+    }
+
+    private void writeFightEnd()
+    {
+        fightInProgress = false;
+        finishedFightOffset = fightOffset;
+
+        Player winner = engine.getWinner();
+        writeVarint(FIGHT_END);
+        writeVarint(winner == null ? NO_WINNER : side(winner));
+        writeVarint(turns);
+    }
+
+    private int side(Player player)
+    {
+        return (player == engine.getHeroPlayer()) ? MoveLog.HERO : MoveLog.ANTAGONIST;
+    }
+
+    //Encoding
+
+    private void writeVarint(int value)
+    {
+        writeVarlong(value & 0xffffffffL);
+    }
+
+    private void writeSigned(long value)
+    {
+        writeVarlong((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarlong(long value)
+    {
+        if (position > buffer.length - 10)
+        {
+            ensureRoom(10);
+        }
+
+        while ((value & ~0x7fL) != 0)
+        {
+            buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeBytes(byte[] bytes)
+    {
+        writeVarint(bytes.length);
+        ensureRoom(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensureRoom(int bytes)
+    {
+        if (position + bytes > buffer.length)
+        {
+            byte[] biggerBuffer = new byte[Math.max(buffer.length * 2, position + bytes)];
+            System.arraycopy(buffer, 0, biggerBuffer, 0, position);
+            buffer = biggerBuffer;
+        }
+    }
+
+    private static byte[] utf8(String text)
+    {
+        try {
+            return (text == null ? "" : text).getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.pattmayne.facefighter;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This reads the records of a FightLog back, one at a time.
+ * Call next() until it returns false. Each call fills in the record's type and values, which are read with the getters
+ * (which values mean something depends on the record type, see FightLog).
+ * Nothing is created while reading, except the two names of each FIGHT_START record.
+ * The reader counts the bytes it reads, so it can tell where each record starts (to come back to a Fight later).
+ */
+public class FightLogReader {
+
+    //variables
+    private InputStream input;
+    private long position = 0;
+    private long recordStart = 0;
+
+    private int type;
+    private int side;
+    private int attackingSlot;
+    private int defendingSlot;
+    private int attackingValue;
+    private int defendingValue;
+    private boolean response;
+
+    //FIGHT_START values
+    private int version;
+    private long seed;
+    private String heroName;
+    private String antagonistName;
+    private int[][] startingHP = new int[2][];
+
+    //FIGHT_END values
+    private int winner;
+    private int turns;
+
+    public FightLogReader(InputStream input)
+    {
+        this.input = input;
+    }
+
+    /**
+     * Read the next record.
+     * @return false if there are no more records
+     * @throws IOException if the log is broken
+     */
+    public boolean next() throws IOException
+    {
+        recordStart = position;
+        int first = input.read();
+        if (first < 0)
+        {
+            type = 0;
+            return false;
+        }
+        position++;
+
+        type = (int) readVarlong(first);
+
+        switch (type)
+        {
+            case FightLog.FIGHT_START:
+                version = readVarint();
+                if (version != FightLog.VERSION)
+                {
+                    throw new IOException("Unknown FightLog version " + version);
+                }
+                seed = readSigned();
+                heroName = readString();
+                antagonistName = readString();
+                startingHP[MoveLog.HERO] = readHP();
+                startingHP[MoveLog.ANTAGONIST] = readHP();
+                break;
+
+            case FightLog.TURN_START:
+                side = readVarint();
+                break;
+
+            case FightLog.MOVE:
+                side = readVarint();
+                attackingSlot = readVarint();
+                response = readVarint() != 0;
+                break;
+
+            case FightLog.EFFECT:
+                attackingValue = (int) readSigned();
+                break;
+
+            case FightLog.DAMAGE:
+                attackingSlot = readVarint();
+                attackingValue = (int) readSigned();
+                defendingSlot = readVarint();
+                defendingValue = (int) readSigned();
+                break;
+
+            case FightLog.HEAL:
+                attackingSlot = readVarint() - 1;
+                attackingValue = (int) readSigned();
+                defendingSlot = readVarint() - 1;
+                defendingValue = (int) readSigned();
+                break;
+
+            case FightLog.DESTROYED:
+                side = readVarint();
+                attackingSlot = readVarint();
+                break;
+
+            case FightLog.FIGHT_END:
+                winner = readVarint();
+                turns = readVarint();
+                break;
+
+            default:
+                throw new IOException("Unknown FightLog record type " + type);
+        }
+
+        return true;
+    }
+
+    public void close() throws IOException
+    {
+        input.close();
+    }
+
+    //Decoding
+
+    private int readVarint() throws IOException
+    {
+        return (int) readVarlong(readByte());
+    }
+
+    private long readSigned() throws IOException
+    {
+        long value = readVarlong(readByte());
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarlong(int first) throws IOException
+    {
+        long value = first & 0x7f;
+        int shift = 7;
+        int b = first;
+
+        while ((b & 0x80) != 0)
+        {
+            if (shift > 63)
+            {
+                throw new IOException("Broken varint in FightLog");
+            }
+            b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        }
+
+        return value;
+    }
+
+    private int readByte() throws IOException
+    {
+        int b = input.read();
+        if (b < 0)
+        {
+            throw new EOFException("FightLog ends in the middle of a record");
+        }
+        position++;
+        return b;
+    }
+
+    private String readString() throws IOException
+    {
+        byte[] bytes = new byte[readVarint()];
+        int read = 0;
+        while (read < bytes.length)
+        {
+            int count = input.read(bytes, read, bytes.length - read);
+            if (count < 0)
+            {
+                throw new EOFException("FightLog ends in the middle of a name");
+            }
+            read += count;
+            position += count;
+        }
+        return new String(bytes, "UTF-8");
+    }
+
+    private int[] readHP() throws IOException
+    {
+        int[] hp = new int[readVarint()];
+        for (int slot=0; slot<hp.length; slot++)
+        {
+            hp[slot] = (int) readSigned();
+        }
+        return hp;
+    }
+
+    //getter methods
+
+    /**
+     * @return how many bytes (from where the reader started) come before the record which was read last
+     */
+    public long getRecordStart()
+    {
+        return recordStart;
+    }
+
+    /**
+     * @return one of the FightLog record types, or 0 after the last record
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+    /**
+     * The side (MoveLog.HERO or MoveLog.ANTAGONIST) of a TURN_START, MOVE, or DESTROYED record.
+     * @return
+     */
+    public int getSide()
+    {
+        return side;
+    }
+
+    /**
+     * The slot of a MOVE or DESTROYED record, or the attacking slot of a DAMAGE or HEAL record (-1 if the attacker gained no HP).
+     * @return
+     */
+    public int getSlot()
+    {
+        return attackingSlot;
+    }
+
+    public int getAttackingSlot()
+    {
+        return attackingSlot;
+    }
+
+    /**
+     * The defending slot of a DAMAGE or HEAL record (-1 if the defender gained no HP).
+     * @return
+     */
+    public int getDefendingSlot()
+    {
+        return defendingSlot;
+    }
+
+    /**
+     * The modifier of an EFFECT record, or the damage or HP of the attacking piece in a DAMAGE or HEAL record.
+     * @return
+     */
+    public int getAttackingValue()
+    {
+        return attackingValue;
+    }
+
+    /**
+     * The damage or HP of the defending piece in a DAMAGE or HEAL record.
+     * @return
+     */
+    public int getDefendingValue()
+    {
+        return defendingValue;
+    }
+
+    public int getModifier()
+    {
+        return attackingValue;
+    }
+
+    public boolean isResponse()
+    {
+        return response;
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public String getHeroName()
+    {
+        return heroName;
+    }
+
+    public String getAntagonistName()
+    {
+        return antagonistName;
+    }
+
+    /**
+     * The HP of every slot of one side when the Fight started.
+     * @param side MoveLog.HERO or MoveLog.ANTAGONIST
+     * @return
+     */
+    public int[] getStartingHP(int side)
+    {
+        return startingHP[side];
+    }
+
+    /**
+     * The winning side of a FIGHT_END record, or FightLog.NO_WINNER.
+     * @return
+     */
+    public int getWinner()
+    {
+        return winner;
+    }
+
+    public int getTurns()
+    {
+        return turns;
+    }
+
+    /**
+     * Command line entry point, which prints a FightLog file as text:
+     *
+     *   FightLogReader logFile
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException
+    {
+        FightLogReader reader = new FightLogReader(new BufferedInputStream(new FileInputStream(args[0])));
+        String[] sides = {"hero", "antagonist", "nobody"};
+
+        try {
+            while (reader.next())
+            {
+                switch (reader.getType())
+                {
+                    case FightLog.FIGHT_START:
+                        System.out.println("FIGHT seed " + reader.getSeed() + ": " + reader.getHeroName() + " vs " + reader.getAntagonistName());
+                        break;
+                    case FightLog.TURN_START:
+                        System.out.println("  turn " + sides[reader.getSide()]);
+                        break;
+                    case FightLog.MOVE:
+                        System.out.println("    " + (reader.isResponse() ? "response " : "attack ") + sides[reader.getSide()] + " slot " + reader.getSlot());
+                        break;
+                    case FightLog.EFFECT:
+                        System.out.println("    effect " + reader.getModifier());
+                        break;
+                    case FightLog.DAMAGE:
+                        System.out.println("    damage " + reader.getAttackingValue() + " to slot " + reader.getAttackingSlot()
+                                + ", " + reader.getDefendingValue() + " to slot " + reader.getDefendingSlot());
+                        break;
+                    case FightLog.HEAL:
+                        System.out.println("    HP " + reader.getAttackingValue() + " to slot " + reader.getAttackingSlot()
+                                + ", " + reader.getDefendingValue() + " to slot " + reader.getDefendingSlot());
+                        break;
+                    case FightLog.DESTROYED:
+                        System.out.println("    destroyed " + sides[reader.getSide()] + " slot " + reader.getSlot());
+                        break;
+                    case FightLog.FIGHT_END:
+                        System.out.println("WINNER " + sides[reader.getWinner()] + " after " + reader.getTurns() + " turns");
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.pattmayne.facefighter;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+/**
+ * The particle effects of a Fight: sparks when a FacePiece is hit, debris when one is destroyed,
+ * HP streaming into an absorbent piece, and a trail from a reflective piece back to the attacker.
+ *
+ * Every particle lives in the same preallocated arrays (one array per property, one index per particle), which never grow.
+ * When they are full, new particles are simply not created, so an effect can never cost an allocation or slow the frame down.
+ * Particles move on the FightView's game clock (so they speed up, slow down and pause with it),
+ * and they are drawn in batches: one drawPoints call for each kind of particle at each step of fading.
+ *
+ * Positions and speeds are in screen pixels. The sizes and gravity are in design pixels, and the FightView sets the scale.
+ */
+public class FightParticles {
+
+    //the most particles there can be at once
+    public static final int CAPACITY = 600;
+
+    //the kinds of particle
+    public static final int SPARK = 0;
+    public static final int DEBRIS = 1;
+    public static final int ABSORB = 2;
+    public static final int REFLECT = 3;
+    private static final int KINDS = 4;
+
+    //for each kind: colour, size and gravity (design pixels, and design pixels per second per second), and how long a particle lasts
+    private static final int[] COLORS = {0xffffd040, 0xff8a7560, 0xfff0e040, 0xff60e0ff};
+    private static final float[] SIZES = {7, 13, 9, 8};
+    private static final float[] GRAVITY = {900, 1800, 0, 0};
+    private static final int[] LIFE_MILLIS = {420, 1300, 650, 550};
+
+    //Particles fade out in this many steps (each step is drawn with its own Paint, so it still takes one call).
+    private static final int FADE_STEPS = 4;
+
+    //variables
+    private float scale = 1;
+    private int count = 0;
+
+    //one entry per particle. The live particles are always the first count entries.
+    private float[] xs = new float[CAPACITY];
+    private float[] ys = new float[CAPACITY];
+    private float[] xSpeeds = new float[CAPACITY];
+    private float[] ySpeeds = new float[CAPACITY];
+    private int[] ages = new int[CAPACITY];
+    private int[] lives = new int[CAPACITY];
+    private int[] kinds = new int[CAPACITY];
+
+    //the batch being drawn (x and y of each point), and a Paint for every kind and step of fading
+    private float[] points = new float[CAPACITY * 2];
+    private Paint[] paints = new Paint[KINDS * FADE_STEPS];
+
+    //Where the particles fly is only for show, so they have their own random numbers (a Fight's own stream must never be touched).
+    private FightRandom random = new FightRandom(FightRandom.newSeed());
+
+    public FightParticles()
+    {
+        for (int kind=0; kind<KINDS; kind++)
+        {
+            for (int step=0; step<FADE_STEPS; step++)
+            {
+                Paint paint = new Paint();
+                paint.setAntiAlias(true);
+                paint.setStrokeCap(Paint.Cap.ROUND);
+                paint.setColor(COLORS[kind]);
+                paint.setAlpha(255 * (FADE_STEPS - step) / FADE_STEPS);
+                paints[kind * FADE_STEPS + step] = paint;
+            }
+        }
+        setScale(1);
+    }
+
+    /**
+     * @param scale screen pixels per design pixel
+     */
+    public void setScale(float scale)
+    {
+        this.scale = scale;
+
+        for (int kind=0; kind<KINDS; kind++)
+        {
+            for (int step=0; step<FADE_STEPS; step++)
+            {
+                paints[kind * FADE_STEPS + step].setStrokeWidth(SIZES[kind] * scale);
+            }
+        }
+    }
+
+    /**
+     * Add one particle, unless there is no room.
+     * @param kind
+     * @param x
+     * @param y
+     * @param xSpeed screen pixels per second
+     * @param ySpeed
+     * @param lifeMillis
+     */
+    public void emit(int kind, float x, float y, float xSpeed, float ySpeed, int lifeMillis)
+    {
+        if (count == CAPACITY)
+        {
+            return;
+        }
+
+        xs[count] = x;
+        ys[count] = y;
+        xSpeeds[count] = xSpeed;
+        ySpeeds[count] = ySpeed;
+        ages[count] = 0;
+        lives[count] = Math.max(1, lifeMillis);
+        kinds[count] = kind;
+        count++;
+    }
+
+    /**
+     * Particles flying out in every direction from a point (sparks from a hit).
+     * @param kind
+     * @param x
+     * @param y
+     * @param amount
+     * @param speed the fastest particle, in design pixels per second
+     */
+    public void burst(int kind, float x, float y, int amount, float speed)
+    {
+        for (int i=0; i<amount; i++)
+        {
+            double angle = random.nextDouble() * Math.PI * 2;
+            float particleSpeed = (float) (speed * scale * (0.3 + 0.7 * random.nextDouble()));
+            emit(kind, x, y, (float) Math.cos(angle) * particleSpeed, (float) Math.sin(angle) * particleSpeed, lifetime(kind));
+        }
+    }
+
+    /**
+     * Pieces of a destroyed FacePiece, thrown up and out from all over its picture, which then fall.
+     * @param x the centre of the picture
+     * @param y
+     * @param halfWidth
+     * @param halfHeight
+     * @param amount
+     */
+    public void shatter(float x, float y, float halfWidth, float halfHeight, int amount)
+    {
+        for (int i=0; i<amount; i++)
+        {
+            float offsetX = (float) ((random.nextDouble() * 2 - 1) * halfWidth);
+            float offsetY = (float) ((random.nextDouble() * 2 - 1) * halfHeight);
+            float xSpeed = (offsetX / Math.max(1, halfWidth)) * 260 * scale;
+            float ySpeed = (float) (-(200 + random.nextDouble() * 500) * scale);
+            emit(DEBRIS, x + offsetX, y + offsetY, xSpeed, ySpeed, lifetime(DEBRIS));
+        }
+    }
+
+    /**
+     * Particles drawn in to a point from all around it (HP flowing into an absorbent piece).
+     * Each one reaches the point just as it fades away.
+     * @param kind
+     * @param x
+     * @param y
+     * @param radius where the particles start, in design pixels
+     * @param amount
+     */
+    public void converge(int kind, float x, float y, float radius, int amount)
+    {
+        for (int i=0; i<amount; i++)
+        {
+            double angle = random.nextDouble() * Math.PI * 2;
+            float distance = (float) (radius * scale * (0.6 + 0.4 * random.nextDouble()));
+            float startX = x + (float) Math.cos(angle) * distance;
+            float startY = y + (float) Math.sin(angle) * distance;
+            int life = lifetime(kind);
+            emit(kind, startX, startY, (x - startX) * 1000f / life, (y - startY) * 1000f / life, life);
+        }
+    }
+
+    /**
+     * Particles streaming from one point to another (damage reflected back at the attacking piece).
+     * They leave one after another along the way, so they look like a trail.
+     * @param kind
+     * @param fromX
+     * @param fromY
+     * @param toX
+     * @param toY
+     * @param amount
+     */
+    public void trail(int kind, float fromX, float fromY, float toX, float toY, int amount)
+    {
+        for (int i=0; i<amount; i++)
+        {
+            //each particle starts a little further along, and they all arrive together
+            float along = (float) i / amount * 0.5f;
+            float startX = fromX + (toX - fromX) * along;
+            float startY = fromY + (toY - fromY) * along;
+            float jitter = (float) ((random.nextDouble() * 2 - 1) * 14 * scale);
+            int life = lifetime(kind);
+            emit(kind, startX, startY + jitter, (toX - startX) * 1000f / life, (toY - startY - jitter) * 1000f / life, life);
+        }
+    }
+
+    private int lifetime(int kind)
+    {
+        return (int) (LIFE_MILLIS[kind] * (0.75 + 0.25 * random.nextDouble()));
+    }
+
+    /**
+     * Move every particle along, and remove the ones which have faded away.
+     * @param millis how much time has passed on the game clock
+     */
+    public void update(int millis)
+    {
+        if (millis == 0)
+        {
+            return;
+        }
+
+        float seconds = millis / 1000f;
+
+        int i = 0;
+        while (i < count)
+        {
+            ages[i] += millis;
+
+            if (ages[i] >= lives[i])
+            {
+                //fill the gap with the last particle, so the live particles stay at the front
+                count--;
+                xs[i] = xs[count];
+                ys[i] = ys[count];
+                xSpeeds[i] = xSpeeds[count];
+                ySpeeds[i] = ySpeeds[count];
+                ages[i] = ages[count];
+                lives[i] = lives[count];
+                kinds[i] = kinds[count];
+                continue;
+            }
+
+            ySpeeds[i] += GRAVITY[kinds[i]] * scale * seconds;
+            xs[i] += xSpeeds[i] * seconds;
+            ys[i] += ySpeeds[i] * seconds;
+            i++;
+        }
+    }
+
+    /**
+     * Draw every particle, one batch for each kind and step of fading.
+     * @param canvas
+     */
+    public void draw(Canvas canvas)
+    {
+        for (int kind=0; kind<KINDS; kind++)
+        {
+            for (int step=0; step<FADE_STEPS; step++)
+            {
+                int pointCount = 0;
+
+                for (int i=0; i<count; i++)
+                {
+                    if (kinds[i] == kind && ages[i] * FADE_STEPS / lives[i] == step)
+                    {
+                        points[pointCount * 2] = xs[i];
+                        points[pointCount * 2 + 1] = ys[i];
+                        pointCount++;
+                    }
+                }
+
+                if (pointCount > 0)
+                {
+                    canvas.drawPoints(points, 0, pointCount * 2, paints[kind * FADE_STEPS + step]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove every particle (for instance when a replay jumps to another Turn).
+     */
+    public void clear()
+    {
+        count = 0;
+    }
+
+    //getter methods
+
+    public int getCount()
+    {
+        return count;
+    }
+}
@@ -0,0 +1,149 @@
+package com.pattmayne.facefighter;
+
+/**
+ * A small, seedable random number generator for Fights (the SplitMix64 algorithm).
+ *
+ * Every FightEngine starts from a single seed and splits it into independent streams
+ * (turn order, effect modifiers, random pieces, computer choices).
+ * The same seed always produces the same streams, so a Fight can be replayed exactly,
+ * and because nothing is shared between Fights, thousands of them can run on separate threads at once.
+ *
+ * An object of this class is not thread-safe. Each thread should split its own stream.
+ */
+public class FightRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    //Seeds for Fights that are not given one are drawn from here.
+    private static final FightRandom seeder = new FightRandom(System.nanoTime() ^ System.currentTimeMillis());
+
+    //variables
+    private long seed;
+    private long gamma;
+
+    /**
+     * Create a stream from a seed. Two streams created from the same seed produce the same numbers.
+     * @param seed
+     */
+    public FightRandom(long seed)
+    {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    private FightRandom(long seed, long gamma)
+    {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Provide a fresh seed for a Fight that nobody needs to reproduce (but which can still be replayed from its seed later).
+     * @return
+     */
+    public static long newSeed()
+    {
+        synchronized (seeder)
+        {
+            return seeder.nextLong();
+        }
+    }
+
+    /**
+     * Start this stream again from a seed, exactly as if it had just been created with that seed.
+     * @param seed
+     */
+    public void setSeed(long seed)
+    {
+        this.seed = seed;
+        gamma = GOLDEN_GAMMA;
+    }
+
+    /**
+     * Create a new stream which is independent from this one.
+     * Splitting changes the state of this stream, so the order of splits matters.
+     * @return
+     */
+    public FightRandom split()
+    {
+        FightRandom stream = new FightRandom(0);
+        split(stream);
+        return stream;
+    }
+
+    /**
+     * Like split(), but restarts an existing stream instead of creating a new one, so a FightEngine can be reused without allocating.
+     * @param stream
+     */
+    public void split(FightRandom stream)
+    {
+        stream.seed = nextLong();
+        stream.gamma = mixGamma(nextSeed());
+    }
+
+    public long nextLong()
+    {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * Provide an evenly distributed number from 0 (inclusive) to bound (exclusive), just like java.util.Random.
+     * @param bound
+     * @return
+     */
+    public int nextInt(int bound)
+    {
+        if (bound <= 0)
+        {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+
+        if ((bound & m) == 0)
+        {
+            return r & m;
+        }
+
+        //reject the few values which would make the result uneven
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1);
+        return r;
+    }
+
+    /**
+     * Provide a number from 0.0 (inclusive) to 1.0 (exclusive).
+     * @return
+     */
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    private long nextSeed()
+    {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z)
+    {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int)(((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    //The gamma must be odd, and must not have too few bit transitions, or the stream is poor.
+    private static long mixGamma(long z)
+    {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
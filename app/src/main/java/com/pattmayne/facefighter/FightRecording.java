@@ -0,0 +1,339 @@
+package com.pattmayne.facefighter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * One Fight from a FightLog, held in memory so a FightReplay can play it (and jump around in it).
+ * Every record is an event, kept in plain int arrays indexed by event number (see FightLog for what each value means).
+ * The FIGHT_END record is the last event, so a replay reaches the winner the same way it reaches everything else.
+ */
+public class FightRecording {
+
+    //variables
+    private long seed;
+    private String heroName;
+    private String antagonistName;
+    private int[] heroStartingHP;
+    private int[] antagonistStartingHP;
+
+    private int winner = FightLog.NO_WINNER;
+    private boolean finished = false;
+
+    private int eventCount = 0;
+    private int[] types = new int[256];
+    private int[] sides = new int[256];
+    private int[] attackingSlots = new int[256];
+    private int[] attackingValues = new int[256];
+    private int[] defendingSlots = new int[256];
+    private int[] defendingValues = new int[256];
+
+    //turnStarts[turn - 1] is the event which starts that Turn
+    private int turnCount = 0;
+    private int[] turnStarts = new int[64];
+
+    /**
+     * Read one Fight. The reader must have just read the Fight's FIGHT_START record.
+     * Reading stops after the FIGHT_END record, or at the end of the log (if the app was stopped in the middle of a Fight).
+     * @param reader
+     * @throws IOException if the log is broken, or the next Fight starts before this one has ended
+     */
+    public FightRecording(FightLogReader reader) throws IOException
+    {
+        if (reader.getType() != FightLog.FIGHT_START)
+        {
+            throw new IllegalStateException("A FightRecording starts at a FIGHT_START record");
+        }
+
+        seed = reader.getSeed();
+        heroName = reader.getHeroName();
+        antagonistName = reader.getAntagonistName();
+        heroStartingHP = reader.getStartingHP(MoveLog.HERO);
+        antagonistStartingHP = reader.getStartingHP(MoveLog.ANTAGONIST);
+
+        while (reader.next())
+        {
+            int type = reader.getType();
+
+            if (type == FightLog.FIGHT_START)
+            {
+                //The log never writes this, but a FightRecording must never swallow the next Fight's start.
+                throw new IOException("FightLog has a Fight with no end");
+            }
+
+            addEvent(reader);
+
+            if (type == FightLog.FIGHT_END)
+            {
+                winner = reader.getWinner();
+                finished = true;
+                break;
+            }
+        }
+    }
+
+    private void addEvent(FightLogReader reader)
+    {
+        if (eventCount == types.length)
+        {
+            int length = types.length * 2;
+            types = Arrays.copyOf(types, length);
+            sides = Arrays.copyOf(sides, length);
+            attackingSlots = Arrays.copyOf(attackingSlots, length);
+            attackingValues = Arrays.copyOf(attackingValues, length);
+            defendingSlots = Arrays.copyOf(defendingSlots, length);
+            defendingValues = Arrays.copyOf(defendingValues, length);
+        }
+
+        int type = reader.getType();
+        types[eventCount] = type;
+        sides[eventCount] = reader.getSide();
+        attackingSlots[eventCount] = reader.getAttackingSlot();
+        attackingValues[eventCount] = reader.getAttackingValue();
+        defendingSlots[eventCount] = reader.getDefendingSlot();
+        defendingValues[eventCount] = reader.getDefendingValue();
+
+        //MOVE records keep their response flag, and FIGHT_END records keep the winner, in the attacking value.
+        if (type == FightLog.MOVE)
+        {
+            attackingValues[eventCount] = reader.isResponse() ? 1 : 0;
+        }
+        else if (type == FightLog.FIGHT_END)
+        {
+            attackingValues[eventCount] = reader.getWinner();
+        }
+
+        if (type == FightLog.TURN_START)
+        {
+            if (turnCount == turnStarts.length)
+            {
+                turnStarts = Arrays.copyOf(turnStarts, turnCount * 2);
+            }
+            turnStarts[turnCount++] = eventCount;
+        }
+
+        eventCount++;
+    }
+
+    /**
+     * Read the last finished Fight in a FightLog file.
+     * Usually the FightLog saved where that Fight starts, so only that Fight is read.
+     * Otherwise the whole log is searched. Fights which never ended (the app was stopped before the log was closed),
+     * and a record which was only partly written at the end of the log, are skipped.
+     * @param file
+     * @return the last finished Fight, or null if there are none
+     * @throws IOException if the log can't be read at all
+     */
+    public static FightRecording readLast(File file) throws IOException
+    {
+        FightRecording last = readAt(file, readLastFightOffset(FightLog.lastFightFile(file)));
+
+        if (last == null)
+        {
+            last = readAt(file, findLastFight(file));
+        }
+        return last;
+    }
+
+    /**
+     * @param lastFightFile
+     * @return the offset which the FightLog saved, or -1 if there isn't one
+     */
+    private static long readLastFightOffset(File lastFightFile)
+    {
+        if (lastFightFile.length() != 8)
+        {
+            return -1;
+        }
+
+        try {
+            DataInputStream input = new DataInputStream(new FileInputStream(lastFightFile));
+            try {
+                return input.readLong();
+            } finally {
+                input.close();
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Read through a whole FightLog file, without keeping any Fight.
+     * @param file
+     * @return the offset of the last Fight which has a FIGHT_END record, or -1 if there are none
+     * @throws IOException if the file can't be opened
+     */
+    static long findLastFight(File file) throws IOException
+    {
+        FightLogReader reader = new FightLogReader(new BufferedInputStream(new FileInputStream(file)));
+        long start = -1;
+        long last = -1;
+
+        try {
+            while (reader.next())
+            {
+                if (reader.getType() == FightLog.FIGHT_START)
+                {
+                    //A Fight which hasn't ended yet was never finished, and is forgotten.
+                    start = reader.getRecordStart();
+                }
+                else if (reader.getType() == FightLog.FIGHT_END && start != -1)
+                {
+                    last = start;
+                    start = -1;
+                }
+            }
+        } catch (IOException e) {
+            //The rest of the log was only partly written, so the Fights before it are all there is.
+        } finally {
+            reader.close();
+        }
+
+        return last;
+    }
+
+    /**
+     * @param file
+     * @param offset where the Fight's FIGHT_START record is
+     * @return the Fight, or null if there isn't a whole Fight there
+     * @throws IOException if the file can't be opened
+     */
+    private static FightRecording readAt(File file, long offset) throws IOException
+    {
+        if (offset < 0 || offset >= file.length())
+        {
+            return null;
+        }
+
+        InputStream input = new BufferedInputStream(new FileInputStream(file));
+        FightLogReader reader = new FightLogReader(input);
+
+        try {
+            long skipped = 0;
+            while (skipped < offset)
+            {
+                long count = input.skip(offset - skipped);
+                if (count <= 0)
+                {
+                    return null;
+                }
+                skipped += count;
+            }
+
+            if (!reader.next() || reader.getType() != FightLog.FIGHT_START)
+            {
+                return null;
+            }
+
+            FightRecording recording = new FightRecording(reader);
+            return recording.isFinished() ? recording : null;
+        } catch (IOException e) {
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    //getter methods
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public String getHeroName()
+    {
+        return heroName;
+    }
+
+    public String getAntagonistName()
+    {
+        return antagonistName;
+    }
+
+    /**
+     * The HP of every slot of one side when the Fight started.
+     * @param side MoveLog.HERO or MoveLog.ANTAGONIST
+     * @return
+     */
+    public int[] getStartingHP(int side)
+    {
+        return (side == MoveLog.HERO) ? heroStartingHP : antagonistStartingHP;
+    }
+
+    /**
+     * @return whether the Fight's FIGHT_END record was read (if not, the log ended in the middle of the Fight)
+     */
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    /**
+     * @return the winning side, or FightLog.NO_WINNER
+     */
+    public int getWinner()
+    {
+        return winner;
+    }
+
+    public int getEventCount()
+    {
+        return eventCount;
+    }
+
+    public int getTurnCount()
+    {
+        return turnCount;
+    }
+
+    /**
+     * @param turn from 1 to getTurnCount()
+     * @return the event which starts the Turn
+     */
+    public int getTurnStart(int turn)
+    {
+        return turnStarts[turn - 1];
+    }
+
+    public int getType(int event)
+    {
+        return types[event];
+    }
+
+    public int getSide(int event)
+    {
+        return sides[event];
+    }
+
+    public int getAttackingSlot(int event)
+    {
+        return attackingSlots[event];
+    }
+
+    public int getAttackingValue(int event)
+    {
+        return attackingValues[event];
+    }
+
+    public int getDefendingSlot(int event)
+    {
+        return defendingSlots[event];
+    }
+
+    public int getDefendingValue(int event)
+    {
+        return defendingValues[event];
+    }
+
+    public boolean isResponse(int event)
+    {
+        return attackingValues[event] != 0;
+    }
+}
@@ -0,0 +1,396 @@
+package com.pattmayne.facefighter;
+
+/**
+ * Plays a FightRecording on the FightView, at normal speed or faster.
+ * Nothing is worked out again: the Turn logic never runs, the recorded events simply go to the FightView's announcements,
+ * damage announcements and flashing pieces, and to the two Players (so the destroyed pieces disappear from the screen).
+ *
+ * The FightView calls tick() on every step of its game clock, and each event waits a number of milliseconds before it happens.
+ * Those are milliseconds of the FightView's FightTimeline, so the replay speed simply makes that clock run faster.
+ *
+ * While loading, the state of both Players is saved at the start of every KEYFRAME_INTERVAL-th Turn.
+ * Jumping to a Turn restores the nearest saved state before it and applies at most KEYFRAME_INTERVAL Turns of events,
+ * so seeking takes the same tiny amount of time no matter how long the Fight is.
+ */
+public class FightReplay {
+
+    //the replay speeds
+    public static final int NORMAL_SPEED = 1;
+    public static final int FAST_SPEED = 4;
+    public static final int FASTEST_SPEED = 16;
+
+    public static final int KEYFRAME_INTERVAL = 16;
+
+    //How many milliseconds to wait (on the FightTimeline) before each kind of event.
+    //Damage, HP and destroyed pieces happen at the same moment as each other, so they don't wait at all.
+    private static final int TURN_START_DELAY = 2500;
+    private static final int MOVE_DELAY = 1830;
+    private static final int FIGHT_END_DELAY = 2500;
+
+    //variables
+    private FightRecording recording;
+    private Player heroPlayer;
+    private Player antagonistPlayer;
+    private FightView fightView;
+
+    //keyframe k holds both Players' BattleStates at the start of Turn k * KEYFRAME_INTERVAL + 1
+    private BattleState[] heroKeyframes;
+    private BattleState[] antagonistKeyframes;
+
+    private int nextEvent = 0;
+    private int turn = 0;
+    private int currentSide = MoveLog.HERO;
+
+    private int speed = NORMAL_SPEED;
+    private boolean playing = false;
+    private int waitMillis = 0;
+    private boolean waited = false;
+
+    /**
+     * Get ready to replay a recorded Fight between these two Players, and save the keyframes.
+     * The Players must be brand new, made from the same FaceCharacters as the recorded Fight.
+     * @param recording
+     * @param heroPlayer
+     * @param antagonistPlayer
+     */
+    public FightReplay(FightRecording recording, Player heroPlayer, Player antagonistPlayer)
+    {
+        if (heroPlayer.getState().size() != recording.getStartingHP(MoveLog.HERO).length
+                || antagonistPlayer.getState().size() != recording.getStartingHP(MoveLog.ANTAGONIST).length)
+        {
+            throw new IllegalArgumentException("The recorded Fight was not between these FaceCharacters");
+        }
+
+        this.recording = recording;
+        this.heroPlayer = heroPlayer;
+        this.antagonistPlayer = antagonistPlayer;
+        heroPlayer.setOpponent(antagonistPlayer);
+        antagonistPlayer.setOpponent(heroPlayer);
+
+        int keyframes = (recording.getTurnCount() + KEYFRAME_INTERVAL - 1) / KEYFRAME_INTERVAL;
+        heroKeyframes = new BattleState[keyframes];
+        antagonistKeyframes = new BattleState[keyframes];
+
+        //Run through the whole Fight once, saving both Players at the start of every keyframe's Turn.
+        heroPlayer.reset();
+        antagonistPlayer.reset();
+
+        for (int event=0; event<recording.getEventCount(); event++)
+        {
+            if (recording.getType(event) == FightLog.TURN_START && turn % KEYFRAME_INTERVAL == 0)
+            {
+                heroKeyframes[turn / KEYFRAME_INTERVAL] = new BattleState(heroPlayer.getState());
+                antagonistKeyframes[turn / KEYFRAME_INTERVAL] = new BattleState(antagonistPlayer.getState());
+            }
+            apply(event);
+        }
+
+        heroPlayer.reset();
+        antagonistPlayer.reset();
+        nextEvent = 0;
+        turn = 0;
+    }
+
+    public void setFightView(FightView fightView)
+    {
+        this.fightView = fightView;
+    }
+
+    public void play()
+    {
+        playing = true;
+
+        if (fightView != null)
+        {
+            fightView.wake();
+        }
+    }
+
+    public void pause()
+    {
+        playing = false;
+    }
+
+    /**
+     * @param speed NORMAL_SPEED, FAST_SPEED or FASTEST_SPEED
+     */
+    public void setSpeed(int speed)
+    {
+        this.speed = speed;
+
+        if (fightView != null)
+        {
+            fightView.setPlaybackSpeed(speed);
+        }
+    }
+
+    /**
+     * Jump to the start of a Turn (the replay keeps playing, or stays paused).
+     * @param turn from 1 to getTurnCount(). Other numbers are moved into that range.
+     */
+    public void seek(int turn)
+    {
+        if (recording.getTurnCount() == 0)
+        {
+            return;
+        }
+
+        turn = Math.max(1, Math.min(turn, recording.getTurnCount()));
+
+        int keyframe = (turn - 1) / KEYFRAME_INTERVAL;
+        heroPlayer.restore(heroKeyframes[keyframe]);
+        antagonistPlayer.restore(antagonistKeyframes[keyframe]);
+        this.turn = keyframe * KEYFRAME_INTERVAL;
+
+        //Apply every event between the keyframe and the Turn, without showing them.
+        int event = recording.getTurnStart(this.turn + 1);
+        int target = recording.getTurnStart(turn);
+        while (event < target)
+        {
+            apply(event);
+            event++;
+        }
+
+        //The Turn starts straight away.
+        nextEvent = target;
+        waitMillis = 0;
+        waited = true;
+
+        if (fightView != null)
+        {
+            fightView.clearAnnouncements();
+            fightView.wake();
+        }
+    }
+
+    /**
+     * The FightView calls this on every step of its game clock. When an event has waited long enough, it happens.
+     * @param millis how much time has passed on the FightTimeline since the last step
+     */
+    public void tick(int millis)
+    {
+        if (!playing)
+        {
+            return;
+        }
+
+        if (waitMillis > 0)
+        {
+            waitMillis -= millis;
+            if (waitMillis > 0)
+            {
+                return;
+            }
+        }
+
+        while (nextEvent < recording.getEventCount())
+        {
+            if (!waited)
+            {
+                waited = true;
+                waitMillis = delayBefore(nextEvent);
+                if (waitMillis > 0)
+                {
+                    return;
+                }
+            }
+
+            apply(nextEvent);
+            show(nextEvent);
+            nextEvent++;
+            waited = false;
+        }
+
+        playing = false;
+    }
+
+    private int delayBefore(int event)
+    {
+        if (event >= recording.getEventCount())
+        {
+            return 0;
+        }
+
+        switch (recording.getType(event))
+        {
+            case FightLog.TURN_START:
+                return (event == 0) ? 0 : TURN_START_DELAY;
+            case FightLog.MOVE:
+                return MOVE_DELAY;
+            case FightLog.FIGHT_END:
+                return FIGHT_END_DELAY;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Change the Players the way the event says.
+     * @param event
+     */
+    private void apply(int event)
+    {
+        switch (recording.getType(event))
+        {
+            case FightLog.TURN_START:
+                currentSide = recording.getSide(event);
+                turn++;
+                break;
+
+            case FightLog.MOVE:
+                //An attack by a piece which isn't a weapon means the Player had run out of weapons, and that piece became a kamikaze piece.
+                Player mover = playerOnSide(recording.getSide(event));
+                if (!recording.isResponse(event) && !mover.getState().isWeapon(recording.getAttackingSlot(event)))
+                {
+                    mover.makeKamikazePiece();
+                }
+                break;
+
+            case FightLog.DAMAGE:
+                Player attacker = playerOnSide(currentSide);
+                attacker.getState().sufferWound(recording.getAttackingSlot(event), recording.getAttackingValue(event));
+                attacker.getOpponent().getState().sufferWound(recording.getDefendingSlot(event), recording.getDefendingValue(event));
+                break;
+
+            case FightLog.HEAL:
+                Player healedAttacker = playerOnSide(currentSide);
+                if (recording.getAttackingSlot(event) != -1)
+                {
+                    healedAttacker.getState().receiveHP(recording.getAttackingSlot(event), recording.getAttackingValue(event));
+                }
+                if (recording.getDefendingSlot(event) != -1)
+                {
+                    healedAttacker.getOpponent().getState().receiveHP(recording.getDefendingSlot(event), recording.getDefendingValue(event));
+                }
+                break;
+
+            case FightLog.DESTROYED:
+                playerOnSide(recording.getSide(event)).removePiece(recording.getAttackingSlot(event));
+                break;
+        }
+    }
+
+    /**
+     * Send the event to the FightView, the same way the Fight would have.
+     * @param event
+     */
+    private void show(int event)
+    {
+        if (fightView == null)
+        {
+            return;
+        }
+
+        switch (recording.getType(event))
+        {
+            case FightLog.TURN_START:
+                fightView.setCurrentPlayerName(playerOnSide(currentSide).getName());
+                break;
+
+            case FightLog.MOVE:
+                Player mover = playerOnSide(recording.getSide(event));
+                fightView.makeAnnouncement(mover.getName(), recording.isResponse(event) ? "Responds With" : "Uses",
+                        mover.getBattleMove(recording.getAttackingSlot(event)) + "!");
+                break;
+
+            case FightLog.DAMAGE:
+                Player attacker = playerOnSide(currentSide);
+                FacePiece attackingPiece = attacker.getPiece(recording.getAttackingSlot(event));
+                FacePiece defendingPiece = attacker.getOpponent().getPiece(recording.getDefendingSlot(event));
+
+                if (attacker == heroPlayer)
+                {
+                    fightView.damageAnnouncementCountdown(recording.getAttackingValue(event), recording.getDefendingValue(event), attackingPiece, defendingPiece);
+                } else {
+                    fightView.damageAnnouncementCountdown(recording.getDefendingValue(event), recording.getAttackingValue(event), defendingPiece, attackingPiece);
+                }
+
+                if (recording.getAttackingValue(event) > 0 && attacker.getOpponent().getState().isReflective(recording.getDefendingSlot(event)))
+                {
+                    fightView.reflectEffect(attacker, attackingPiece, defendingPiece);
+                }
+                break;
+
+            case FightLog.HEAL:
+                //Only actual gains are announced.
+                if (recording.getAttackingValue(event) <= 0 && recording.getDefendingValue(event) <= 0)
+                {
+                    break;
+                }
+
+                if (currentSide == MoveLog.HERO)
+                {
+                    fightView.healthBenefitAnnouncementCountdown(recording.getAttackingValue(event), recording.getDefendingValue(event));
+                } else {
+                    fightView.healthBenefitAnnouncementCountdown(recording.getDefendingValue(event), recording.getAttackingValue(event));
+                }
+
+                Player healer = playerOnSide(currentSide);
+                if (recording.getAttackingValue(event) > 0 && recording.getAttackingSlot(event) != -1)
+                {
+                    fightView.absorbEffect(healer, healer.getPiece(recording.getAttackingSlot(event)));
+                }
+                if (recording.getDefendingValue(event) > 0 && recording.getDefendingSlot(event) != -1)
+                {
+                    fightView.absorbEffect(healer.getOpponent(), healer.getOpponent().getPiece(recording.getDefendingSlot(event)));
+                }
+                break;
+
+            case FightLog.DESTROYED:
+                Player owner = playerOnSide(recording.getSide(event));
+                fightView.pieceDestroyedEffect(owner, owner.getPiece(recording.getAttackingSlot(event)));
+                fightView.makeAnnouncement(owner.getOpponent().getName(), "Destroyed " + owner.getName() + "'s",
+                        owner.getPiece(recording.getAttackingSlot(event)).getName());
+                break;
+
+            case FightLog.FIGHT_END:
+                if (recording.getAttackingValue(event) == FightLog.NO_WINNER)
+                {
+                    fightView.makeAnnouncement("Nobody", "Has", "Won!");
+                } else {
+                    fightView.makeAnnouncement(playerOnSide(recording.getAttackingValue(event)).getName(), "Has", "Won!");
+                }
+                break;
+        }
+    }
+
+    private Player playerOnSide(int side)
+    {
+        return (side == MoveLog.HERO) ? heroPlayer : antagonistPlayer;
+    }
+
+    //getter methods
+
+    /**
+     * @return the Turn being replayed (0 before the first Turn)
+     */
+    public int getTurn()
+    {
+        return turn;
+    }
+
+    public int getTurnCount()
+    {
+        return recording.getTurnCount();
+    }
+
+    public int getSpeed()
+    {
+        return speed;
+    }
+
+    public boolean isPlaying()
+    {
+        return playing;
+    }
+
+    public boolean isFinished()
+    {
+        return nextEvent >= recording.getEventCount();
+    }
+
+    public FightRecording getRecording()
+    {
+        return recording;
+    }
+}
@@ -0,0 +1,90 @@
+package com.pattmayne.facefighter;
+
+import android.content.Context;
+import android.media.MediaPlayer;
+
+import java.util.Random;
+
+/**
+ * This FightListener plays a sound effect whenever a FacePiece is damaged.
+ * A new sound is prepared at the start of every Turn, so it is ready to play the moment the damage is announced.
+ */
+public class FightSoundEffects implements FightListener {
+
+    //variables
+    private Context context;
+    private MediaPlayer soundEffectPlayer;
+    private Random randomizer;
+
+    private boolean playSound = true;
+
+    public FightSoundEffects(Context context)
+    {
+        this.context = context;
+        randomizer = new Random();
+        prepareNextSound();
+    }
+
+    private void prepareNextSound()
+    {
+        int noiseResourceID;
+        int noiseIndex = randomizer.nextInt(2);
+
+        if (noiseIndex == 0)
+        {
+            noiseResourceID = R.raw.boom;
+        }
+        else
+        {
+            noiseResourceID = R.raw.attack;
+        }
+
+        soundEffectPlayer = MediaPlayer.create(context, noiseResourceID);
+
+        soundEffectPlayer.setVolume(0.47f, 0.47f);
+        soundEffectPlayer.setLooping(false);
+    }
+
+    public void toggleSound()
+    {
+        playSound = !playSound;
+    }
+
+    @Override
+    public void onTurnStarted(Player currentPlayer)
+    {
+        if (playSound) {
+            soundEffectPlayer.release();
+            prepareNextSound();
+        }
+    }
+
+    /**
+     * The sound accompanies the damage announcement, while the damaged piece flashes, for a full battle experience!
+     */
+    @Override
+    public void onDamage(Player attacker, int attackingSlot, int damageToAttackingPiece, int defendingSlot, int damageToDefendingPiece)
+    {
+        if (playSound) {
+            soundEffectPlayer.start();
+        }
+    }
+
+    @Override
+    public void onBattleMove(Player player, int slot, boolean response) {}
+
+    @Override
+    public void onEffectModifier(int modifier) {}
+
+    @Override
+    public void onHealthBenefit(Player attacker, int attackingHealthBenefit, int attackingSlot, int defendingHealthBenefit, int defendingSlot) {}
+
+    @Override
+    public void onPieceDestroyed(Player owner, int slot) {}
+
+    @Override
+    public void onPiecesRemoved() {}
+
+    @Override
+    public void onTurnFinished(boolean gameOver) {}
+}
@@ -0,0 +1,160 @@
+package com.pattmayne.facefighter;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * The FacePiece pictures and the location, resampled once to the size of the FightView's screen.
+ *
+ * FacePieces are placed in "design pixels" (the coordinates of the FaceBuilderView, which are saved in the database,
+ * and the antagonists' coordinates in FightInfo). The FightView works out one scale from design pixels to screen pixels
+ * when it learns its size, and this class makes a copy of every picture at that scale before the Fight starts.
+ * After that, everything is drawn 1:1, so nothing is scaled while drawing a frame.
+ */
+public class FightSprites {
+
+    //variables
+    private float scale = 1;
+
+    //each FacePiece's picture at the current scale (the original picture itself when the scale is 1)
+    private HashMap<FacePiece, Bitmap> pics = new HashMap<FacePiece, Bitmap>();
+
+    //the location, drawn at exactly the size of the screen
+    private Bitmap locationPic;
+    private Drawable location;
+
+    /**
+     * Change the scale. Every picture made at the old scale is thrown away.
+     * @param scale screen pixels per design pixel
+     */
+    public void setScale(float scale)
+    {
+        if (scale == this.scale)
+        {
+            return;
+        }
+
+        this.scale = scale;
+        releasePics();
+    }
+
+    /**
+     * Resample every FacePiece of a Player, so nothing has to be resampled during the Fight.
+     * (Every piece is still in the Player's list at the start of a Fight.)
+     * @param player
+     */
+    public void prepare(Player player)
+    {
+        ArrayList<FacePiece> pieces = player.getPieces();
+        for (int i=0; i<pieces.size(); i++)
+        {
+            getPic(pieces.get(i));
+        }
+    }
+
+    /**
+     * Draw the location onto a Bitmap of exactly the screen's size (only if it isn't already).
+     * @param location
+     * @param width
+     * @param height
+     */
+    public void prepareLocation(Drawable location, int width, int height)
+    {
+        if (location == this.location && locationPic != null && locationPic.getWidth() == width && locationPic.getHeight() == height)
+        {
+            return;
+        }
+
+        if (locationPic != null)
+        {
+            locationPic.recycle();
+        }
+
+        this.location = location;
+        locationPic = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        location.setBounds(0, 0, width, height);
+        location.draw(new Canvas(locationPic));
+    }
+
+    /**
+     * @param piece
+     * @return the FacePiece's picture at the current scale (it is made now if it wasn't prepared), or null if it has no picture
+     */
+    public Bitmap getPic(FacePiece piece)
+    {
+        Bitmap pic = pics.get(piece);
+        if (pic == null && piece.getPic() != null)
+        {
+            Bitmap original = piece.getPic();
+            if (scale == 1)
+            {
+                pic = original;
+            }
+            else
+            {
+                pic = Bitmap.createScaledBitmap(original, Math.max(1, scale(original.getWidth())), Math.max(1, scale(original.getHeight())), true);
+            }
+            pics.put(piece, pic);
+        }
+        return pic;
+    }
+
+    /**
+     * @param designPixels
+     * @return the same length on the screen
+     */
+    public int scale(int designPixels)
+    {
+        return Math.round(designPixels * scale);
+    }
+
+    /**
+     * Free the memory of every resampled picture. (The FacePieces' own pictures are left alone.)
+     */
+    public void release()
+    {
+        releasePics();
+
+        if (locationPic != null)
+        {
+            locationPic.recycle();
+            locationPic = null;
+        }
+        location = null;
+    }
+
+    private void releasePics()
+    {
+        Iterator<FacePiece> iterator = pics.keySet().iterator();
+        while (iterator.hasNext())
+        {
+            FacePiece piece = iterator.next();
+            Bitmap pic = pics.get(piece);
+            if (pic != piece.getPic())
+            {
+                pic.recycle();
+            }
+        }
+        pics.clear();
+    }
+
+    //getter methods
+
+    public float getScale()
+    {
+        return scale;
+    }
+
+    /**
+     * @return the location at the size of the screen, or null if it hasn't been prepared
+     */
+    public Bitmap getLocationPic()
+    {
+        return locationPic;
+    }
+}
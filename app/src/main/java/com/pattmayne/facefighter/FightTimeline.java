@@ -0,0 +1,346 @@
+package com.pattmayne.facefighter;
+
+import java.util.Arrays;
+
+/**
+ * The clock of a Fight on the screen, and the list of everything which is waiting to happen on it
+ * ("resolve the Turn in 2.17 seconds", "stop showing this announcement in 2.22 seconds").
+ *
+ * The clock only moves when advance is called (the FightView does this on every step of its game clock),
+ * and it moves speed times as fast as real time, or not at all while paused. So one setting speeds up or pauses a whole Fight.
+ *
+ * Waiting events are kept in a priority queue (a binary heap, in plain arrays) ordered by the time they are due,
+ * so each advance only looks at the events which are due instead of checking every countdown.
+ * Each Listener numbers its own events, and an event can only be waiting once: scheduling it again moves it.
+ *
+ * Events are scheduled from the UI Thread and fired on the FightView's render Thread, so every method is synchronized,
+ * and Listeners are called without holding the FightTimeline's lock.
+ *
+ * When nothing is waiting, the render Thread can sleep in waitForEvents, and scheduling an event (or wake) wakes it up.
+ */
+public class FightTimeline {
+
+    /**
+     * Receives the events it scheduled, when they are due.
+     */
+    public interface Listener
+    {
+        /**
+         * @param event the number the event was scheduled with
+         */
+        void onTimelineEvent(int event);
+    }
+
+    //variables
+    private long time = 0;
+    private int speed = 1;
+    private boolean paused = false;
+
+    //the heap of waiting events: due time, then the order they were scheduled in (so events due at the same time keep their order)
+    private int size = 0;
+    private long[] dueTimes = new long[16];
+    private long[] orders = new long[16];
+    private int[] events = new int[16];
+    private Listener[] listeners = new Listener[16];
+    private long scheduled = 0;
+
+    //counts every time an event is scheduled (or wake is called), so the render Thread can tell whether anything new happened
+    private long wakeCount = 0;
+
+    /**
+     * Make an event happen after a delay (on this clock). If the event is already waiting, it is moved.
+     * @param event
+     * @param delayMillis
+     * @param listener
+     */
+    public synchronized void schedule(int event, int delayMillis, Listener listener)
+    {
+        int index = indexOf(event, listener);
+        if (index != -1)
+        {
+            remove(index);
+        }
+
+        if (size == dueTimes.length)
+        {
+            int length = size * 2;
+            dueTimes = Arrays.copyOf(dueTimes, length);
+            orders = Arrays.copyOf(orders, length);
+            events = Arrays.copyOf(events, length);
+            listeners = Arrays.copyOf(listeners, length);
+        }
+
+        dueTimes[size] = time + Math.max(0, delayMillis);
+        orders[size] = scheduled++;
+        events[size] = event;
+        listeners[size] = listener;
+        size++;
+        siftUp(size - 1);
+
+        wake();
+    }
+
+    /**
+     * Stop an event from happening (if it's waiting).
+     * @param event
+     * @param listener
+     */
+    public synchronized void cancel(int event, Listener listener)
+    {
+        int index = indexOf(event, listener);
+        if (index != -1)
+        {
+            remove(index);
+        }
+    }
+
+    /**
+     * Stop every event of one Listener from happening.
+     * @param listener
+     */
+    public synchronized void cancelAll(Listener listener)
+    {
+        //Removing one at a time would sift other events into slots which were already checked,
+        //so keep every other Listener's events in one pass, then rebuild the heap.
+        int kept = 0;
+        for (int i=0; i<size; i++)
+        {
+            if (listeners[i] != listener)
+            {
+                move(i, kept);
+                kept++;
+            }
+        }
+
+        for (int i=kept; i<size; i++)
+        {
+            listeners[i] = null;
+        }
+        size = kept;
+
+        for (int i=size / 2 - 1; i>=0; i--)
+        {
+            siftDown(i);
+        }
+    }
+
+    public synchronized boolean isScheduled(int event, Listener listener)
+    {
+        return indexOf(event, listener) != -1;
+    }
+
+    /**
+     * Move the clock along, and fire every event which has become due (in the order they are due).
+     * @param realMillis how much real time has passed
+     * @return how much time passed on this clock
+     */
+    public int advance(int realMillis)
+    {
+        int millis;
+        synchronized (this) {
+            millis = paused ? 0 : realMillis * speed;
+            time += millis;
+        }
+
+        //Each event is taken off the queue before it fires, since a Listener may schedule more events.
+        while (true)
+        {
+            int event;
+            Listener listener;
+
+            synchronized (this) {
+                if (size == 0 || dueTimes[0] > time)
+                {
+                    break;
+                }
+
+                event = events[0];
+                listener = listeners[0];
+                remove(0);
+            }
+
+            listener.onTimelineEvent(event);
+        }
+
+        return millis;
+    }
+
+    /**
+     * Sleep until an event is scheduled, wake is called, or maxMillis passes (whichever comes first).
+     * If that already happened since sinceWakeCount was read, this returns straight away.
+     * @param sinceWakeCount what getWakeCount returned when the caller started waiting
+     * @param maxMillis how long to sleep, in real time
+     * @return true if something woke it up, false if the time ran out
+     */
+    public synchronized boolean waitForEvents(long sinceWakeCount, long maxMillis)
+    {
+        if (wakeCount == sinceWakeCount && maxMillis > 0)
+        {
+            try {
+                wait(maxMillis);
+            } catch (InterruptedException e) {
+                //just stop waiting
+            }
+        }
+
+        return wakeCount != sinceWakeCount;
+    }
+
+    /**
+     * Wake up waitForEvents, because there is something new to show.
+     */
+    public synchronized void wake()
+    {
+        wakeCount++;
+        notifyAll();
+    }
+
+    /**
+     * @param speed how many times faster than real time the clock moves (at least 1)
+     */
+    public synchronized void setSpeed(int speed)
+    {
+        this.speed = Math.max(1, speed);
+    }
+
+    public synchronized void pause()
+    {
+        paused = true;
+    }
+
+    public synchronized void resume()
+    {
+        paused = false;
+    }
+
+    //The heap
+
+    private int indexOf(int event, Listener listener)
+    {
+        for (int i=0; i<size; i++)
+        {
+            if (events[i] == event && listeners[i] == listener)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void remove(int index)
+    {
+        size--;
+        if (index != size)
+        {
+            move(size, index);
+            siftDown(index);
+            siftUp(index);
+        }
+        listeners[size] = null;
+    }
+
+    private boolean isEarlier(int a, int b)
+    {
+        return dueTimes[a] < dueTimes[b] || (dueTimes[a] == dueTimes[b] && orders[a] < orders[b]);
+    }
+
+    private void siftUp(int index)
+    {
+        while (index > 0)
+        {
+            int parent = (index - 1) / 2;
+            if (!isEarlier(index, parent))
+            {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index)
+    {
+        while (true)
+        {
+            int earliest = index;
+            int left = index * 2 + 1;
+            int right = left + 1;
+
+            if (left < size && isEarlier(left, earliest))
+            {
+                earliest = left;
+            }
+            if (right < size && isEarlier(right, earliest))
+            {
+                earliest = right;
+            }
+            if (earliest == index)
+            {
+                return;
+            }
+
+            swap(index, earliest);
+            index = earliest;
+        }
+    }
+
+    private void move(int from, int to)
+    {
+        dueTimes[to] = dueTimes[from];
+        orders[to] = orders[from];
+        events[to] = events[from];
+        listeners[to] = listeners[from];
+    }
+
+    private void swap(int a, int b)
+    {
+        long dueTime = dueTimes[a];
+        dueTimes[a] = dueTimes[b];
+        dueTimes[b] = dueTime;
+
+        long order = orders[a];
+        orders[a] = orders[b];
+        orders[b] = order;
+
+        int event = events[a];
+        events[a] = events[b];
+        events[b] = event;
+
+        Listener listener = listeners[a];
+        listeners[a] = listeners[b];
+        listeners[b] = listener;
+    }
+
+    //getter methods
+
+    /**
+     * @return how many milliseconds have passed on this clock
+     */
+    public synchronized long getTime()
+    {
+        return time;
+    }
+
+    public synchronized int getSpeed()
+    {
+        return speed;
+    }
+
+    /**
+     * @return whether any event is waiting to happen
+     */
+    public synchronized boolean hasEvents()
+    {
+        return size > 0;
+    }
+
+    public synchronized long getWakeCount()
+    {
+        return wakeCount;
+    }
+
+    public synchronized boolean isPaused()
+    {
+        return paused;
+    }
+}
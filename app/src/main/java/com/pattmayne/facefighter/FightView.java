@@ -7,21 +7,95 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
 import android.util.AttributeSet;
-import android.view.View;
-
-import java.util.ArrayList;
+import android.view.MotionEvent;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
 
 /**
  * This class displays the visuals for every Fight.
  * It shows each Player's FaceCharacter (the user and their opponent), the location background,
  * and animates the battle.
  *
- * This View has its own built-in Thread which handles the animation.
+ * This View has its own render Thread which handles the animation.
  * That Thread is so important to the game that I decided to use this class to handle the game's timing (countdowns between sequential events).
+ *
+ * The game's timing runs on a clock of fixed TICK_MILLIS steps, separate from drawing.
+ * Every countdown is an event on a FightTimeline, in milliseconds, so a Fight takes the same time on a 30, 60 or 120 Hz screen,
+ * and when a frame is slow the clock catches up with extra steps instead of slowing the Fight down.
+ * The Fight schedules its own events (which it handles on the UI Thread), and this View schedules the end of each announcement.
+ * Everything the two Threads share is guarded by one lock.
+ *
+ * Nothing is placed in screen pixels: the layout is in fractions of the screen, and FacePieces are placed in design pixels.
+ * When the Surface's size is known, every picture is resampled once to fit it (by a FightSprites), so each frame is drawn 1:1.
+ *
+ * When nothing is happening (no event waiting on the FightTimeline, and no replay playing) for IDLE_AFTER_MILLIS,
+ * for instance while the user decides which FacePiece to attack with, the FaceCharacters settle and the View goes idle:
+ * the clock stops and only one frame is drawn every IDLE_FRAME_MILLIS. The next event, or a touch, brings it back to full speed.
  * Created by Matt on 2014-11-02.
  */
-public class FightView extends View {
+public class FightView extends SurfaceView implements SurfaceHolder.Callback, FightTimeline.Listener {
+
+    //The game clock moves in steps of this many milliseconds, however often the screen is drawn.
+    private static final int TICK_MILLIS = 10;
+
+    //After a very slow frame (or a pause) the clock catches up by at most this much, and skips the rest.
+    private static final int MAX_CATCH_UP_MILLIS = 250;
+
+    //How long each announcement lasts, in milliseconds.
+    private static final int ANNOUNCEMENT_MILLIS = 2220;
+    private static final int DAMAGE_ANNOUNCEMENT_MILLIS = 4830;
+    private static final int HEALTH_BENEFIT_ANNOUNCEMENT_MILLIS = 4830;
+    private static final int FLASH_DAMAGED_PIECE_MILLIS = 2030;
+
+    //After this long with nothing happening, the View goes idle, and then draws a frame only this often.
+    private static final int IDLE_AFTER_MILLIS = 4000;
+    private static final int IDLE_FRAME_MILLIS = 500;
+
+    //When there is no Canvas to draw on, the render Thread tries again this often.
+    private static final int NO_CANVAS_RETRY_MILLIS = 50;
+
+    //The FaceCharacters move up or down one step this often.
+    private static final int CHARACTER_ANIMATION_MILLIS = 33;
+
+    //A flashing FacePiece is drawn for the first FLASH_VISIBLE_MILLIS of every FLASH_CYCLE_MILLIS.
+    private static final int FLASH_CYCLE_MILLIS = 220;
+    private static final int FLASH_VISIBLE_MILLIS = 100;
+
+    //The layout was designed on a screen DESIGN_WIDTH x DESIGN_HEIGHT pixels (where the antagonist started at 704, half way across).
+    //Everything is placed at a fraction of the real screen's width and height,
+    //and the FacePieces, text and offsets are scaled from design pixels by the same amount.
+    private static final int DESIGN_WIDTH = 1408;
+    private static final int DESIGN_HEIGHT = 800;
+
+    //where each FaceCharacter's zero-point goes, as fractions of the screen
+    private static final float HERO_X = 1f / DESIGN_WIDTH;
+    private static final float HERO_Y = -5f / DESIGN_HEIGHT;
+    private static final float ANTAGONIST_X = 0.5f;
+    private static final float ANTAGONIST_Y = -10f / DESIGN_HEIGHT;
+
+    //where the text goes, as fractions of the screen
+    private static final float TURN_TEXT_X = 1f / 7;
+    private static final float TURN_TEXT_Y = 70f / DESIGN_HEIGHT;
+    private static final float ANNOUNCEMENT_X = 1f / 3;
+    private static final float ANNOUNCEMENT_TOP_Y = 192f / DESIGN_HEIGHT;
+    private static final float ANNOUNCEMENT_MIDDLE_Y = 272f / DESIGN_HEIGHT;
+    private static final float ANNOUNCEMENT_BOTTOM_Y = 372f / DESIGN_HEIGHT;
+
+    //text sizes, in design pixels
+    private static final int TURN_TEXT_SIZE = 87;
+    private static final int ANNOUNCEMENT_TOP_SIZE = 77;
+    private static final int ANNOUNCEMENT_MIDDLE_SIZE = 55;
+    private static final int ANNOUNCEMENT_BOTTOM_SIZE = 74;
+    private static final int DAMAGE_TEXT_SIZE = 122;
+    private static final int HEALTH_BENEFIT_TEXT_SIZE = 142;
+
+    //the FightTimeline events which end each announcement
+    private static final int ANNOUNCEMENT_END = 0;
+    private static final int DAMAGE_ANNOUNCEMENT_END = 1;
+    private static final int HEALTH_BENEFIT_ANNOUNCEMENT_END = 2;
+    private static final int FLASH_DAMAGED_PIECE_END = 3;
 
     //variables
     //the antagonistPlayer is the "bad guy" who the user will fight.
@@ -37,48 +111,59 @@ public class FightView extends View {
 
     //character locations on the screen.
     //Each FacePiece will basically use this point as its zero-point, drawing itself relative to that point.
-    //These are the default points, but we choose more dynamic ones during initialization.
-    private int[] heroLocation = {14, 5};
-    private int[] antagonistLocation = {704, 5};
+    //They are worked out from the screen size, in layout.
+    private int[] heroLocation = {0, 0};
+    private int[] antagonistLocation = {0, 0};
+
+    //the size of the screen, and the pictures resampled to it
+    private int viewWidth = 0;
+    private int viewHeight = 0;
+    private boolean laidOut = false;
+    private FightSprites sprites = new FightSprites();
+
+    //sparks, debris and trails
+    private FightParticles particles = new FightParticles();
+    private float[] effectFrom = new float[2];
+    private float[] effectTo = new float[2];
+
+    //the render Thread, and the lock which it shares with the UI Thread
+    private RenderThread renderThread;
+    private final Object lock = new Object();
+
+    //the clock of the whole Fight
+    private FightTimeline timeline = new FightTimeline();
 
-    private boolean canvasSet = false;
+    //measures every frame, when FrameMetrics.ENABLED is switched on
+    private FrameMetrics frameMetrics = new FrameMetrics("FightView");
 
     //some variables to control the animation and movement of the FaceCharacter images
     private int locationAnimationTicker = 0;
     private boolean locationAnimationDirectionSwitch = true;
-    //"animationToggle" switches on/off for every thread iteration, so the animation is slower (it's too fast otherwise)
-    private boolean animationToggle = false;
+    //how far (in design pixels) the hero has bobbed down from its location, and the antagonist up
+    private int bobOffset = 0;
+    //"animationTimer" counts the milliseconds until the next step, so the animation is slower (it's too fast otherwise)
+    private int animationTimer = 0;
 
-    //these boolean variables can be switched on to temporarily display visual information,
-    //OR to allow a countdown and prepare the Fight object for the next sequence in the battle.
+    //these boolean variables can be switched on to temporarily display visual information.
+    //The FightTimeline switches them off again.
     private boolean timeToAnnounce = false;
-    private boolean showResponseMoves = false;
-    private boolean opponentResponseSwitch = false;
-    private boolean resolveTurn = false;
-    private boolean newTurn = false;
-    private boolean pauseNewTurn = false;
     private boolean announceDamage = false;
     private boolean announceHealthBenefit = false;
     private boolean flashDamagedPiece = false;
-    private boolean endgame = false;
     private boolean gameStarted = false;
 
-    //Lots of timers to temporarily display visual information,
-    //OR to countdown and prepare the Fight object for the next sequence in the battle.
-    private int endgameTimer = 0;
-    private int newTurnTimer = 0;
-    private int pauseNewTurnTimer = 0;
-    private int announcementTimer = 0;
-    private int responseTimer = 0;
-    private int resolveTurnTimer = 0;
-    private int damageAnnouncementTimer = 0;
-    private int healthBenefitAnnouncementTimer = 0;
-    private int countdownToResponsiveButtonsTimer = 0;
+    //how long nothing has been happening, and whether the View has gone idle because of it
+    private int quietMillis = 0;
+    private boolean idle = false;
+    private long idleWakeCount = 0;
+
+    //A FightReplay, if this FightView is showing a recorded Fight instead of a live one.
+    //The replay speed speeds up the FightTimeline, so the announcements keep up with the events.
+    private FightReplay replay;
+
     //When a FacePiece is damaged it will flash for a small amount of time.
-    //The flashDamagedPieceTimer counts down how long a piece will flash,
-    //while the Switch slows that animation down (otherwise it flashes too fast).
-    private int flashDamagedPieceTimer = 0;
-    private int flashDamagedPieceSwitch = 0;
+    //The flash started at this time on the FightTimeline, and each flash is measured from it.
+    private long flashDamagedPieceStart = 0;
 
     //The FightView needs to know how much damage and healthBenefit (bonus/absorbed HP) to display on-screen.
     //These variables hold that information.
@@ -93,10 +178,23 @@ public class FightView extends View {
     private String announcementMiddle = "null middle";
     private String announcementBottom = "null";
 
+    //The text on the screen is written into these buffers when it changes, so drawing it every frame creates no objects.
+    private TextBuffer turnText = new TextBuffer(32);
+    private TextBuffer heroDamageText = new TextBuffer(12);
+    private TextBuffer antagonistDamageText = new TextBuffer(12);
+    private TextBuffer heroHealthBenefitText = new TextBuffer(12);
+    private TextBuffer antagonistHealthBenefitText = new TextBuffer(12);
+
+    //Each style of text has its own Paint, set up once, so nothing is changed while drawing.
     private Paint paint;
+    private Paint turnPaint;
+    private Paint announcementTopPaint;
+    private Paint announcementMiddlePaint;
+    private Paint announcementBottomPaint;
+    private Paint damagePaint;
+    private Paint healthBenefitPaint;
     private Context context;
     private FightActivity fightActivity;
-    private int currentPlayerNameColor = getResources().getColor(R.color.thirdGreen);
 
     //These variables are specific to the drawCharacter method.
     //We declare them now so they don't have to constantly be re-declared.
@@ -104,8 +202,18 @@ public class FightView extends View {
     int y;
     int damageToAnnounce = 0;
     int healthBenefitToAnnounce = 0;
-    boolean drawPiece = true;
-    ArrayList<FacePiece> playerPieceList;
+    TextBuffer damageText;
+    TextBuffer healthBenefitText;
+    FaceComposite composite;
+    FaceComposite flashingComposite;
+    FacePiece damagedPiece;
+
+    //Each Player's FacePieces, drawn together onto one Bitmap,
+    //and the same again without the damaged piece (for the "off" part of each flash).
+    private FaceComposite heroComposite = new FaceComposite();
+    private FaceComposite heroFlashingComposite = new FaceComposite();
+    private FaceComposite antagonistComposite = new FaceComposite();
+    private FaceComposite antagonistFlashingComposite = new FaceComposite();
 
     //I put the constructors at the bottom to avoid clutter at the top.
     //They each call the instantiateVariables() method, and set the context variable.
@@ -118,15 +226,102 @@ public class FightView extends View {
         fightActivity = (FightActivity) context;
         Typeface tf = Typeface.create("Arial", Typeface.BOLD);
         paint.setTypeface(tf);
+
+        //(their sizes are set in layout, when the size of the screen is known)
+        turnPaint = makeTextPaint(tf, getResources().getColor(R.color.thirdGreen));
+        announcementTopPaint = makeTextPaint(tf, Color.BLACK);
+        announcementMiddlePaint = makeTextPaint(tf, Color.BLACK);
+        announcementBottomPaint = makeTextPaint(tf, Color.BLACK);
+        damagePaint = makeTextPaint(tf, Color.RED);
+        healthBenefitPaint = makeTextPaint(tf, getResources().getColor(R.color.yellow));
+
+        getHolder().addCallback(this);
+        }
+
+    private Paint makeTextPaint(Typeface typeface, int color)
+    {
+        Paint textPaint = new Paint();
+        textPaint.setTypeface(typeface);
+        textPaint.setColor(color);
+        return textPaint;
+    }
+
+    /**
+     * Place everything for a screen of this size, and resample the pictures to it.
+     * This happens once when the Surface is ready (and again if its size changes), never while drawing a frame.
+     * @param width
+     * @param height
+     */
+    private void layout(int width, int height)
+    {
+        viewWidth = width;
+        viewHeight = height;
+
+        //Keep the design's shape, so the FaceCharacters fit on the screen both ways.
+        float scale = Math.min(width / (float) DESIGN_WIDTH, height / (float) DESIGN_HEIGHT);
+        sprites.setScale(scale);
+        particles.setScale(scale);
+
+        heroLocation[0] = Math.round(HERO_X * width);
+        heroLocation[1] = Math.round(HERO_Y * height);
+        antagonistLocation[0] = Math.round(ANTAGONIST_X * width);
+        antagonistLocation[1] = Math.round(ANTAGONIST_Y * height);
+
+        turnPaint.setTextSize(TURN_TEXT_SIZE * scale);
+        announcementTopPaint.setTextSize(ANNOUNCEMENT_TOP_SIZE * scale);
+        announcementMiddlePaint.setTextSize(ANNOUNCEMENT_MIDDLE_SIZE * scale);
+        announcementBottomPaint.setTextSize(ANNOUNCEMENT_BOTTOM_SIZE * scale);
+        damagePaint.setTextSize(DAMAGE_TEXT_SIZE * scale);
+        healthBenefitPaint.setTextSize(HEALTH_BENEFIT_TEXT_SIZE * scale);
+
+        laidOut = true;
+        prepareSprites();
+    }
+
+    /**
+     * Resample whatever pictures we have so far (the Players and the location can arrive before or after the screen size).
+     */
+    private void prepareSprites()
+    {
+        if (!laidOut)
+        {
+            return;
+        }
+
+        if (heroPlayer != null)
+        {
+            sprites.prepare(heroPlayer);
+        }
+        if (antagonistPlayer != null)
+        {
+            sprites.prepare(antagonistPlayer);
         }
+        if (location != null)
+        {
+            sprites.prepareLocation(location, viewWidth, viewHeight);
+        }
+    }
+
+    /**
+     * The UI Thread holds this lock while it changes anything the render Thread draws
+     * (the Players' pieces, or a FightReplay), so a frame never shows half a change.
+     * @return
+     */
+    public Object getLock()
+    {
+        return lock;
+    }
 
     /**
      * This method sets the user's character as the heroPlayer.
      * @param heroPlayer
      */
     public void setHeroPlayer(Player heroPlayer) {
-        this.heroPlayer = heroPlayer;
-        startGame();
+        synchronized (lock) {
+            this.heroPlayer = heroPlayer;
+            prepareSprites();
+            startGame();
+        }
     }
 
     /**
@@ -134,18 +329,25 @@ public class FightView extends View {
      * @param antagonistPlayer
      */
     public void setAntagonistPlayer(Player antagonistPlayer) {
-        this.antagonistPlayer = antagonistPlayer;
-        startGame();
+        synchronized (lock) {
+            this.antagonistPlayer = antagonistPlayer;
+            prepareSprites();
+            startGame();
+        }
     }
 
     /**
      * set the background image / location.
+     * A SurfaceView can't show a View background, so the location is drawn at the start of every frame
+     * (from a copy which is already the size of the screen).
      * @param location
      */
     public void setLocation(Drawable location) {
-        this.location = location;
-        setBackground(location);
-        startGame();
+        synchronized (lock) {
+            this.location = location;
+            prepareSprites();
+            startGame();
+        }
     }
 
     /**
@@ -156,8 +358,11 @@ public class FightView extends View {
      */
     public void setCurrentPlayerName(String name)
     {
-        currentPlayerName = name;
-        startGame();
+        synchronized (lock) {
+            currentPlayerName = name;
+            turnText.clear().append(name).append("'s Turn");
+            startGame();
+        }
     }
 
     /**
@@ -172,151 +377,151 @@ public class FightView extends View {
     }
 
     /**
-     * This View object has a thread which constantly calls this onDraw method.
-     * For every iteration of the Thread, this method decides what information must be drawn onto the Canvas.
+     * The render Thread calls this method for every frame, to decide what information must be drawn onto the Canvas.
      * That includes all the FacePieces from each Player, plus the location (background) and any necessary text.
      *
      * This method checks many boolean conditions to decide what needs to be drawn.
+     * Nothing here moves the game along: that happens in update.
+     * Nothing here creates objects either: the text and Paints are all prepared when they change.
      * @param canvas
      */
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
+    private void drawFight(Canvas canvas) {
+
+        //Every frame is drawn from scratch, starting with the location.
+        Bitmap locationPic = sprites.getLocationPic();
+        if (locationPic != null)
+        {
+            canvas.drawBitmap(locationPic, 0, 0, null);
+        } else {
+            canvas.drawColor(Color.BLACK);
+        }
 
+        //Nothing has a place until we know the size of the screen.
+        if (!laidOut)
+        {
+            return;
+        }
 
         if (gameStarted) {
 
             //At the top of the screen, show the user whose turn it is.
-            paint.setColor(currentPlayerNameColor);
-            paint.setTextSize(87);
-            canvas.drawText(currentPlayerName + "'s Turn", (canvas.getWidth() / 7), 70, paint);
+            turnText.draw(canvas, TURN_TEXT_X * viewWidth, TURN_TEXT_Y * viewHeight, turnPaint);
         }
-        else if (!canvasSet)
-        {
-            //Before the game starts, set up the Players' locations
 
-            heroLocation[0] = 1;
-            heroLocation[1] = -5;
-
-            antagonistLocation[0] = canvas.getWidth() - (canvas.getWidth() / 2);
-            antagonistLocation[1] = -10;
-
-            canvasSet = true;
+        if (heroPlayer == null || antagonistPlayer == null)
+        {
+            return;
         }
 
         drawCharacter(canvas, heroPlayer);
         drawCharacter(canvas, antagonistPlayer);
 
+        particles.draw(canvas);
+
         //If there is information to display, display it.
         if (timeToAnnounce) {
-            paint.setColor(Color.BLACK);
-            paint.setTextSize(77);
-            canvas.drawText(announcementTop, (canvas.getWidth() / 3) - 4, 192, paint);
-            paint.setTextSize(55);
-            canvas.drawText(announcementMiddle, (canvas.getWidth()/3) + 11, 272, paint);
-            paint.setTextSize(74);
-            canvas.drawText(announcementBottom, (canvas.getWidth()/3) + 4, 372, paint);
-            announcementTimerTicker();
+            float announcementX = ANNOUNCEMENT_X * viewWidth;
+            canvas.drawText(announcementTop, announcementX - sprites.scale(4), ANNOUNCEMENT_TOP_Y * viewHeight, announcementTopPaint);
+            canvas.drawText(announcementMiddle, announcementX + sprites.scale(11), ANNOUNCEMENT_MIDDLE_Y * viewHeight, announcementMiddlePaint);
+            canvas.drawText(announcementBottom, announcementX + sprites.scale(4), ANNOUNCEMENT_BOTTOM_Y * viewHeight, announcementBottomPaint);
+        }
+    }
+
+    /**
+     * The render Thread calls this method once for every step of the game clock (TICK_MILLIS), however often frames are drawn.
+     * It moves the FightTimeline along (which fires whatever is due), and the animations.
+     */
+    private void update() {
+
+        int fightMillis = timeline.advance(TICK_MILLIS);
+
+        //A replay moves along by the same amount.
+        if (replay != null)
+        {
+            replay.tick(fightMillis);
         }
 
-        //Check other conditionals.
-        onDrawConditionals();
+        particles.update(fightMillis);
 
         //Move the FacePiece images to the next place in their constant animation.
         characterLocationAnimations();
 
-        //We must invalidate so that the Thread will call onDraw again upon the next iteration.
-        invalidate();
+        trackAnimation();
     }
 
     /**
-     * This method contains certain calls which may or may not be used, based on boolean conditions.
-     * These conditional methods decide which information must be displayed, plus when the next event of the Fight will occur.
-     * I put them in this separate method, merely to maintain the readability of the onDraw class.
+     * Decide whether anything is still happening on the screen.
+     * The View goes idle after IDLE_AFTER_MILLIS of quiet, but only when the FaceCharacters have come to rest
+     * (at the end of a bob), so they don't freeze halfway through a movement.
      */
-    private void onDrawConditionals() {
-
-        //when the opponent attacks,
-        //the user has a short time period to press a button and initiate a responsive move.
-        if (showResponseMoves) {
-            responseTimer--;
-            if (responseTimer <= 0) {
-                showResponseMoves = false;
-                fightActivity.hideButtons();
-                fightActivity.getFight().getTurn().resolveBattleSequence();
-            }
+    private void trackAnimation()
+    {
+        if (timeline.hasEvents() || particles.getCount() > 0 || (replay != null && replay.isPlaying() && !replay.isFinished()))
+        {
+            quietMillis = 0;
         }
-            //Wait a reasonable amount of time BEFORE showing the buttons
-        if (countdownToResponsiveButtonsTimer > 0)
+        else if (quietMillis < IDLE_AFTER_MILLIS)
         {
-            countdownToResponsiveButtonsTimer--;
-            if (countdownToResponsiveButtonsTimer == 0)
-            {
-                responsiveButtonsCountdown();
-            }
+            quietMillis += TICK_MILLIS;
         }
-
-        //When the user initiates an attack on their Turn,
-        //the opponent may make a response. This creates a countdown so the response happens after a reasonable amount of time.
-        if (opponentResponseSwitch) {
-            responseTimer--;
-            if (responseTimer <= 0) {
-                opponentResponseSwitch = false;
-                fightActivity.getFight().chooseAntagonistResponse();
-            }
+        else if (locationAnimationTicker == 0)
+        {
+            idle = true;
+            idleWakeCount = timeline.getWakeCount();
         }
+    }
 
-        //After all BattleMoves (attacks and responses) have been chosen,
-        //we countdown a reasonable amount of time before resolving and displaying their effects.
-        if (resolveTurn) {
-            resolveTurnTimer--;
-            if (resolveTurnTimer <= 0) {
-                resolveTurn = false;
-                fightActivity.getFight().getTurn().resolveBattleSequence();
-            }
-        }
+    /**
+     * Bring the View back to full speed from idle (after a touch, or when a replay starts playing).
+     */
+    public void wake()
+    {
+        timeline.wake();
+    }
 
-        //After the current Turn has been fully resolved,
-        //we wait a reasonable amount of time before beginning the next turn.
-        if (newTurn) {
-            newTurnTimer--;
-            if (newTurnTimer <= 0) {
-                newTurn = false;
-                fightActivity.getFight().nextTurn();
-            }
-        }
+    @Override
+    public boolean onTouchEvent(MotionEvent event)
+    {
+        wake();
+        return super.onTouchEvent(event);
+    }
 
-        //At the BEGINNING of each new turn, we wait a reasonable amount of time
-        //before the "bad guy" soundEffectPlayer can choose their attack.
-        //(Only used if it is NOT the user's Turn).
-        if (pauseNewTurn)
+    /**
+     * The FightTimeline calls this (during update) when an announcement is over.
+     * @param event
+     */
+    @Override
+    public void onTimelineEvent(int event)
+    {
+        switch (event)
         {
-            pauseNewTurnTimer--;
-            if (pauseNewTurnTimer <= 0)
-            {
-                pauseNewTurn = false;
-                fightActivity.getFight().chooseAntagonistAttack();
-            }
-        }
+            case ANNOUNCEMENT_END:
+                timeToAnnounce = false;
+                break;
 
-        //If the game is over and there is a winner and a loser,
-        //we wait a reasonable amount of time before we actually end the game.
-        if (endgame)
-        {
-            endgameTimer--;
-            if (endgameTimer <= 0)
-            {
-                endgame = false;
-                fightActivity.getFight().endgame();
-            }
+            case DAMAGE_ANNOUNCEMENT_END:
+                announceDamage = false;
+                flashDamagedPiece = false;
+                antagonistDamage = 0;
+                heroDamage = 0;
+                break;
+
+            case HEALTH_BENEFIT_ANNOUNCEMENT_END:
+                announceHealthBenefit = false;
+                break;
+
+            case FLASH_DAMAGED_PIECE_END:
+                flashDamagedPiece = false;
+                break;
         }
     }
 
     /**
-     * Draw each Bitmap image for each FacePiece.
-     * This method calls up all FacePiece objects from the appropriate Player,
-     * and paints their pictures in the right locations,
-     * unless they are flashing from damage.
+     * Draw the Player's FaceCharacter.
+     * All the FacePieces are already drawn together onto one Bitmap (a FaceComposite), so this is a single drawBitmap,
+     * which moves with the bobbing animation.
+     * While a damaged FacePiece is "flashing," for part of each flash we draw a second FaceComposite which leaves that piece out.
+     * (Each of them is only redrawn when a piece is destroyed, or when a different piece flashes.)
      * @param canvas
      * @param player
      */
@@ -325,37 +530,17 @@ public class FightView extends View {
         //Retrieve Player-specific information about what to draw, and where to draw it.
         setInformationToDraw(player);
 
-        //Take all that information and draw it!
-        for (int i = 0; i < playerPieceList.size(); i++) {
-            FacePiece piece = playerPieceList.get(i);
-            Bitmap pic = piece.getPic();
-            //pieceX and pieceY take user and opponent's start location and set each of their FacePiece objects relative to that.
-            int pieceX = x + piece.getPicLocation()[0];
-            int pieceY = y + piece.getPicLocation()[1];
-
-            drawPiece = true;
-
-            //conditions for when to NOT drawPiece (so we can have flashing damaged pieces)
-            //This has multiple layers of logic,
-            //because when a damaged FacePiece is "flashing," it must still be drawn for some of the iterations.
-            //(Otherwise it's not flashing... it would just be invisible).
-            if (flashDamagedPiece)
-            {
-                if (piece == damagedAntagonistPiece || piece == damagedHeroPiece)
-                {
-                    drawPiece = false;
-
-                    if (flashDamagedPieceSwitch < 6) {
-                        drawPiece = true;
-                    }
-                }
-            }
-
-            //This is the most important part of the method: where we draw the actual FacePiece on the canvas.
-            if (drawPiece)
-            {
-                canvas.drawBitmap(pic, pieceX, pieceY, paint);
-            }
+        //the FacePiece is only drawn during the first part of each flash.
+        //That means it is drawn slightly less than half the time,
+        // with a "draw / don't draw" phase lasting several frames.
+        if (flashDamagedPiece && damagedPiece != null
+                && (timeline.getTime() - flashDamagedPieceStart) % FLASH_CYCLE_MILLIS >= FLASH_VISIBLE_MILLIS)
+        {
+            flashingComposite.draw(canvas, player, damagedPiece, sprites, x, y, paint);
+        }
+        else
+        {
+            composite.draw(canvas, player, null, sprites, x, y, paint);
         }
 
         drawCharacterConditionals(canvas);
@@ -367,87 +552,66 @@ public class FightView extends View {
      */
     private void setInformationToDraw(Player player)
     {
-        playerPieceList = player.getPieces();
-
         if (player == antagonistPlayer) {
             x = antagonistLocation[0];
-            y = antagonistLocation[1];
+            y = antagonistLocation[1] - sprites.scale(bobOffset);
+            composite = antagonistComposite;
+            flashingComposite = antagonistFlashingComposite;
+            damagedPiece = damagedAntagonistPiece;
             damageToAnnounce = antagonistDamage;
             healthBenefitToAnnounce = antagonistHealthBenefit;
+            damageText = antagonistDamageText;
+            healthBenefitText = antagonistHealthBenefitText;
         } else if (player == heroPlayer) {
             x = heroLocation[0];
-            y = heroLocation[1];
+            y = heroLocation[1] + sprites.scale(bobOffset);
+            composite = heroComposite;
+            flashingComposite = heroFlashingComposite;
+            damagedPiece = damagedHeroPiece;
             damageToAnnounce = heroDamage;
             healthBenefitToAnnounce = heroHealthBenefit;
+            damageText = heroDamageText;
+            healthBenefitText = heroHealthBenefitText;
         } else {
             x = 0;
             y = 0;
+            damageToAnnounce = 0;
+            healthBenefitToAnnounce = 0;
+            composite = heroComposite;
+            flashingComposite = heroFlashingComposite;
+            damagedPiece = null;
         }
     }
 
     /**
-     * This is called on every iteration of the Thread to see if there is any Damage or HealthBenefit to display for either Player.
-     * ALSO, this checks to see if a FacePiece should flash to show damage.
+     * This is called for every frame to see if there is any Damage or HealthBenefit to display for either Player.
      * @param canvas
      */
     private void drawCharacterConditionals(Canvas canvas)
     {
         if (announceDamage && damageToAnnounce > 0)
         {
-            flashDamagedPieceTimer--;
-
-            //the flashDamagedPieceSwitch runs from 0 - 12,
-            // but the FacePiece is only drawn during 0 - 5.
-            //That means it is drawn slightly less than half the time,
-            // with a "draw / don't draw" phase lasting several iterations.
-            if (flashDamagedPieceTimer > 0) {
-                flashDamagedPieceSwitch++;
-            } else {flashDamagedPiece = false;}
-
-            if (flashDamagedPieceSwitch > 12)
-            {
-                flashDamagedPieceSwitch = 0;
-            }
-
             // Display visual information about damage inflicted, or HP absorbed.
-            damageAnnouncementTimer--;
-            paint.setTextSize(122);
-            paint.setColor(Color.RED);
-            canvas.drawText("-" + damageToAnnounce + " HP!", x + 5, y + 230, paint);
-
-            if (damageAnnouncementTimer <= 0)
-            {
-                announceDamage = false;
-                flashDamagedPiece = false;
-                antagonistDamage = 0;
-                heroDamage = 0;
-            }
+            damageText.draw(canvas, x + sprites.scale(5), y + sprites.scale(230), damagePaint);
         }
 
         if (announceHealthBenefit && healthBenefitToAnnounce > 0)
         {
-            healthBenefitAnnouncementTimer--;
-            paint.setTextSize(142);
-            paint.setColor(getResources().getColor(R.color.yellow));
-            canvas.drawText("+" + healthBenefitToAnnounce + " HP!", x + 37, y + 650, paint);
-
-            if (healthBenefitAnnouncementTimer <= 0)
-            {
-                announceHealthBenefit = false;
-            }
+            healthBenefitText.draw(canvas, x + sprites.scale(37), y + sprites.scale(650), healthBenefitPaint);
         }
     }
 
     /**
      * Decide whether the FaceCharacter image moves,
-     * based on a toggle-switch boolean.
-     * The FaceCharacter should only move half the time, to slow the animation down.
+     * based on a timer.
+     * The FaceCharacter only moves every CHARACTER_ANIMATION_MILLIS, to slow the animation down.
      */
     private void characterLocationAnimations() {
-        if (animationToggle) {
+        animationTimer += TICK_MILLIS;
+        if (animationTimer >= CHARACTER_ANIMATION_MILLIS) {
+            animationTimer -= CHARACTER_ANIMATION_MILLIS;
             changeCharacterLocations();
         }
-        animationToggle = !animationToggle;
     }
 
     //move the FaceCharacter image up or down, for a fun and active-looking animation
@@ -459,125 +623,361 @@ public class FightView extends View {
         }
 
         // While the user's FaceCharacter bobs up, their opponent should bob down.
-        heroLocation[1] += locationAnimationTicker;
-        antagonistLocation[1] -= locationAnimationTicker;
+        bobOffset += locationAnimationTicker;
 
         if (locationAnimationTicker == 5 || locationAnimationTicker == -5) {
             locationAnimationDirectionSwitch = !locationAnimationDirectionSwitch;
         }
     }
 
-    private void announcementTimerTicker() {
-        announcementTimer--;
-        if (announcementTimer == 0) {
-            timeToAnnounce = false;
-        }
-    }
-
-    //The following Countdown methods are called by other objects to initiate different countdowns.
-    //Those countdowns will either display important information to the user,
-    //or allow a reasonable amount of time to pass before initiating the next sequential event in the Fight.
+    //The following Countdown methods are called by other objects to display important information to the user for a while.
+    //(The Fight schedules its own countdowns on the FightTimeline.)
+    //They are called on the UI Thread, so they hold the lock while they change what the render Thread reads.
 
     /**
      * This method displays the most general announcements, with three levels of String text on top of each other.
      */
     public void makeAnnouncement(String announcementTop, String announcementMiddle, String announcementBottom) {
-        this.announcementTop = announcementTop;
-        this.announcementMiddle = announcementMiddle;
-        this.announcementBottom = announcementBottom;
-        timeToAnnounce = true;
-        announcementTimer = 133;
+        synchronized (lock) {
+            this.announcementTop = announcementTop;
+            this.announcementMiddle = announcementMiddle;
+            this.announcementBottom = announcementBottom;
+            timeToAnnounce = true;
+            timeline.schedule(ANNOUNCEMENT_END, ANNOUNCEMENT_MILLIS, this);
+        }
     }
 
-    //Wait a reasonable amount of time before the "bad guy" responds to the user's attack (BattleMove).
-    public void opponentResponseCountdown() {
-        responseTimer = 101;
-        opponentResponseSwitch = true;
-    }
+    /**
+     * This method allows the drawFight method to display any damage done to the characters, and animates the injured FacePieces.
+     * This method is called by other objects, telling the FightView what to display.
+     * @param heroDamage
+     * @param antagonistDamage
+     * @param heroPiece
+     * @param antagonistPiece
+     */
+    public void damageAnnouncementCountdown(int heroDamage, int antagonistDamage, FacePiece heroPiece, FacePiece antagonistPiece)
+    {
+        synchronized (lock) {
+            timeline.schedule(DAMAGE_ANNOUNCEMENT_END, DAMAGE_ANNOUNCEMENT_MILLIS, this);
+            announceDamage = true;
+            this.heroDamage = heroDamage;
+            this.antagonistDamage = antagonistDamage;
+            heroDamageText.clear().append('-').append(heroDamage).append(" HP!");
+            antagonistDamageText.clear().append('-').append(antagonistDamage).append(" HP!");
+            damagedAntagonistPiece = null;
+            damagedHeroPiece = null;
+
+            if (antagonistDamage > 0)
+            {
+                damagedAntagonistPiece = antagonistPiece;
+                flashDamagedPiecesCountdown();
+                sparks(antagonistPlayer, antagonistPiece, antagonistDamage);
+            }
 
-    //Wait a reasonable amount of time before resolving all the effects of this Turn's BattleMoves.
-    public void resolveTurnCountdown() {
-        resolveTurn = true;
-        resolveTurnTimer = 130;
+            if (heroDamage > 0)
+            {
+                damagedHeroPiece = heroPiece;
+                flashDamagedPiecesCountdown();
+                sparks(heroPlayer, heroPiece, heroDamage);
+            }
+        }
     }
 
-    //Wait a reasonable amount of time before starting the next Turn.
-    public void newTurnCountdown() {
-        newTurn = true;
-        newTurnTimer = 77;
+    public void healthBenefitAnnouncementCountdown(int heroHealthBenefit, int antagonistHealthBenefit)
+    {
+        synchronized (lock) {
+            timeline.schedule(HEALTH_BENEFIT_ANNOUNCEMENT_END, HEALTH_BENEFIT_ANNOUNCEMENT_MILLIS, this);
+            announceHealthBenefit = true;
+            this.heroHealthBenefit = heroHealthBenefit;
+            this.antagonistHealthBenefit = antagonistHealthBenefit;
+            heroHealthBenefitText.clear().append('+').append(heroHealthBenefit).append(" HP!");
+            antagonistHealthBenefitText.clear().append('+').append(antagonistHealthBenefit).append(" HP!");
+        }
     }
 
-    //Wait a reasonable amount of time before the user's responsive/defensive buttons are displayed.
-    public void countdownToResponsiveButtonCountdown()
+    //The following effect methods add particles around FacePieces. Like the Countdown methods, they are called on the UI Thread.
+
+    private void sparks(Player player, FacePiece piece, int damage)
     {
-        countdownToResponsiveButtonsTimer = 43;
+        if (findPieceCenter(player, piece, effectFrom))
+        {
+            particles.burst(FightParticles.SPARK, effectFrom[0], effectFrom[1], Math.min(60, 12 + damage * 4), 700);
+        }
     }
 
-    //Display the user's responsive/defensive buttons for a reasonable amount of time.
-    public void responsiveButtonsCountdown()
+    /**
+     * Break a destroyed FacePiece into falling debris.
+     * @param owner
+     * @param piece
+     */
+    public void pieceDestroyedEffect(Player owner, FacePiece piece)
     {
-        fightActivity.displayResponsiveButtons();
-        showResponseMoves = true;
-        responseTimer = 47;
+        synchronized (lock) {
+            if (findPieceCenter(owner, piece, effectFrom))
+            {
+                Bitmap pic = sprites.getPic(piece);
+                float halfWidth = (pic == null) ? 0 : pic.getWidth() / 2f;
+                float halfHeight = (pic == null) ? 0 : pic.getHeight() / 2f;
+                particles.shatter(effectFrom[0], effectFrom[1], halfWidth, halfHeight, 70);
+            }
+        }
     }
 
-    //Wait a reasonable amount of time at the start of a Turn before the action starts.
-    public void newTurnPauseCountdown()
+    /**
+     * Show HP flowing into an absorbent FacePiece (or into the piece which received the HP).
+     * @param owner
+     * @param piece
+     */
+    public void absorbEffect(Player owner, FacePiece piece)
     {
-        pauseNewTurn = true;
-        pauseNewTurnTimer = 169;
+        synchronized (lock) {
+            if (findPieceCenter(owner, piece, effectFrom))
+            {
+                particles.converge(FightParticles.ABSORB, effectFrom[0], effectFrom[1], 160, 40);
+            }
+        }
     }
 
-    public void endgameCountdown()
+    /**
+     * Show damage bouncing off a reflective FacePiece, back to the attacking piece.
+     * @param attacker
+     * @param attackingPiece
+     * @param defendingPiece
+     */
+    public void reflectEffect(Player attacker, FacePiece attackingPiece, FacePiece defendingPiece)
     {
-        endgameTimer = 140;
-        endgame = true;
+        synchronized (lock) {
+            if (findPieceCenter(attacker.getOpponent(), defendingPiece, effectFrom) && findPieceCenter(attacker, attackingPiece, effectTo))
+            {
+                particles.trail(FightParticles.REFLECT, effectFrom[0], effectFrom[1], effectTo[0], effectTo[1], 36);
+            }
+        }
     }
 
     /**
-     * This method allows the onDraw method to display any damage done to the characters, and animates the injured FacePieces.
-     * This method is called by other objects, telling the FightView what to display.
-     * @param heroDamage
-     * @param antagonistDamage
-     * @param heroPiece
-     * @param antagonistPiece
+     * Find the middle of a FacePiece's picture on the screen, where it is right now.
+     * @param player
+     * @param piece
+     * @param center receives x and y
+     * @return false if the FacePiece can't be found on the screen
      */
-    public void damageAnnouncementCountdown(int heroDamage, int antagonistDamage, FacePiece heroPiece, FacePiece antagonistPiece)
+    private boolean findPieceCenter(Player player, FacePiece piece, float[] center)
     {
-        damageAnnouncementTimer = 290;
-        announceDamage = true;
-        this.heroDamage = heroDamage;
-        this.antagonistDamage = antagonistDamage;
-        damagedAntagonistPiece = null;
-        damagedHeroPiece = null;
-
-        if (antagonistDamage > 0)
+        if (!laidOut || piece == null || player == null)
         {
-            damagedAntagonistPiece = antagonistPiece;
-            flashDamagedPiecesCountdown();
+            return false;
         }
 
-        if (heroDamage > 0)
+        int originX;
+        int originY;
+        if (player == heroPlayer)
         {
-            damagedHeroPiece = heroPiece;
-            flashDamagedPiecesCountdown();
+            originX = heroLocation[0];
+            originY = heroLocation[1] + sprites.scale(bobOffset);
+        }
+        else if (player == antagonistPlayer)
+        {
+            originX = antagonistLocation[0];
+            originY = antagonistLocation[1] - sprites.scale(bobOffset);
+        }
+        else
+        {
+            return false;
         }
-    }
 
-    public void healthBenefitAnnouncementCountdown(int heroHealthBenefit, int antagonistHealthBenefit)
-    {
-        healthBenefitAnnouncementTimer = 290;
-        announceHealthBenefit = true;
-        this.heroHealthBenefit = heroHealthBenefit;
-        this.antagonistHealthBenefit = antagonistHealthBenefit;
+        Bitmap pic = sprites.getPic(piece);
+        center[0] = originX + sprites.scale(piece.getPicLocation()[0]) + ((pic == null) ? 0 : pic.getWidth() / 2f);
+        center[1] = originY + sprites.scale(piece.getPicLocation()[1]) + ((pic == null) ? 0 : pic.getHeight() / 2f);
+        return true;
     }
 
     private void flashDamagedPiecesCountdown()
     {
-        flashDamagedPieceTimer = 122;
+        timeline.schedule(FLASH_DAMAGED_PIECE_END, FLASH_DAMAGED_PIECE_MILLIS, this);
+        flashDamagedPieceStart = timeline.getTime();
         flashDamagedPiece = true;
     }
 
+    /**
+     * Show a recorded Fight. The FightReplay is moved along on every step of the game clock, instead of waiting for the Fight object.
+     * @param replay
+     */
+    public void setReplay(FightReplay replay)
+    {
+        synchronized (lock) {
+            this.replay = replay;
+            replay.setFightView(this);
+        }
+    }
+
+    /**
+     * The whole Fight (or replay) runs speed times as fast, announcements and all.
+     * @param speed
+     */
+    public void setPlaybackSpeed(int speed)
+    {
+        timeline.setSpeed(speed);
+    }
+
+    /**
+     * The Fight's clock. Anything scheduled on it happens on the render Thread, during update.
+     * @return
+     */
+    public FightTimeline getTimeline()
+    {
+        return timeline;
+    }
+
+    /**
+     * Stop showing every announcement and damaged piece (for instance when a replay jumps to another Turn).
+     */
+    public void clearAnnouncements()
+    {
+        synchronized (lock) {
+            timeToAnnounce = false;
+            announceDamage = false;
+            announceHealthBenefit = false;
+            flashDamagedPiece = false;
+            timeline.cancelAll(this);
+            particles.clear();
+            heroDamage = 0;
+            antagonistDamage = 0;
+            damagedHeroPiece = null;
+            damagedAntagonistPiece = null;
+        }
+    }
+
+    //The render Thread lives exactly as long as the drawing Surface.
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        renderThread = new RenderThread(holder);
+        renderThread.start();
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        synchronized (lock) {
+            layout(width, height);
+        }
+        wake();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        //The Surface is gone once this method returns, so wait for the render Thread to stop drawing on it.
+        renderThread.finish();
+        renderThread = null;
+
+        heroComposite.release();
+        heroFlashingComposite.release();
+        antagonistComposite.release();
+        antagonistFlashingComposite.release();
+        sprites.release();
+
+        frameMetrics.save(context);
+    }
+
+    /**
+     * The render Thread runs the game clock and draws the frames.
+     * lockCanvas waits for the screen to be ready for the next frame, so the Thread draws exactly as often as the screen refreshes.
+     * Before each frame, the game clock runs as many TICK_MILLIS steps as the time which has passed.
+     * While the View is idle, the Thread sleeps between frames instead, and the clock doesn't count that time.
+     */
+    private class RenderThread extends Thread {
+
+        private SurfaceHolder holder;
+        private volatile boolean running = true;
+
+        public RenderThread(SurfaceHolder holder)
+        {
+            super("fight-view");
+            this.holder = holder;
+        }
+
+        @Override
+        public void run()
+        {
+            long lastTime = SystemClock.uptimeMillis();
+            long unusedMillis = 0;
+
+            while (running)
+            {
+                long now = SystemClock.uptimeMillis();
+                unusedMillis += Math.min(now - lastTime, MAX_CATCH_UP_MILLIS);
+                lastTime = now;
+
+                boolean sleep;
+                long sleepWakeCount;
+                synchronized (lock) {
+                    while (!idle && unusedMillis >= TICK_MILLIS)
+                    {
+                        update();
+                        unusedMillis -= TICK_MILLIS;
+                    }
+                    sleep = idle;
+                    sleepWakeCount = idleWakeCount;
+                }
+
+                Canvas canvas = holder.lockCanvas();
+                if (canvas == null)
+                {
+                    //The Surface isn't ready (or is going away), so lockCanvas didn't wait: wait a little before trying again.
+                    timeline.waitForEvents(timeline.getWakeCount(), NO_CANVAS_RETRY_MILLIS);
+                    continue;
+                }
+
+                try {
+                    synchronized (lock) {
+                        frameMetrics.beginFrame();
+                        drawFight(canvas);
+                        frameMetrics.endFrame();
+                        frameMetrics.drawOverlay(canvas);
+                    }
+                } finally {
+                    holder.unlockCanvasAndPost(canvas);
+                }
+
+                if (sleep && running)
+                {
+                    boolean woken = timeline.waitForEvents(sleepWakeCount, IDLE_FRAME_MILLIS);
+
+                    synchronized (lock) {
+                        if (woken)
+                        {
+                            idle = false;
+                            quietMillis = 0;
+                        }
+                    }
+
+                    lastTime = SystemClock.uptimeMillis();
+                    unusedMillis = 0;
+                    frameMetrics.skipInterval();
+                }
+            }
+        }
+
+        /**
+         * Stop the Thread, and wait until it has.
+         */
+        public void finish()
+        {
+            running = false;
+            timeline.wake();
+
+            boolean retry = true;
+            while (retry)
+            {
+                try {
+                    join();
+                    retry = false;
+                } catch (InterruptedException e) {
+                    //keep waiting
+                }
+            }
+        }
+    }
+
     //These three constructor methods are at the bottom just to avoid clutter at the top.
 
     public FightView(Context context) {
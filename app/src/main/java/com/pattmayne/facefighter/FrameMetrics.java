@@ -0,0 +1,318 @@
+package com.pattmayne.facefighter;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Debug;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Measures how long a View takes to draw each frame, how long passes between frames, how many frames were dropped,
+ * and how many times the garbage collector ran during a frame.
+ * This gives us numbers to compare when we change the drawing code, instead of just how smooth the game looks.
+ *
+ * It is switched off unless ENABLED is set to true (so the measuring code disappears from normal builds).
+ * Each View keeps one FrameMetrics, calls beginFrame and endFrame around its drawing, and drawOverlay to show the numbers on top.
+ * The last CAPACITY frames are kept in ring buffers (fixed arrays which are written over in a circle), so measuring allocates nothing,
+ * and dump writes them to a file.
+ */
+public class FrameMetrics {
+
+    //Switch this on to measure every custom View.
+    public static final boolean ENABLED = false;
+
+    //how many frames the ring buffers hold
+    public static final int CAPACITY = 240;
+
+    //The screen shows a frame this often (60 per second). A longer gap between frames means frames were dropped.
+    public static final long FRAME_NANOS = 16666667L;
+
+    //the dropped frame histogram counts gaps of 0, 1, 2 ... dropped frames, and the last bucket counts all the longer gaps
+    public static final int HISTOGRAM_SIZE = 8;
+
+    private static final long NANOS_PER_MICRO = 1000L;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    //variables
+    private String name;
+
+    //the ring buffers, and where the next frame goes in them
+    private long[] drawNanos = new long[CAPACITY];
+    private long[] intervalNanos = new long[CAPACITY];
+    private int[] gcCounts = new int[CAPACITY];
+    private int position = 0;
+    private int bufferedFrames = 0;
+
+    //totals since the FrameMetrics was made
+    private long frameCount = 0;
+    private int gcCount = 0;
+    private long[] droppedHistogram = new long[HISTOGRAM_SIZE];
+
+    //the frame being measured
+    private long frameStart = 0;
+    private long lastFrameStart = 0;
+    private long frameInterval = 0;
+    private int gcAtFrameStart = 0;
+
+    //the overlay
+    private Paint overlayPaint;
+    private Paint overlayBackgroundPaint;
+    private TextBuffer overlayText = new TextBuffer(64);
+
+    /**
+     * @param name which View is being measured (it goes at the top of the overlay and the dump)
+     */
+    public FrameMetrics(String name)
+    {
+        this.name = name;
+
+        overlayPaint = new Paint();
+        overlayPaint.setColor(Color.GREEN);
+        overlayPaint.setTextSize(26);
+        overlayBackgroundPaint = new Paint();
+        overlayBackgroundPaint.setColor(Color.BLACK);
+
+        if (ENABLED)
+        {
+            //the garbage collections are only counted while allocation counting is on
+            Debug.startAllocCounting();
+        }
+    }
+
+    /**
+     * Call this just before drawing a frame.
+     */
+    public void beginFrame()
+    {
+        if (!ENABLED)
+        {
+            return;
+        }
+
+        long now = System.nanoTime();
+        frameInterval = (lastFrameStart == 0) ? 0 : now - lastFrameStart;
+        lastFrameStart = now;
+        frameStart = now;
+        gcAtFrameStart = Debug.getGlobalGcInvocationCount();
+    }
+
+    /**
+     * Call this just after drawing a frame (before drawOverlay, so the overlay doesn't measure itself).
+     */
+    public void endFrame()
+    {
+        if (!ENABLED || frameStart == 0)
+        {
+            return;
+        }
+
+        record(System.nanoTime() - frameStart, frameInterval, Debug.getGlobalGcInvocationCount() - gcAtFrameStart);
+        frameStart = 0;
+    }
+
+    /**
+     * The View stopped drawing on purpose (for instance when it went idle), so the gap before the next frame isn't a dropped frame.
+     */
+    public void skipInterval()
+    {
+        lastFrameStart = 0;
+    }
+
+    /**
+     * Add one frame to the ring buffers and the totals.
+     * @param draw how long the frame took to draw
+     * @param interval how long since the frame before it started, or 0 if there was no frame before it
+     * @param gcs how many times the garbage collector ran during the frame
+     */
+    void record(long draw, long interval, int gcs)
+    {
+        drawNanos[position] = draw;
+        intervalNanos[position] = interval;
+        gcCounts[position] = gcs;
+        position = (position + 1) % CAPACITY;
+        bufferedFrames = Math.min(bufferedFrames + 1, CAPACITY);
+
+        frameCount++;
+        gcCount += gcs;
+
+        if (interval > 0)
+        {
+            droppedHistogram[droppedFrames(interval)]++;
+        }
+    }
+
+    /**
+     * How many frames the screen showed in a gap, apart from the one it should have shown (rounded to the nearest frame).
+     * @param interval
+     * @return from 0 to HISTOGRAM_SIZE - 1
+     */
+    private static int droppedFrames(long interval)
+    {
+        long frames = (interval + FRAME_NANOS / 2) / FRAME_NANOS;
+        return (int) Math.max(0, Math.min(HISTOGRAM_SIZE - 1, frames - 1));
+    }
+
+    /**
+     * Show the numbers in the top left corner of the Canvas.
+     * @param canvas
+     */
+    public void drawOverlay(Canvas canvas)
+    {
+        if (!ENABLED)
+        {
+            return;
+        }
+
+        float lineHeight = overlayPaint.getTextSize() + 4;
+        canvas.drawRect(0, 0, 520, lineHeight * 3 + 8, overlayBackgroundPaint);
+
+        overlayText.clear().append(name).append(" draw ");
+        appendMillis(overlayText, getAverageDrawNanos());
+        overlayText.append(" ms, max ");
+        appendMillis(overlayText, getMaxDrawNanos());
+        overlayText.append(" ms");
+        overlayText.draw(canvas, 6, lineHeight, overlayPaint);
+
+        long averageInterval = getAverageIntervalNanos();
+        overlayText.clear().append("fps ").append(averageInterval == 0 ? 0 : (int) (1000000000L / averageInterval))
+                .append(", frames ").append((int) frameCount).append(", gc ").append(gcCount);
+        overlayText.draw(canvas, 6, lineHeight * 2, overlayPaint);
+
+        overlayText.clear().append("dropped");
+        for (int dropped=1; dropped<HISTOGRAM_SIZE; dropped++)
+        {
+            overlayText.append(' ').append(dropped);
+            if (dropped == HISTOGRAM_SIZE - 1)
+            {
+                overlayText.append('+');
+            }
+            overlayText.append(':').append((int) droppedHistogram[dropped]);
+        }
+        overlayText.draw(canvas, 6, lineHeight * 3, overlayPaint);
+    }
+
+    private static void appendMillis(TextBuffer text, long nanos)
+    {
+        //milliseconds, with one decimal place
+        long tenths = (nanos + NANOS_PER_MILLI / 20) / (NANOS_PER_MILLI / 10);
+        text.append((int) (tenths / 10)).append('.').append((int) (tenths % 10));
+    }
+
+    /**
+     * Write the totals and every buffered frame (oldest first) to a text file.
+     * @param file
+     * @throws IOException
+     */
+    public void dump(File file) throws IOException
+    {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+
+        try {
+            writer.println(name);
+            writer.println("frames " + frameCount + ", gc " + gcCount);
+            writer.println("average draw " + (getAverageDrawNanos() / NANOS_PER_MICRO) + " us, max draw " + (getMaxDrawNanos() / NANOS_PER_MICRO) + " us");
+            writer.println("average interval " + (getAverageIntervalNanos() / NANOS_PER_MICRO) + " us");
+
+            for (int dropped=0; dropped<HISTOGRAM_SIZE; dropped++)
+            {
+                writer.println("dropped " + dropped + (dropped == HISTOGRAM_SIZE - 1 ? "+" : "") + ": " + droppedHistogram[dropped]);
+            }
+
+            writer.println("draw_us,interval_us,gc");
+            for (int i=0; i<bufferedFrames; i++)
+            {
+                int index = (position - bufferedFrames + i + CAPACITY) % CAPACITY;
+                writer.println((drawNanos[index] / NANOS_PER_MICRO) + "," + (intervalNanos[index] / NANOS_PER_MICRO) + "," + gcCounts[index]);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * If measuring is switched on, dump to a file named after the View in the app's files directory.
+     * @param context
+     */
+    public void save(Context context)
+    {
+        if (!ENABLED)
+        {
+            return;
+        }
+
+        try {
+            dump(new File(context.getFilesDir(), "frames-" + name + ".txt"));
+        } catch (IOException e) {
+            //The numbers are only for developers, so losing them must never stop the game.
+        }
+    }
+
+    //getter methods (the averages and maximum are over the buffered frames)
+
+    public long getAverageDrawNanos()
+    {
+        if (bufferedFrames == 0)
+        {
+            return 0;
+        }
+
+        long total = 0;
+        for (int i=0; i<bufferedFrames; i++)
+        {
+            total += drawNanos[i];
+        }
+        return total / bufferedFrames;
+    }
+
+    public long getMaxDrawNanos()
+    {
+        long max = 0;
+        for (int i=0; i<bufferedFrames; i++)
+        {
+            max = Math.max(max, drawNanos[i]);
+        }
+        return max;
+    }
+
+    /**
+     * @return the average time between frames, not counting frames which had no frame before them
+     */
+    public long getAverageIntervalNanos()
+    {
+        long total = 0;
+        int intervals = 0;
+        for (int i=0; i<bufferedFrames; i++)
+        {
+            if (intervalNanos[i] > 0)
+            {
+                total += intervalNanos[i];
+                intervals++;
+            }
+        }
+        return (intervals == 0) ? 0 : total / intervals;
+    }
+
+    /**
+     * @param dropped from 0 to HISTOGRAM_SIZE - 1
+     * @return how many gaps between frames dropped that many frames (the last bucket counts all the longer gaps too)
+     */
+    public long getDroppedCount(int dropped)
+    {
+        return droppedHistogram[dropped];
+    }
+
+    public long getFrameCount()
+    {
+        return frameCount;
+    }
+
+    public int getGCCount()
+    {
+        return gcCount;
+    }
+}
@@ -0,0 +1,296 @@
+package com.pattmayne.facefighter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * The statistics of many simulated Fights between the same two FaceCharacters.
+ * The MatchupSimulator fills in one MatchupResult per batch of Fights, then merges the batches together.
+ *
+ * For each side we keep how many times each BattleMove was used and how much damage it did.
+ * Damage counts the HP taken from the opponent: an attack's damage to its victim, plus a reflective response's damage to the attacker.
+ */
+public class MatchupResult {
+
+    //z-score for a 95% confidence interval
+    private static final double Z_95 = 1.959964;
+
+    //variables
+    private String heroName;
+    private String antagonistName;
+
+    private int heroWins = 0;
+    private int antagonistWins = 0;
+    private int draws = 0;
+
+    //turnCounts[n] is the number of Fights which lasted n Turns.
+    private long[] turnCounts;
+
+    //Indexed by MoveRegistry ID: moves[id] = {uses, total damage}, or null if the BattleMove was never used
+    private long[][] heroMoves;
+    private long[][] antagonistMoves;
+
+    public MatchupResult(String heroName, String antagonistName, int maxTurns)
+    {
+        this.heroName = heroName;
+        this.antagonistName = antagonistName;
+
+        turnCounts = new long[maxTurns + 2];
+        heroMoves = new long[MoveRegistry.moveCount()][];
+        antagonistMoves = new long[MoveRegistry.moveCount()][];
+    }
+
+    /**
+     * Record the end of a Fight.
+     * @param heroWon
+     * @param antagonistWon if neither side won, the Fight was abandoned and counts as a draw
+     * @param turns
+     */
+    public void recordFight(boolean heroWon, boolean antagonistWon, int turns)
+    {
+        if (heroWon)
+        {
+            heroWins++;
+        } else if (antagonistWon)
+        {
+            antagonistWins++;
+        } else
+        {
+            draws++;
+        }
+
+        turnCounts[Math.min(turns, turnCounts.length - 1)]++;
+    }
+
+    public void recordMove(boolean hero, int moveID)
+    {
+        moveStats(hero, moveID)[0]++;
+    }
+
+    public void recordDamage(boolean hero, int moveID, int damage)
+    {
+        moveStats(hero, moveID)[1] += damage;
+    }
+
+    private long[] moveStats(boolean hero, int moveID)
+    {
+        if (hero)
+        {
+            heroMoves = makeRoom(heroMoves, moveID);
+        } else {
+            antagonistMoves = makeRoom(antagonistMoves, moveID);
+        }
+
+        long[][] moves = hero ? heroMoves : antagonistMoves;
+        if (moves[moveID] == null)
+        {
+            moves[moveID] = new long[2];
+        }
+
+        return moves[moveID];
+    }
+
+    //BattleMoves registered after this MatchupResult was created need a bigger array.
+    private static long[][] makeRoom(long[][] moves, int moveID)
+    {
+        if (moveID < moves.length)
+        {
+            return moves;
+        }
+
+        long[][] biggerMoves = new long[Math.max(moveID + 1, MoveRegistry.moveCount())][];
+        System.arraycopy(moves, 0, biggerMoves, 0, moves.length);
+        return biggerMoves;
+    }
+
+    /**
+     * Add another batch of Fights (between the same FaceCharacters) to this one.
+     * @param other
+     */
+    public void merge(MatchupResult other)
+    {
+        heroWins += other.heroWins;
+        antagonistWins += other.antagonistWins;
+        draws += other.draws;
+
+        for (int i=0; i<turnCounts.length && i<other.turnCounts.length; i++)
+        {
+            turnCounts[i] += other.turnCounts[i];
+        }
+
+        mergeMoves(true, other.heroMoves);
+        mergeMoves(false, other.antagonistMoves);
+    }
+
+    private void mergeMoves(boolean hero, long[][] otherMoves)
+    {
+        for (int id=0; id<otherMoves.length; id++)
+        {
+            if (otherMoves[id] != null)
+            {
+                long[] stats = moveStats(hero, id);
+                stats[0] += otherMoves[id][0];
+                stats[1] += otherMoves[id][1];
+            }
+        }
+    }
+
+    //Getter methods
+
+    public String getHeroName()
+    {
+        return heroName;
+    }
+
+    public String getAntagonistName()
+    {
+        return antagonistName;
+    }
+
+    public int getFights()
+    {
+        return heroWins + antagonistWins + draws;
+    }
+
+    public int getHeroWins()
+    {
+        return heroWins;
+    }
+
+    public int getAntagonistWins()
+    {
+        return antagonistWins;
+    }
+
+    public int getDraws()
+    {
+        return draws;
+    }
+
+    public double getHeroWinRate()
+    {
+        return getFights() == 0 ? 0 : (double) heroWins / getFights();
+    }
+
+    /**
+     * The 95% confidence interval of the hero's win rate (a Wilson score interval, which behaves well near 0% and 100%).
+     * @return {low, high}
+     */
+    public double[] getHeroWinRateInterval()
+    {
+        int n = getFights();
+        if (n == 0)
+        {
+            return new double[]{0, 1};
+        }
+
+        double p = getHeroWinRate();
+        double zz = Z_95 * Z_95;
+        double centre = (p + zz / (2 * n)) / (1 + zz / n);
+        double margin = (Z_95 / (1 + zz / n)) * Math.sqrt(p * (1 - p) / n + zz / (4.0 * n * n));
+
+        return new double[]{Math.max(0, centre - margin), Math.min(1, centre + margin)};
+    }
+
+    public long[] getTurnCounts()
+    {
+        return turnCounts;
+    }
+
+    public double getMeanTurns()
+    {
+        long total = 0;
+        for (int i=0; i<turnCounts.length; i++)
+        {
+            total += i * turnCounts[i];
+        }
+
+        return getFights() == 0 ? 0 : (double) total / getFights();
+    }
+
+    /**
+     * The number of Turns which a given fraction of the Fights finished within.
+     * @param fraction for instance 0.5 for the median
+     * @return
+     */
+    public int getTurnPercentile(double fraction)
+    {
+        long target = (long) Math.ceil(fraction * getFights());
+        long seen = 0;
+
+        for (int i=0; i<turnCounts.length; i++)
+        {
+            seen += turnCounts[i];
+            if (seen >= target && seen > 0)
+            {
+                return i;
+            }
+        }
+
+        return turnCounts.length - 1;
+    }
+
+    /**
+     * @param moveID
+     * @return {uses, total damage} of the hero's BattleMove
+     */
+    public long[] getHeroMove(int moveID)
+    {
+        return (moveID < heroMoves.length && heroMoves[moveID] != null) ? heroMoves[moveID] : new long[2];
+    }
+
+    /**
+     * @param moveID
+     * @return {uses, total damage} of the antagonist's BattleMove
+     */
+    public long[] getAntagonistMove(int moveID)
+    {
+        return (moveID < antagonistMoves.length && antagonistMoves[moveID] != null) ? antagonistMoves[moveID] : new long[2];
+    }
+
+    /**
+     * This method provides a String of information about the matchup, for the command line.
+     * @return
+     */
+    public String makeReportString()
+    {
+        double[] interval = getHeroWinRateInterval();
+
+        String report = heroName + " vs " + antagonistName + " (" + getFights() + " fights)";
+        report = report + "\n" + String.format("  %s wins: %d (%.2f%%, 95%% CI %.2f%% - %.2f%%)", heroName, heroWins,
+                100 * getHeroWinRate(), 100 * interval[0], 100 * interval[1]);
+        report = report + "\n" + "  " + antagonistName + " wins: " + antagonistWins;
+        report = report + "\n" + "  Draws: " + draws;
+        report = report + "\n" + String.format("  Turns: mean %.1f, median %d, 90th percentile %d, max %d",
+                getMeanTurns(), getTurnPercentile(0.5), getTurnPercentile(0.9), getTurnPercentile(1.0));
+        report = report + makeMovesString(heroName, heroMoves);
+        report = report + makeMovesString(antagonistName, antagonistMoves);
+
+        return report;
+    }
+
+    private String makeMovesString(String name, long[][] moves)
+    {
+        String movesString = "\n  " + name + " Battle Moves:";
+
+        //The IDs are only used to count. The report lists the BattleMoves by name.
+        ArrayList<String> names = new ArrayList<String>();
+        for (int id=0; id<moves.length; id++)
+        {
+            if (moves[id] != null)
+            {
+                names.add(MoveRegistry.moveName(id));
+            }
+        }
+        Collections.sort(names);
+
+        for (int i=0; i<names.size(); i++)
+        {
+            long[] stats = moves[MoveRegistry.moveID(names.get(i))];
+            double average = stats[0] == 0 ? 0 : (double) stats[1] / stats[0];
+            movesString = movesString + "\n" + String.format("    %-20s used %d times, %d damage (%.2f per use)", names.get(i), stats[0], stats[1], average);
+        }
+
+        return movesString;
+    }
+}
@@ -0,0 +1,274 @@
+package com.pattmayne.facefighter;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class runs many Fights between two FaceCharacters, as fast as possible, to find out how well they are balanced.
+ * The Fights run in a FightEngine without any screen, with both sides choosing BattleMoves like the computer-controlled antagonist.
+ *
+ * The Fights are split into fixed-size batches, each with its own seed split from the simulation's seed.
+ * The batches run on every core, then their MatchupResults are merged.
+ * Because the batches do not depend on the number of threads, the same seed always produces the same result.
+ *
+ * It can also be run from the command line (see main).
+ */
+public class MatchupSimulator {
+
+    private static final int BATCH_SIZE = 4096;
+
+    //variables
+    private int threads;
+
+    /**
+     * Create a MatchupSimulator which uses every core.
+     */
+    public MatchupSimulator()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public MatchupSimulator(int threads)
+    {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Run many Fights between the two FaceCharacters on all the threads.
+     * The FaceCharacters are only read, never changed, so they can be shared by every thread.
+     * @param hero
+     * @param antagonist
+     * @param fights
+     * @param seed
+     * @return
+     */
+    public MatchupResult simulate(final FaceCharacter hero, final FaceCharacter antagonist, int fights, long seed)
+    {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        FightRandom seedRandomizer = new FightRandom(seed);
+        ArrayList<Future<MatchupResult>> batches = new ArrayList<Future<MatchupResult>>();
+
+        try {
+            for (int start = 0; start < fights; start += BATCH_SIZE)
+            {
+                final int batchFights = Math.min(BATCH_SIZE, fights - start);
+                final long batchSeed = seedRandomizer.nextLong();
+
+                batches.add(pool.submit(new Callable<MatchupResult>() {
+                    @Override
+                    public MatchupResult call() {
+                        return simulateBatch(hero, antagonist, batchFights, batchSeed);
+                    }
+                }));
+            }
+
+            MatchupResult result = new MatchupResult(hero.getName(), antagonist.getName(), FightEngine.DEFAULT_MAX_TURNS);
+            for (int i=0; i<batches.size(); i++)
+            {
+                result.merge(batches.get(i).get());
+            }
+
+            return result;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Run a batch of Fights on the calling thread, counting every BattleMove.
+     * @param hero
+     * @param antagonist
+     * @param fights
+     * @param seed
+     * @return
+     */
+    public static MatchupResult simulateBatch(FaceCharacter hero, FaceCharacter antagonist, int fights, long seed)
+    {
+        return simulateBatch(hero, antagonist, fights, seed, true);
+    }
+
+    /**
+     * Run a batch of Fights on the calling thread.
+     * @param hero
+     * @param antagonist
+     * @param fights
+     * @param seed
+     * @param countBattleMoves false to only count wins and Turns, which is quicker
+     * @return
+     */
+    public static MatchupResult simulateBatch(FaceCharacter hero, FaceCharacter antagonist, int fights, long seed, boolean countBattleMoves)
+    {
+        MatchupResult result = new MatchupResult(hero.getName(), antagonist.getName(), FightEngine.DEFAULT_MAX_TURNS);
+        FightRandom seedRandomizer = new FightRandom(seed);
+
+        //One FightEngine and one pair of Players play every Fight of the batch, restarting each time, so the batch creates no garbage.
+        Player heroPlayer = new Player(hero);
+        Player antagonistPlayer = new Player(antagonist);
+        FightEngine engine = new FightEngine(heroPlayer, antagonistPlayer, seed);
+        if (countBattleMoves)
+        {
+            engine.addListener(new StatisticsListener(result, heroPlayer));
+        }
+
+        for (int i=0; i<fights; i++)
+        {
+            engine.restart(seedRandomizer.nextLong());
+
+            Player winner = engine.playOut(FightEngine.DEFAULT_MAX_TURNS);
+            result.recordFight(winner == heroPlayer, winner == antagonistPlayer, engine.getTurnCount());
+        }
+
+        return result;
+    }
+
+    /**
+     * This FightListener counts the uses and the damage of every BattleMove.
+     */
+    private static class StatisticsListener implements FightListener {
+
+        private MatchupResult result;
+        private Player heroPlayer;
+        private int respondingSlot;
+
+        StatisticsListener(MatchupResult result, Player heroPlayer)
+        {
+            this.result = result;
+            this.heroPlayer = heroPlayer;
+        }
+
+        @Override
+        public void onTurnStarted(Player currentPlayer)
+        {
+            respondingSlot = -1;
+        }
+
+        @Override
+        public void onBattleMove(Player player, int slot, boolean response)
+        {
+            if (response)
+            {
+                respondingSlot = slot;
+            }
+            result.recordMove(player == heroPlayer, player.getMoveID(slot));
+        }
+
+        @Override
+        public void onDamage(Player attacker, int attackingSlot, int damageToAttackingPiece, int defendingSlot, int damageToDefendingPiece)
+        {
+            boolean heroAttacked = attacker == heroPlayer;
+            Player defender = attacker.getOpponent();
+            result.recordDamage(heroAttacked, attacker.getMoveID(attackingSlot), damageToDefendingPiece);
+
+            //Damage sent back at the attacker belongs to the reflective response (kamikaze attacks also hurt themselves, but that isn't the defender's doing).
+            if (defendingSlot == respondingSlot && defender.getState().isReflective(respondingSlot))
+            {
+                result.recordDamage(!heroAttacked, defender.getMoveID(respondingSlot), damageToAttackingPiece);
+            }
+        }
+
+        @Override
+        public void onEffectModifier(int modifier) {}
+
+        @Override
+        public void onHealthBenefit(Player attacker, int attackingHealthBenefit, int attackingSlot, int defendingHealthBenefit, int defendingSlot) {}
+
+        @Override
+        public void onPieceDestroyed(Player owner, int slot) {}
+
+        @Override
+        public void onPiecesRemoved() {}
+
+        @Override
+        public void onTurnFinished(boolean gameOver) {}
+    }
+
+    /**
+     * Build a FaceCharacter from a command line argument:
+     * either the name of an antagonist, or the names of FaceFactory pieces separated by commas, in layer order.
+     * @param description
+     * @return
+     */
+    static FaceCharacter findCharacter(String description)
+    {
+        int antagonist = AntagonistCatalog.find(description);
+        if (antagonist != -1)
+        {
+            return AntagonistCatalog.create(antagonist);
+        }
+
+        FaceFactory faceFactory = new FaceFactory();
+        String[] pieceNames = description.split(",");
+        for (int i=0; i<pieceNames.length; i++)
+        {
+            if (faceFactory.makePiece(pieceNames[i].trim(), i) == null)
+            {
+                throw new IllegalArgumentException("Unknown antagonist or face piece: " + pieceNames[i].trim());
+            }
+        }
+        faceFactory.setName("Hero");
+
+        return faceFactory.getCharacter();
+    }
+
+    /**
+     * Command line entry point, for balance-testing without a phone:
+     *
+     *   java -cp app-classes com.pattmayne.facefighter.MatchupSimulator fights hero antagonist [seed] [threads]
+     *
+     * hero is an antagonist name or a list of FaceFactory pieces, like "Blue Face,Laser Eyes,Big Teeth,Spiked Helmet,Spiked Tie,Mean Brows".
+     * antagonist is an antagonist name, or "all" to fight every antagonist in the AntagonistCatalog.
+     *
+     * Only the app's own compiled classes are needed on the classpath (no android.jar).
+     * The characters come from the AntagonistCatalog and a FaceFactory without a screen, whose FacePieces have no pictures,
+     * so none of the Android classes which FaceFactory, FaceCharacter and FacePiece mention are ever loaded.
+     * Keep it that way: anything Android in this path (even a field's type, like a Drawable array) stops these tools from starting.
+     * @param args
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 3)
+        {
+            System.err.println("usage: MatchupSimulator fights hero antagonist|all [seed] [threads]");
+            System.exit(2);
+        }
+
+        int fights = Integer.parseInt(args[0]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : FightRandom.newSeed();
+        MatchupSimulator simulator = args.length > 4 ? new MatchupSimulator(Integer.parseInt(args[4])) : new MatchupSimulator();
+
+        FaceCharacter hero = findCharacter(args[1]);
+
+        ArrayList<FaceCharacter> antagonists = new ArrayList<FaceCharacter>();
+        if (args[2].equalsIgnoreCase("all"))
+        {
+            for (int i=0; i<AntagonistCatalog.size(); i++)
+            {
+                antagonists.add(AntagonistCatalog.create(i));
+            }
+        } else {
+            antagonists.add(findCharacter(args[2]));
+        }
+
+        System.out.println("seed " + seed + ", " + simulator.threads + " threads");
+
+        for (int i=0; i<antagonists.size(); i++)
+        {
+            long startTime = System.nanoTime();
+            MatchupResult result = simulator.simulate(hero, antagonists.get(i), fights, seed);
+            long elapsed = (System.nanoTime() - startTime) / 1000000;
+
+            System.out.println(result.makeReportString());
+            System.out.println("  (" + elapsed + " ms)");
+        }
+    }
+}
@@ -0,0 +1,860 @@
+package com.pattmayne.facefighter;
+
+import java.util.Arrays;
+
+/**
+ * Works out the exact chance that the hero wins a Fight (and how many Turns it takes on average), without simulating anything,
+ * when both sides choose their BattleMoves like the FightEngine's computer-controlled Players.
+ *
+ * Every random decision in a Turn has only a few outcomes (the attacking weapon, the effect modifiers, whether and how the defender responds,
+ * the defending piece, and which pieces gain HP), so from any position we can list every next position with its exact probability.
+ * A position is the HP of every slot on both sides, the kamikaze slot of each side (if any) and whose Turn it is.
+ * Each position is packed into two longs and looked up in an open-addressing hash table of primitive keys, so every position is worked out once.
+ *
+ * Absorbed HP means a Fight can come back to a position it has already been in, so the positions don't simply form a tree.
+ * Instead we list every position that can be reached, then solve the probabilities of all of them together by repeated sweeps (Gauss-Seidel)
+ * until they stop changing.
+ *
+ * The number of positions grows very quickly with the number of pieces and their HP. A full Fight between two six-piece FaceCharacters
+ * (or any FaceCharacter with an absorbent piece, whose HP can keep growing) reaches many millions of positions,
+ * so every solve has a limit, and returns false when the limit is reached (use the MatchupSimulator for those).
+ * A solve also returns false if the sweeps never settle (a Fight which can go round in circles for a very long time),
+ * rather than give answers which haven't converged.
+ * Positions late in a Fight, with only a few pieces left, usually solve in a few milliseconds.
+ */
+public class MatchupSolver {
+
+    public static final int DEFAULT_MAX_POSITIONS = 2000000;
+
+    //The sweeps stop once no probability changes by more than this.
+    private static final double PRECISION = 1e-12;
+    public static final int DEFAULT_MAX_SWEEPS = 100000;
+
+    //Turn.effectModifier draws from every entry of its effectModifierArray except the last, so +2 never comes up.
+    private static final int MIN_MODIFIER = -2;
+    private static final int MAX_MODIFIER = 1;
+    private static final int MODIFIERS = MAX_MODIFIER - MIN_MODIFIER + 1;
+
+    //the number of bits which store a side's kamikaze slot (+1, so 0 means none)
+    private static final int KAMIKAZE_BITS = 4;
+
+    //outcomes of a Turn which end the Fight
+    private static final int HERO_WINS = -1;
+    private static final int ANTAGONIST_WINS = -2;
+
+    //variables
+
+    private BattleState heroTemplate;
+    private BattleState antagonistTemplate;
+
+    //The battle statistics of each side's slots (index MoveLog.HERO or MoveLog.ANTAGONIST)
+    private int[][] damage = new int[2][];
+    private int[][] armour = new int[2][];
+    private int[][] flags = new int[2][];
+    private int[] hpBits = new int[2];
+    private int[] maxHP = new int[2];
+
+    //every position found so far, by index
+    private int positionCount;
+    private long[] heroKeys;
+    private long[] antagonistKeys;
+
+    //the hash table: position index + 1, or 0 for an empty cell
+    private int[] table;
+
+    //the possible next positions of each position, and their probabilities
+    private int[] edgeStart;
+    private int edgeCount;
+    private int[] edgeTarget;
+    private double[] edgeProbability;
+    private double[] heroWinsNow;
+
+    //the answers
+    private double[] heroWinProbability;
+    private double[] expectedTurns;
+    private double matchupWinProbability;
+    private double matchupExpectedTurns;
+    private boolean capped;
+    private boolean converged;
+    private int maxSweeps = DEFAULT_MAX_SWEEPS;
+
+    //scratch space for listing the next positions of one position
+    private int[][] hp = new int[2][];
+    private int[][] nextHP = new int[2][];
+    private int[] kamikaze = new int[2];
+    private int[][] alive = new int[2][];
+    private int[] aliveCount = new int[2];
+    private int[] weapons;
+    private int[] responders;
+    private int[] nextTargets = new int[64];
+    private double[] nextProbabilities = new double[64];
+    private int[] nextTargetCells = new int[64];
+    private int[] nextCells = new int[1024];
+    private int nextCount;
+
+    /**
+     * @param hero
+     * @param antagonist
+     */
+    public MatchupSolver(FaceCharacter hero, FaceCharacter antagonist)
+    {
+        this(new BattleState(hero), new BattleState(antagonist));
+    }
+
+    /**
+     * @param heroTemplate the hero's BattleState before a Fight
+     * @param antagonistTemplate the antagonist's BattleState before a Fight
+     */
+    public MatchupSolver(BattleState heroTemplate, BattleState antagonistTemplate)
+    {
+        this.heroTemplate = heroTemplate;
+        this.antagonistTemplate = antagonistTemplate;
+        loadStatistics(MoveLog.HERO, heroTemplate);
+        loadStatistics(MoveLog.ANTAGONIST, antagonistTemplate);
+
+        int size = Math.max(heroTemplate.size(), antagonistTemplate.size());
+        weapons = new int[size];
+        responders = new int[size];
+    }
+
+    private void loadStatistics(int side, BattleState state)
+    {
+        int size = state.size();
+
+        //Each side's position has to fit in one long (with a bit to spare for whose Turn it is).
+        hpBits[side] = Math.min(16, (63 - 1 - KAMIKAZE_BITS) / Math.max(1, size));
+        if (hpBits[side] < 6 || size >= (1 << KAMIKAZE_BITS))
+        {
+            throw new IllegalArgumentException("The MatchupSolver can't handle a FaceCharacter with " + size + " pieces");
+        }
+        maxHP[side] = (1 << hpBits[side]) - 1;
+
+        damage[side] = new int[size];
+        armour[side] = new int[size];
+        flags[side] = new int[size];
+        hp[side] = new int[size];
+        nextHP[side] = new int[size];
+        alive[side] = new int[size];
+
+        for (int slot=0; slot<size; slot++)
+        {
+            damage[side][slot] = state.getDamage(slot);
+            armour[side][slot] = state.getArmour(slot);
+            flags[side][slot] = (state.isWeapon(slot) ? BattleState.WEAPON : 0)
+                    | (state.isResponsive(slot) ? BattleState.RESPONSIVE : 0)
+                    | (state.isReflective(slot) ? BattleState.REFLECTIVE : 0)
+                    | (state.isAbsorbent(slot) ? BattleState.ABSORBENT : 0);
+        }
+    }
+
+    /**
+     * Solve a whole Fight, where either side may get the first Turn.
+     * @param maxPositions give up after finding this many positions
+     * @return false if there were too many positions, or the sweeps didn't converge (see hasConverged)
+     */
+    public boolean solve(int maxPositions)
+    {
+        reset();
+
+        int heroFirst = startPosition(MoveLog.HERO, heroTemplate, antagonistTemplate);
+        int antagonistFirst = startPosition(MoveLog.ANTAGONIST, heroTemplate, antagonistTemplate);
+
+        if (!solvePositions(maxPositions))
+        {
+            return false;
+        }
+
+        matchupWinProbability = (heroWinProbability[heroFirst] + heroWinProbability[antagonistFirst]) / 2;
+        matchupExpectedTurns = (expectedTurns[heroFirst] + expectedTurns[antagonistFirst]) / 2;
+        return true;
+    }
+
+    /**
+     * Solve the rest of a Fight from the start of a Turn (for instance from a FightEngine, in the middle of a Fight).
+     * @param heroState
+     * @param antagonistState
+     * @param currentSide whose Turn is starting
+     * @param maxPositions give up after finding this many positions
+     * @return false if there were too many positions, or the sweeps didn't converge (see hasConverged)
+     */
+    public boolean solveFrom(BattleState heroState, BattleState antagonistState, int currentSide, int maxPositions)
+    {
+        reset();
+
+        int start = startPosition(currentSide, heroState, antagonistState);
+
+        if (!solvePositions(maxPositions))
+        {
+            return false;
+        }
+
+        matchupWinProbability = heroWinProbability[start];
+        matchupExpectedTurns = expectedTurns[start];
+        return true;
+    }
+
+    private void reset()
+    {
+        positionCount = 0;
+        heroKeys = new long[1024];
+        antagonistKeys = new long[1024];
+        table = new int[2048];
+
+        edgeStart = new int[1025];
+        edgeCount = 0;
+        edgeTarget = new int[8192];
+        edgeProbability = new double[8192];
+        heroWinsNow = new double[1024];
+
+        capped = false;
+        converged = false;
+    }
+
+    /**
+     * Add a starting position, from the two sides' BattleStates.
+     * @return the position's index
+     */
+    private int startPosition(int currentSide, BattleState heroState, BattleState antagonistState)
+    {
+        for (int side=0; side<2; side++)
+        {
+            BattleState state = (side == MoveLog.HERO) ? heroState : antagonistState;
+            kamikaze[side] = -1;
+
+            for (int slot=0; slot<nextHP[side].length; slot++)
+            {
+                boolean alive = state.isAlive(slot);
+                nextHP[side][slot] = alive ? Math.min(maxHP[side], state.getHP(slot)) : 0;
+
+                //A position can't hold a living piece with no HP (see resolve).
+                if (alive && state.getHP(slot) <= 0)
+                {
+                    capped = true;
+                }
+
+                if (alive && state.isKamikaze(slot))
+                {
+                    kamikaze[side] = slot;
+                }
+            }
+        }
+
+        if (heroState.getAliveCount() == 0 || antagonistState.getAliveCount() == 0)
+        {
+            throw new IllegalArgumentException("The Fight is already over");
+        }
+
+        return intern(pack(MoveLog.HERO, nextHP[MoveLog.HERO], kamikaze[MoveLog.HERO], 0),
+                pack(MoveLog.ANTAGONIST, nextHP[MoveLog.ANTAGONIST], kamikaze[MoveLog.ANTAGONIST], currentSide));
+    }
+
+    /**
+     * List every position reachable from the starting positions, then solve them all.
+     * @return false if there were too many positions, or the sweeps didn't converge
+     */
+    private boolean solvePositions(int maxPositions)
+    {
+        //Positions are listed in the order they're found, so working through them in order is a breadth-first search.
+        for (int position=0; position<positionCount; position++)
+        {
+            if (positionCount > maxPositions)
+            {
+                return false;
+            }
+
+            listNextPositions(position);
+        }
+
+        converged = sweep();
+        return converged;
+    }
+
+    /**
+     * Work out every possible outcome of the Turn which starts at this position, and store them as edges.
+     */
+    private void listNextPositions(int position)
+    {
+        int attacker = unpack(position);
+        int defender = 1 - attacker;
+        nextCount = 0;
+        double heroWins = 0;
+
+        //Choose the attacking piece, like FightEngine.chooseAttack: a random weapon, or a new kamikaze piece.
+        int weaponCount = 0;
+        for (int i=0; i<aliveCount[attacker]; i++)
+        {
+            int slot = alive[attacker][i];
+            if (is(attacker, slot, BattleState.WEAPON))
+            {
+                weapons[weaponCount++] = slot;
+            }
+        }
+
+        if (weaponCount == 0)
+        {
+            kamikaze[attacker] = chooseKamikazeSlot(attacker);
+            weapons[weaponCount++] = kamikaze[attacker];
+        }
+
+        int responderCount = 0;
+        for (int i=0; i<aliveCount[defender]; i++)
+        {
+            int slot = alive[defender][i];
+            if (is(defender, slot, BattleState.RESPONSIVE))
+            {
+                responders[responderCount++] = slot;
+            }
+        }
+
+        for (int w=0; w<weaponCount; w++)
+        {
+            int attackingSlot = weapons[w];
+            int attackingDamage = damageOf(attacker, attackingSlot);
+
+            for (int modifier=MIN_MODIFIER; modifier<=MAX_MODIFIER; modifier++)
+            {
+                double probability = 1.0 / weaponCount / MODIFIERS;
+                int baseDamage = attackingDamage + modifier;
+
+                int attackingBenefit = 0;
+                int damageToAttacker = 0;
+                if (is(attacker, attackingSlot, BattleState.ABSORBENT))
+                {
+                    attackingBenefit = (baseDamage / 2) + 1;
+                } else if (attackingSlot == kamikaze[attacker])
+                {
+                    damageToAttacker = baseDamage / 2;
+                }
+
+                //The defender responds 2/3 of the time (if it can), with a random responsive piece.
+                double noResponse = (responderCount == 0) ? 1 : 1.0 / 3;
+
+                for (int r=0; r<responderCount; r++)
+                {
+                    int respondingSlot = responders[r];
+                    double responseProbability = probability * (2.0 / 3) / responderCount;
+
+                    if (is(defender, respondingSlot, BattleState.ABSORBENT))
+                    {
+                        for (int defenceModifier=MIN_MODIFIER; defenceModifier<=MAX_MODIFIER; defenceModifier++)
+                        {
+                            int damageToDefender = armourEffect(baseDamage, armour[defender][respondingSlot], defenceModifier);
+                            heroWins += resolve(attacker, responseProbability / MODIFIERS, attackingSlot, damageToAttacker, attackingBenefit,
+                                    respondingSlot, damageToDefender, attackingDamage - damageToDefender);
+                        }
+                    }
+                    else if (is(defender, respondingSlot, BattleState.REFLECTIVE))
+                    {
+                        for (int defenceModifier=MIN_MODIFIER; defenceModifier<=MAX_MODIFIER; defenceModifier++)
+                        {
+                            int damageToDefender = armourEffect(baseDamage, armour[defender][respondingSlot], defenceModifier) / 2;
+                            heroWins += resolve(attacker, responseProbability / MODIFIERS, attackingSlot, damageToAttacker + (attackingDamage - damageToDefender), attackingBenefit,
+                                    respondingSlot, damageToDefender, 0);
+                        }
+                    }
+                    else
+                    {
+                        heroWins += resolve(attacker, responseProbability, attackingSlot, damageToAttacker, attackingBenefit, respondingSlot, baseDamage, 0);
+                    }
+                }
+
+                //Without a response, a random piece is hit, and its armour counts.
+                for (int d=0; d<aliveCount[defender]; d++)
+                {
+                    int defendingSlot = alive[defender][d];
+                    for (int defenceModifier=MIN_MODIFIER; defenceModifier<=MAX_MODIFIER; defenceModifier++)
+                    {
+                        int damageToDefender = armourEffect(baseDamage, armour[defender][defendingSlot], defenceModifier);
+                        heroWins += resolve(attacker, probability * noResponse / aliveCount[defender] / MODIFIERS, attackingSlot, damageToAttacker, attackingBenefit,
+                                defendingSlot, damageToDefender, 0);
+                    }
+                }
+            }
+        }
+
+        storeEdges(position, heroWins);
+    }
+
+    /**
+     * Like Turn.resolveArmourEffect.
+     */
+    private static int armourEffect(int damage, int armour, int modifier)
+    {
+        return Math.max(2, (damage - armour) + modifier);
+    }
+
+    /**
+     * Like Player.makeKamikazePiece: the first neutral piece, or else the first piece.
+     */
+    private int chooseKamikazeSlot(int side)
+    {
+        for (int i=0; i<aliveCount[side]; i++)
+        {
+            int slot = alive[side][i];
+            if (!is(side, slot, BattleState.WEAPON) && !is(side, slot, BattleState.RESPONSIVE))
+            {
+                return slot;
+            }
+        }
+        return alive[side][0];
+    }
+
+    /**
+     * Spread one outcome over the pieces which might gain HP, and add each resulting position.
+     * @return the probability that the hero has won straight away
+     */
+    private double resolve(int attacker, double probability, int attackingSlot, int damageToAttacker, int attackingBenefit,
+                           int defendingSlot, int damageToDefender, int defendingBenefit)
+    {
+        int defender = 1 - attacker;
+        double heroWins = 0;
+
+        //Absorbed HP goes to a random piece of each side (the defender's is chosen first).
+        int defendingChoices = (defendingBenefit != 0) ? aliveCount[defender] : 1;
+        int attackingChoices = (attackingBenefit != 0) ? aliveCount[attacker] : 1;
+        double outcomeProbability = probability / defendingChoices / attackingChoices;
+
+        for (int db=0; db<defendingChoices; db++)
+        {
+            for (int ab=0; ab<attackingChoices; ab++)
+            {
+                System.arraycopy(hp[attacker], 0, nextHP[attacker], 0, hp[attacker].length);
+                System.arraycopy(hp[defender], 0, nextHP[defender], 0, hp[defender].length);
+
+                if (defendingBenefit != 0)
+                {
+                    nextHP[defender][alive[defender][db]] += defendingBenefit;
+                }
+                if (attackingBenefit != 0)
+                {
+                    nextHP[attacker][alive[attacker][ab]] += attackingBenefit;
+                }
+
+                //In the game, negative HP only kills the piece which is wounded (BattleState.sufferWound),
+                //but a position has no way to keep another piece alive with no HP, so it dies here and the answer is approximate.
+                if ((defendingBenefit < 0 && alive[defender][db] != defendingSlot && nextHP[defender][alive[defender][db]] <= 0)
+                        || (attackingBenefit < 0 && alive[attacker][ab] != attackingSlot && nextHP[attacker][alive[attacker][ab]] <= 0))
+                {
+                    capped = true;
+                }
+                nextHP[defender][defendingSlot] -= damageToDefender;
+                nextHP[attacker][attackingSlot] -= damageToAttacker;
+
+                boolean attackerDestroyed = clampHP(attacker);
+                boolean defenderDestroyed = clampHP(defender);
+
+                //Like Turn.removeDestroyedParts, the attacker is checked first.
+                int winner = -1;
+                if (attackerDestroyed)
+                {
+                    winner = defender;
+                } else if (defenderDestroyed)
+                {
+                    winner = attacker;
+                }
+
+                if (winner != -1)
+                {
+                    addNext(winner == MoveLog.HERO ? HERO_WINS : ANTAGONIST_WINS, outcomeProbability);
+                    if (winner == MoveLog.HERO)
+                    {
+                        heroWins += outcomeProbability;
+                    }
+                    continue;
+                }
+
+                int attackerKamikaze = (kamikaze[attacker] != -1 && nextHP[attacker][kamikaze[attacker]] > 0) ? kamikaze[attacker] : -1;
+                int defenderKamikaze = (kamikaze[defender] != -1 && nextHP[defender][kamikaze[defender]] > 0) ? kamikaze[defender] : -1;
+                int heroKamikaze = (attacker == MoveLog.HERO) ? attackerKamikaze : defenderKamikaze;
+                int antagonistKamikaze = (attacker == MoveLog.HERO) ? defenderKamikaze : attackerKamikaze;
+
+                int next = intern(pack(MoveLog.HERO, nextHP[MoveLog.HERO], heroKamikaze, 0),
+                        pack(MoveLog.ANTAGONIST, nextHP[MoveLog.ANTAGONIST], antagonistKamikaze, defender));
+                addNext(next, outcomeProbability);
+            }
+        }
+
+        return heroWins;
+    }
+
+    /**
+     * Dead pieces have 0 HP, and HP over the limit is cut down (which makes the answer approximate, see isExact).
+     * @return true if every piece on the side is dead
+     */
+    private boolean clampHP(int side)
+    {
+        boolean destroyed = true;
+
+        for (int slot=0; slot<nextHP[side].length; slot++)
+        {
+            if (nextHP[side][slot] <= 0)
+            {
+                nextHP[side][slot] = 0;
+            } else
+            {
+                destroyed = false;
+                if (nextHP[side][slot] > maxHP[side])
+                {
+                    nextHP[side][slot] = maxHP[side];
+                    capped = true;
+                }
+            }
+        }
+
+        return destroyed;
+    }
+
+    /**
+     * Add probability to one of the next positions (or the end of the Fight), combining repeats.
+     * Repeats are found with a small hash table, which is emptied again by storeEdges.
+     */
+    private void addNext(int target, double probability)
+    {
+        int mask = nextCells.length - 1;
+        int cell = nextCell(target, mask);
+
+        while (nextCells[cell] != 0)
+        {
+            int i = nextCells[cell] - 1;
+            if (nextTargets[i] == target)
+            {
+                nextProbabilities[i] += probability;
+                return;
+            }
+            cell = (cell + 1) & mask;
+        }
+
+        if (nextCount == nextTargets.length)
+        {
+            nextTargets = Arrays.copyOf(nextTargets, nextCount * 2);
+            nextProbabilities = Arrays.copyOf(nextProbabilities, nextCount * 2);
+            nextTargetCells = Arrays.copyOf(nextTargetCells, nextCount * 2);
+        }
+
+        nextTargets[nextCount] = target;
+        nextProbabilities[nextCount] = probability;
+        nextTargetCells[nextCount] = cell;
+        nextCount++;
+        nextCells[cell] = nextCount;
+
+        //Keep the table at most half full.
+        if (nextCount * 2 > nextCells.length)
+        {
+            nextCells = new int[nextCells.length * 2];
+            mask = nextCells.length - 1;
+            for (int i=0; i<nextCount; i++)
+            {
+                cell = nextCell(nextTargets[i], mask);
+                while (nextCells[cell] != 0)
+                {
+                    cell = (cell + 1) & mask;
+                }
+                nextCells[cell] = i + 1;
+                nextTargetCells[i] = cell;
+            }
+        }
+    }
+
+    private static int nextCell(int target, int mask)
+    {
+        int h = target * 0x9E3779B1;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void storeEdges(int position, double heroWins)
+    {
+        if (edgeCount + nextCount > edgeTarget.length)
+        {
+            int length = Math.max(edgeTarget.length * 2, edgeCount + nextCount);
+            edgeTarget = Arrays.copyOf(edgeTarget, length);
+            edgeProbability = Arrays.copyOf(edgeProbability, length);
+        }
+
+        heroWinsNow[position] = heroWins;
+        edgeStart[position] = edgeCount;
+
+        for (int i=0; i<nextCount; i++)
+        {
+            //Fight-ending outcomes are already counted in heroWinsNow.
+            nextCells[nextTargetCells[i]] = 0;
+
+            if (nextTargets[i] >= 0)
+            {
+                edgeTarget[edgeCount] = nextTargets[i];
+                edgeProbability[edgeCount] = nextProbabilities[i];
+                edgeCount++;
+            }
+        }
+
+        edgeStart[position + 1] = edgeCount;
+    }
+
+    /**
+     * Solve every position together: each one's win probability is the chance of winning this Turn plus the chances of its next positions.
+     * Later positions are usually nearer the end of the Fight, so sweeping backwards settles most of them in one sweep.
+     * @return false if the probabilities were still changing after maxSweeps sweeps
+     */
+    private boolean sweep()
+    {
+        heroWinProbability = new double[positionCount];
+        expectedTurns = new double[positionCount];
+
+        for (int sweeps=0; sweeps<maxSweeps; sweeps++)
+        {
+            double biggestChange = 0;
+
+            for (int position=positionCount - 1; position>=0; position--)
+            {
+                double win = heroWinsNow[position];
+                double turns = 1;
+
+                for (int e=edgeStart[position]; e<edgeStart[position + 1]; e++)
+                {
+                    win += edgeProbability[e] * heroWinProbability[edgeTarget[e]];
+                    turns += edgeProbability[e] * expectedTurns[edgeTarget[e]];
+                }
+
+                biggestChange = Math.max(biggestChange, Math.abs(win - heroWinProbability[position]));
+                biggestChange = Math.max(biggestChange, Math.abs(turns - expectedTurns[position]) / Math.max(1, turns));
+                heroWinProbability[position] = win;
+                expectedTurns[position] = turns;
+            }
+
+            if (biggestChange < PRECISION)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    //Packing positions into the hash table
+
+    /**
+     * One side's HP and kamikaze slot (and whose Turn it is, in the antagonist's long).
+     */
+    private long pack(int side, int[] sideHP, int kamikazeSlot, int currentSide)
+    {
+        long key = currentSide;
+        key = (key << KAMIKAZE_BITS) | (kamikazeSlot + 1);
+
+        for (int slot=0; slot<sideHP.length; slot++)
+        {
+            key = (key << hpBits[side]) | sideHP[slot];
+        }
+
+        return key;
+    }
+
+    /**
+     * Load a position into hp, kamikaze and alive.
+     * @return whose Turn it is
+     */
+    private int unpack(int position)
+    {
+        unpackSide(MoveLog.HERO, heroKeys[position]);
+        return unpackSide(MoveLog.ANTAGONIST, antagonistKeys[position]);
+    }
+
+    private int unpackSide(int side, long key)
+    {
+        int bits = hpBits[side];
+
+        for (int slot=hp[side].length - 1; slot>=0; slot--)
+        {
+            hp[side][slot] = (int) (key & maxHP[side]);
+            key >>>= bits;
+        }
+
+        kamikaze[side] = (int) (key & ((1 << KAMIKAZE_BITS) - 1)) - 1;
+        key >>>= KAMIKAZE_BITS;
+
+        aliveCount[side] = 0;
+        for (int slot=0; slot<hp[side].length; slot++)
+        {
+            if (hp[side][slot] > 0)
+            {
+                alive[side][aliveCount[side]++] = slot;
+            }
+        }
+
+        return (int) key;
+    }
+
+    /**
+     * Find a position in the hash table, adding it if it's new.
+     * @return the position's index
+     */
+    private int intern(long heroKey, long antagonistKey)
+    {
+        int mask = table.length - 1;
+        int cell = hash(heroKey, antagonistKey) & mask;
+
+        while (table[cell] != 0)
+        {
+            int position = table[cell] - 1;
+            if (heroKeys[position] == heroKey && antagonistKeys[position] == antagonistKey)
+            {
+                return position;
+            }
+            cell = (cell + 1) & mask;
+        }
+
+        int position = positionCount++;
+        if (position == heroKeys.length)
+        {
+            int length = heroKeys.length * 2;
+            heroKeys = Arrays.copyOf(heroKeys, length);
+            antagonistKeys = Arrays.copyOf(antagonistKeys, length);
+            heroWinsNow = Arrays.copyOf(heroWinsNow, length);
+            edgeStart = Arrays.copyOf(edgeStart, length + 1);
+        }
+        heroKeys[position] = heroKey;
+        antagonistKeys[position] = antagonistKey;
+        table[cell] = position + 1;
+
+        //Keep the table at most half full.
+        if (positionCount * 2 > table.length)
+        {
+            rehash();
+        }
+
+        return position;
+    }
+
+    private void rehash()
+    {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+
+        for (int position=0; position<positionCount; position++)
+        {
+            int cell = hash(heroKeys[position], antagonistKeys[position]) & mask;
+            while (table[cell] != 0)
+            {
+                cell = (cell + 1) & mask;
+            }
+            table[cell] = position + 1;
+        }
+    }
+
+    private static int hash(long heroKey, long antagonistKey)
+    {
+        long h = heroKey * 0x9E3779B97F4A7C15L + antagonistKey;
+        h ^= h >>> 32;
+        h *= 0xBF58476D1CE4E5B9L;
+        return (int) (h ^ (h >>> 29));
+    }
+
+    //Reading the statistics of a slot (a kamikaze piece is only a weapon, and always does the same damage)
+
+    private boolean is(int side, int slot, int flag)
+    {
+        if (slot == kamikaze[side])
+        {
+            return flag == BattleState.WEAPON;
+        }
+        return (flags[side][slot] & flag) != 0;
+    }
+
+    private int damageOf(int side, int slot)
+    {
+        return (slot == kamikaze[side]) ? BattleState.KAMIKAZE_DAMAGE : damage[side][slot];
+    }
+
+    /**
+     * Command line entry point, like the MatchupSimulator's:
+     *
+     *   MatchupSolver hero antagonist [maxPositions]
+     *
+     * hero and antagonist are antagonist names, or lists of FaceFactory pieces.
+     * Like the MatchupSimulator, it runs on a plain JVM with only the app's own classes.
+     * @param args
+     */
+    public static void main(String[] args)
+    {
+        if (args.length < 2)
+        {
+            System.err.println("usage: MatchupSolver hero antagonist [maxPositions]");
+            System.exit(2);
+        }
+
+        int maxPositions = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_POSITIONS;
+
+        FaceCharacter hero = MatchupSimulator.findCharacter(args[0]);
+        FaceCharacter antagonist = MatchupSimulator.findCharacter(args[1]);
+        MatchupSolver solver = new MatchupSolver(hero, antagonist);
+
+        long startTime = System.nanoTime();
+        boolean solved = solver.solve(maxPositions);
+        long elapsed = (System.nanoTime() - startTime) / 1000000;
+
+        if (!solved)
+        {
+            if (solver.getPositionCount() > maxPositions)
+            {
+                System.out.println("More than " + maxPositions + " positions, use the MatchupSimulator instead (" + elapsed + " ms)");
+            } else {
+                System.out.println("The probabilities didn't converge after " + DEFAULT_MAX_SWEEPS + " sweeps, use the MatchupSimulator instead (" + elapsed + " ms)");
+            }
+            return;
+        }
+
+        System.out.println(hero.getName() + " vs " + antagonist.getName() + (solver.isExact() ? "" : " (HP limit reached, not exact)"));
+        System.out.println("  " + hero.getName() + " wins: " + String.format("%.6f%%", solver.getHeroWinProbability() * 100));
+        System.out.println("  Turns: mean " + String.format("%.4f", solver.getExpectedTurns()));
+        System.out.println("  (" + solver.getPositionCount() + " positions, " + elapsed + " ms)");
+    }
+
+    //getter methods
+
+    /**
+     * @return the hero's chance of winning the last solved Fight
+     */
+    public double getHeroWinProbability()
+    {
+        return matchupWinProbability;
+    }
+
+    /**
+     * @return the average number of Turns in the last solved Fight
+     */
+    public double getExpectedTurns()
+    {
+        return matchupExpectedTurns;
+    }
+
+    /**
+     * @return how many positions the last solve found
+     */
+    public int getPositionCount()
+    {
+        return positionCount;
+    }
+
+    /**
+     * @return whether the last solve's sweeps settled (false if it gave up on too many positions before sweeping)
+     */
+    public boolean hasConverged()
+    {
+        return converged;
+    }
+
+    /**
+     * @param maxSweeps how many sweeps a solve may take before it gives up (DEFAULT_MAX_SWEEPS unless this is called)
+     */
+    public void setMaxSweeps(int maxSweeps)
+    {
+        this.maxSweeps = maxSweeps;
+    }
+
+    /**
+     * @return false if some piece's HP went over the limit which fits in a position, or a piece was left alive with no HP
+     * (so the answer is very slightly off)
+     */
+    public boolean isExact()
+    {
+        return !capped;
+    }
+}
@@ -0,0 +1,89 @@
+package com.pattmayne.facefighter;
+
+/**
+ * A compact record of every BattleMove made during a Fight.
+ * Each BattleMove is stored as a single int: which side made it, whether it was a response, and which slot (FacePiece) was used.
+ *
+ * A FightEngine's seed plus its MoveLog is enough to replay the Fight exactly (see FightEngine.replay),
+ * because the random numbers for effects and random pieces come from their own streams,
+ * whether the BattleMoves were chosen by the user or by the computer.
+ */
+public class MoveLog {
+
+    public static final int HERO = 0;
+    public static final int ANTAGONIST = 1;
+
+    private static final int RESPONSE_FLAG = 1 << 16;
+    private static final int ANTAGONIST_FLAG = 1 << 17;
+    private static final int SLOT_MASK = 0xffff;
+
+    //variables
+    private int[] moves;
+    private int size = 0;
+
+    public MoveLog()
+    {
+        this(32);
+    }
+
+    /**
+     * @param capacity the number of BattleMoves which can be recorded before the MoveLog has to grow
+     */
+    public MoveLog(int capacity)
+    {
+        moves = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Record a BattleMove.
+     * @param side HERO or ANTAGONIST
+     * @param response true if the BattleMove responded to an attack
+     * @param slot the slot of the FacePiece (its index in the FaceCharacter's list of pieces)
+     */
+    public void add(int side, boolean response, int slot)
+    {
+        if (size == moves.length)
+        {
+            int[] biggerMoves = new int[moves.length * 2];
+            System.arraycopy(moves, 0, biggerMoves, 0, size);
+            moves = biggerMoves;
+        }
+
+        int move = slot & SLOT_MASK;
+        if (response)
+        {
+            move |= RESPONSE_FLAG;
+        }
+        if (side == ANTAGONIST)
+        {
+            move |= ANTAGONIST_FLAG;
+        }
+
+        moves[size++] = move;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int getSide(int index)
+    {
+        return (moves[index] & ANTAGONIST_FLAG) != 0 ? ANTAGONIST : HERO;
+    }
+
+    public boolean isResponse(int index)
+    {
+        return (moves[index] & RESPONSE_FLAG) != 0;
+    }
+
+    public int getSlot(int index)
+    {
+        return moves[index] & SLOT_MASK;
+    }
+}
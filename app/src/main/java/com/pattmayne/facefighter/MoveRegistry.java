@@ -0,0 +1,120 @@
+package com.pattmayne.facefighter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Every kind of FacePiece and every BattleMove gets a small int ID, the first time its name is seen.
+ * The game logic only compares and indexes these IDs. The names are only for the screen (and the database).
+ *
+ * The built-in FacePiece types are registered first, in a fixed order, so their IDs never change and can be used as constants.
+ * Other names (antagonist pieces, custom BattleMoves) get the next free ID, which may differ from one run of the app to the next,
+ * so IDs must never be saved. Save the names instead.
+ *
+ * The registry is shared by every thread (the MatchupSimulator runs Fights on several at once), so every method is synchronized.
+ * That's fine because IDs are looked up when FacePieces are created, never during a Turn.
+ */
+public class MoveRegistry {
+
+    //BattleMove IDs which the game logic needs to know
+    public static final int NO_MOVE = 0;
+    public static final int KAMIKAZE_SMASH = 1;
+
+    //The built-in FacePiece types, which the FaceFactory makes (these must match the rows of the PieceCatalog)
+    public static final int BLUE_FACE = 0;
+    public static final int GREEN_FACE = 1;
+    public static final int LASER_EYES = 2;
+    public static final int CAT_EYES = 3;
+    public static final int COOL_SHADES = 4;
+    public static final int BIG_TEETH = 5;
+    public static final int HEAVY_METAL_TONGUE = 6;
+    public static final int SPIKED_HELMET = 7;
+    public static final int SPIKED_HAIR = 8;
+    public static final int STYLISH_TOP_HAT = 9;
+    public static final int MIGHTY_ABSORBENT_BEARD = 10;
+    public static final int SONIC_MOUSTACHE = 11;
+    public static final int SPIKED_TIE = 12;
+    public static final int CURIOUS_BROWS = 13;
+    public static final int MEAN_BROWS = 14;
+
+    public static final int BUILT_IN_PIECE_TYPES = PieceCatalog.NAMES.length;
+
+    //variables
+    private static final HashMap<String, Integer> moveIDs = new HashMap<String, Integer>();
+    private static final ArrayList<String> moveNames = new ArrayList<String>();
+
+    private static final HashMap<String, Integer> pieceTypeIDs = new HashMap<String, Integer>();
+    private static final ArrayList<String> pieceTypeNames = new ArrayList<String>();
+
+    static
+    {
+        register(moveIDs, moveNames, "none");
+        register(moveIDs, moveNames, "Kamikaze Smash");
+
+        //the built-in FacePiece types come first, in the order of the PieceCatalog's rows
+        for (int i=0; i<PieceCatalog.NAMES.length; i++)
+        {
+            register(pieceTypeIDs, pieceTypeNames, PieceCatalog.NAMES[i]);
+        }
+    }
+
+    private static int register(HashMap<String, Integer> ids, ArrayList<String> names, String name)
+    {
+        Integer id = ids.get(name);
+
+        if (id == null)
+        {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+        }
+
+        return id;
+    }
+
+    /**
+     * The ID of a BattleMove, registering it if it's new.
+     * @param name
+     * @return
+     */
+    public static synchronized int moveID(String name)
+    {
+        return register(moveIDs, moveNames, name);
+    }
+
+    public static synchronized String moveName(int id)
+    {
+        return moveNames.get(id);
+    }
+
+    public static synchronized int moveCount()
+    {
+        return moveNames.size();
+    }
+
+    /**
+     * The ID of a type of FacePiece, registering it if it's new.
+     * @param name
+     * @return
+     */
+    public static synchronized int pieceTypeID(String name)
+    {
+        return register(pieceTypeIDs, pieceTypeNames, name);
+    }
+
+    /**
+     * The ID of a type of FacePiece, without registering anything.
+     * @param name
+     * @return the ID, or -1 if there is no such type of FacePiece
+     */
+    public static synchronized int findPieceType(String name)
+    {
+        Integer id = pieceTypeIDs.get(name);
+        return (id == null) ? -1 : id;
+    }
+
+    public static synchronized String pieceTypeName(int id)
+    {
+        return pieceTypeNames.get(id);
+    }
+}
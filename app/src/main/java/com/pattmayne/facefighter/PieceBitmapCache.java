@@ -0,0 +1,92 @@
+package com.pattmayne.facefighter;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+
+/**
+ * One cache of decoded FacePiece pictures for the whole app, so that each picture is decoded once per session
+ * instead of every time a FaceFactory, FightInfo or Activity makes a FacePiece.
+ *
+ * Pictures are kept by resource ID and the screen density they were decoded for (the same resource is a different size on another density).
+ * The cache holds at most an eighth of the app's memory, and the least recently used pictures are dropped first.
+ *
+ * A cached picture is shared by every FacePiece which uses it, so nobody may recycle a FacePiece's picture.
+ * A picture which is dropped from the cache is simply forgotten (not recycled), since FacePieces may still be drawing it.
+ */
+public class PieceBitmapCache {
+
+    //variables
+    private static LruCache<Long, Bitmap> cache;
+
+    /**
+     * @param res
+     * @param resourceID
+     * @return the picture, decoded now only if it isn't already in the cache
+     */
+    public static synchronized Bitmap get(Resources res, int resourceID)
+    {
+        if (cache == null)
+        {
+            cache = new LruCache<Long, Bitmap>((int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8)) {
+                @Override
+                protected int sizeOf(Long key, Bitmap pic) {
+                    return pic.getByteCount();
+                }
+            };
+        }
+
+        Long key = key(resourceID, res.getDisplayMetrics().densityDpi);
+        Bitmap pic = cache.get(key);
+
+        if (pic == null)
+        {
+            pic = BitmapFactory.decodeResource(res, resourceID);
+            if (pic != null)
+            {
+                cache.put(key, pic);
+            }
+        }
+        return pic;
+    }
+
+    /**
+     * @param resourceID
+     * @param density
+     * @return the density in the top half and the resource ID in the bottom half
+     */
+    static long key(int resourceID, int density)
+    {
+        return ((long) density << 32) | (resourceID & 0xffffffffL);
+    }
+
+    /**
+     * Forget every picture (for instance when the system is low on memory). FacePieces which use them keep them.
+     */
+    public static synchronized void clear()
+    {
+        if (cache != null)
+        {
+            cache.evictAll();
+        }
+    }
+
+    //getter methods
+
+    /**
+     * @return how many times a picture was already in the cache
+     */
+    public static synchronized int getHitCount()
+    {
+        return (cache == null) ? 0 : cache.hitCount();
+    }
+
+    /**
+     * @return how many times a picture had to be decoded
+     */
+    public static synchronized int getMissCount()
+    {
+        return (cache == null) ? 0 : cache.missCount();
+    }
+}
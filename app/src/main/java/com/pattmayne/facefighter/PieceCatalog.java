@@ -0,0 +1,167 @@
+package com.pattmayne.facefighter;
+
+/**
+ * The table of built-in FacePiece types: one row per type, indexed by its MoveRegistry ID, and one array per column.
+ * The FaceFactory makes a built-in FacePiece by reading its row, so a new built-in FacePiece only needs a new row here
+ * (and its ID in the MoveRegistry), not a new method.
+ *
+ * The columns are plain arrays of ints, so the whole table is loaded with the class and every lookup is an array index.
+ */
+public class PieceCatalog {
+
+    //the flags column
+    public static final int WEAPON = 1;
+    public static final int RESPONSIVE = 2;
+    public static final int REFLECTIVE = 4;
+    public static final int ABSORBENT = 8;
+
+    //The categories, in the order the FaceBuilderActivity offers them: face, eyes, mouth, upper head piece, lower head piece (beard), and brows.
+    //A piece's category is also its layerPlacement.
+    public static final int CATEGORIES = 6;
+
+    //the columns (a built-in FacePiece which isn't a weapon has no damage, and the FacePiece's own defaults are 1 armour, 1 HP and 1 recharge time)
+    static final String[] NAMES = {
+            "Blue Face", "Green Face",
+            "Laser Eyes", "Cat Eyes", "Cool Shades",
+            "Big Teeth", "Heavy Metal Tongue",
+            "Spiked Helmet", "Spiked Hair", "Stylish Top Hat",
+            "Mighty Absorbent Beard", "Sonic Moustache", "Spiked Tie",
+            "Curious Brows", "Mean Brows"
+    };
+
+    static final int[] CATEGORY = {0, 0, 1, 1, 1, 2, 2, 3, 3, 3, 4, 4, 4, 5, 5};
+
+    static final int[] DRAWABLES = {
+            R.drawable.face_one, R.drawable.face_two,
+            R.drawable.eyes_laser, R.drawable.eyes_cat, R.drawable.eyes_shades,
+            R.drawable.mouth_bigteeth, R.drawable.mouth_metaltongue,
+            R.drawable.head_helmet, R.drawable.head_spikedhair, R.drawable.head_tophat,
+            R.drawable.beard_absorbent, R.drawable.beard_sonic, R.drawable.beard_spikedtie,
+            R.drawable.brow_curious, R.drawable.brow_mean
+    };
+
+    static final int[] HP =       {27, 27, 16, 18, 19, 11, 27, 19, 24, 21, 19, 13, 22, 1, 1};
+    static final int[] DAMAGE =   { 0,  0, 11,  9,  0, 13,  7,  0,  0,  0,  0, 13,  8, 0, 0};
+    static final int[] ARMOUR =   { 1,  1,  1,  1,  6,  1,  1,  6,  3,  4,  7,  1,  1, 1, 1};
+    static final int[] RECHARGE = { 1,  1,  1,  1,  1,  3,  1,  1,  1,  1,  1,  2,  1, 1, 1};
+
+    static final int[] FLAGS = {
+            0, 0,
+            WEAPON, WEAPON, RESPONSIVE | REFLECTIVE,
+            WEAPON, WEAPON,
+            0, 0, 0,
+            RESPONSIVE | ABSORBENT, WEAPON, WEAPON,
+            0, 0
+    };
+
+    static final String[] BATTLE_MOVES = {
+            "none", "none",
+            "Laser Burn", "Scratch", "Reflect Damage",
+            "Bite", "Tongue Lash",
+            "none", "none", "none",
+            "Absorb Damage", "Sonic Slice", "Stab",
+            "none", "none"
+    };
+
+    //the picture of any FacePiece which isn't built in
+    static final int UNKNOWN_DRAWABLE = R.drawable.beard_red;
+
+    /**
+     * @return how many built-in FacePiece types there are
+     */
+    public static int size()
+    {
+        return NAMES.length;
+    }
+
+    /**
+     * @param pieceType a MoveRegistry ID
+     * @return whether it is the ID of a built-in FacePiece type
+     */
+    public static boolean isBuiltIn(int pieceType)
+    {
+        return pieceType >= 0 && pieceType < NAMES.length;
+    }
+
+    /**
+     * @param pieceType a MoveRegistry ID
+     * @return the drawable of a built-in FacePiece type, or the placeholder picture for any other type
+     */
+    public static int drawable(int pieceType)
+    {
+        return isBuiltIn(pieceType) ? DRAWABLES[pieceType] : UNKNOWN_DRAWABLE;
+    }
+
+    /**
+     * Give a new FacePiece the battle properties of its row.
+     * @param piece
+     * @param pieceType a MoveRegistry ID of a built-in FacePiece type
+     */
+    public static void applyStats(FacePiece piece, int pieceType)
+    {
+        piece.setHP(HP[pieceType]);
+        piece.setDamage(DAMAGE[pieceType]);
+        piece.setArmour(ARMOUR[pieceType]);
+        piece.setRechargeTime(RECHARGE[pieceType]);
+        piece.setBattleMove(BATTLE_MOVES[pieceType]);
+
+        applyFlags(piece, FLAGS[pieceType]);
+    }
+
+    /**
+     * Make a FacePiece a weapon, responsive, reflective and/or absorbent.
+     * @param piece
+     * @param flags WEAPON, RESPONSIVE, REFLECTIVE and ABSORBENT, added together
+     */
+    static void applyFlags(FacePiece piece, int flags)
+    {
+        if ((flags & WEAPON) != 0)
+        {
+            piece.makeWeapon();
+        }
+        if ((flags & RESPONSIVE) != 0)
+        {
+            piece.makeResponsive();
+        }
+        if ((flags & REFLECTIVE) != 0)
+        {
+            piece.makeReflective();
+        }
+        if ((flags & ABSORBENT) != 0)
+        {
+            piece.makeAbsorbent();
+        }
+    }
+
+    /**
+     * @return the names of the built-in FacePiece types in each category, in the order of their IDs
+     */
+    public static String[][] namesByCategory()
+    {
+        String[][] names = new String[CATEGORIES][];
+
+        for (int category=0; category<CATEGORIES; category++)
+        {
+            int count = 0;
+            for (int i=0; i<NAMES.length; i++)
+            {
+                if (CATEGORY[i] == category)
+                {
+                    count++;
+                }
+            }
+
+            names[category] = new String[count];
+            count = 0;
+            for (int i=0; i<NAMES.length; i++)
+            {
+                if (CATEGORY[i] == category)
+                {
+                    names[category][count++] = NAMES[i];
+                }
+            }
+        }
+
+        return names;
+    }
+}
@@ -1,9 +1,6 @@
 package com.pattmayne.facefighter;
 
-import android.content.Context;
-
 import java.util.ArrayList;
-import java.util.Random;
 
 /**
  * A Player object is based on a FaceCharacter object. But while a FaceCharacter can be permanent, a Player only lives within the scope of one Fight.
@@ -14,13 +11,27 @@ public class Player {
 
     //variables
     private FaceCharacter character;
-    private ArrayList<FacePiece> pieces;
     private Player opponent;
     private String name;
     private boolean myTurn;
     private Turn currentTurn;
 
-    private Random randomizer;
+    //The battle statistics live in the BattleState, indexed by slot (the FacePiece's index in the FaceCharacter's list).
+    //The BattleState also keeps the alive slots indexed by role (weapons, responsive and neutral pieces).
+    //The FacePieces themselves are the FaceCharacter's own, and are only used for their pictures and names.
+    private BattleState template;
+    private BattleState state;
+    private FacePiece[] slotPieces;
+    private int[] moveIDs;
+
+    //The FacePieces which are still alive, in order, for the FightView and FightActivity.
+    private ArrayList<FacePiece> pieces;
+
+    //This goes up whenever that list changes, so the FightView knows when to redraw its FaceComposite.
+    private int piecesVersion = 0;
+
+    //The FightEngine provides this, so random pieces come from the Fight's own seed.
+    private FightRandom randomizer;
 
     /**
      * Create a new Player object based on a FaceCharacter object.
@@ -28,22 +39,78 @@ public class Player {
      */
     public Player(FaceCharacter character)
     {
-        randomizer = new Random();
+        this(character, new BattleState(character));
+    }
+
+    /**
+     * Create a new Player object based on a FaceCharacter object, copying a BattleState template which was built from the same FaceCharacter.
+     * Code which creates many Players from the same FaceCharacter (like the MatchupSimulator) builds the template once.
+     * @param character
+     * @param template
+     */
+    public Player(FaceCharacter character, BattleState template)
+    {
         this.name = character.getName();
         this.character = character;
-        pieces = new ArrayList<FacePiece>();
-        copyPieceList();
+        this.template = template;
+        state = new BattleState(template);
+
+        int size = character.getPieces().size();
+        slotPieces = new FacePiece[size];
+        moveIDs = new int[size];
+        pieces = new ArrayList<FacePiece>(size);
+
+        for (int slot=0; slot<size; slot++)
+        {
+            slotPieces[slot] = character.getPieces().get(slot);
+        }
+
+        reset();
+    }
+
+    /**
+     * Put the Player back the way it was before the Fight, without creating any objects.
+     * The FightEngine calls this whenever it (re)starts, so one pair of Players can fight over and over.
+     */
+    public void reset()
+    {
+        state.copyFrom(template);
+
+        for (int slot=0; slot<slotPieces.length; slot++)
+        {
+            moveIDs[slot] = slotPieces[slot].getMoveID();
+        }
+
+        listAlivePieces();
+
+        myTurn = false;
+        currentTurn = null;
     }
 
     /**
-     * Make a copy of the Character's pieceList, so the game can remove pieces from the Player's list without removing them from the Character's list.
-     * This makes NEW COPIES of every FacePiece so that their HP and other properties can be altered temporarily in the game.
+     * Put the Player into a BattleState which was saved during a Fight (a FightReplay keeps these to jump between Turns).
+     * A kamikaze piece gets its Kamikaze Smash back.
+     * @param saved
      */
-    private void copyPieceList()
+    public void restore(BattleState saved)
     {
-        for (int i=0; i<character.getPieces().size(); i++)
+        state.copyFrom(saved);
+
+        for (int slot=0; slot<slotPieces.length; slot++)
         {
-            pieces.add(character.getPieces().get(i).copy());
+            moveIDs[slot] = state.isKamikaze(slot) ? MoveRegistry.KAMIKAZE_SMASH : slotPieces[slot].getMoveID();
+        }
+
+        listAlivePieces();
+    }
+
+    private void listAlivePieces()
+    {
+        piecesVersion++;
+        pieces.clear();
+        for (int i=0; i<state.getAliveCount(); i++)
+        {
+            pieces.add(slotPieces[state.getAliveSlot(i)]);
         }
     }
 
@@ -52,6 +119,11 @@ public class Player {
         this.opponent = opponent;
     }
 
+    public void setRandomizer(FightRandom randomizer)
+    {
+        this.randomizer = randomizer;
+    }
+
     /**
      * This method gives the soundEffectPlayer the current Turn object, and tells the soundEffectPlayer whether it is their Turn.
      * @param myTurn
@@ -71,26 +143,49 @@ public class Player {
     /**
      * removes any dead pieces from the Player's list of pieces.
      * This will effect which pieces are drawn, and which buttons will appear on the user's screen
-     * @param fight
+     * @param engine
      */
-    public void removeDestroyedPieces(Fight fight)
+    public void removeDestroyedPieces(FightEngine engine)
     {
-        FacePiece destroyedPiece = null;
-
-        for (int i=0; i<pieces.size(); i++)
+        int i = 0;
+        while (i < state.getAliveCount())
         {
-            if (!pieces.get(i).isAlive()) {
-                destroyedPiece = pieces.get(i);
+            int slot = state.getAliveSlot(i);
+
+            if (!state.isAlive(slot)) {
+                state.removeAliveSlot(i);
+                pieces.remove(i);
+                piecesVersion++;
 
-                fight.announce(opponent.getName(), "Destroyed " + name + "'s", destroyedPiece.getName());
+                engine.pieceDestroyed(this, slot);
+            } else {
+                i++;
             }
         }
-        pieces.remove(destroyedPiece);
 
-        //If the last FacePiece has been destroyed, then the Player is destroyed, so the Fight object must be notified.
-        if (pieces.size() == 0)
+        //If the last FacePiece has been destroyed, then the Player is destroyed, so the FightEngine must be notified.
+        if (state.getAliveCount() == 0)
         {
-            fight.playerDestroyed(this);
+            engine.playerDestroyed(this);
+        }
+    }
+
+    /**
+     * Remove one destroyed piece, without asking the FightEngine.
+     * A FightReplay calls this, because it only repeats what the FightLog says and never runs the Turn logic.
+     * @param slot
+     */
+    public void removePiece(int slot)
+    {
+        for (int i=0; i<state.getAliveCount(); i++)
+        {
+            if (state.getAliveSlot(i) == slot)
+            {
+                state.removeAliveSlot(i);
+                pieces.remove(i);
+                piecesVersion++;
+                return;
+            }
         }
     }
 
@@ -98,42 +193,33 @@ public class Player {
      * This method turns a neutral (or defensive/responsive) FacePiece into a kamikaze piece.
      * It's only called when the Player has no more FacePieces that can initiate attacks.
      * This sets Smash as the new BattleMove.
-     * @return FacePiece
+     * @return the kamikaze slot, or -1 if the Player has no pieces left
      */
-    public FacePiece makeKamikazePiece()
+    public int makeKamikazePiece()
     {
-        FacePiece kamikazePiece = null;
+        int kamikazeSlot = -1;
 
         //First check to see if there are any completely neutral pieces which are neither weapons or responsive/defensive.
-        boolean searchForNeutralPiece = true;
-        for (int i=0; i< pieces.size(); i++)
+        if (state.getNeutralCount() > 0)
         {
-            if (searchForNeutralPiece) {
-                FacePiece piece = pieces.get(i);
-                if (!piece.isWeapon() && !piece.isResponsive()) {
-                    kamikazePiece = piece;
-                    searchForNeutralPiece = false;
-                }
-            }
+            kamikazeSlot = state.getNeutralSlot(0);
         }
 
         //If the only remaining FacePiece objects are responsive/defensive, just make the first piece on the list into a kamikazePiece.
-        if (kamikazePiece == null && pieces.size() > 0)
+        else if (state.getAliveCount() > 0)
         {
-            kamikazePiece = pieces.get(0);
+            kamikazeSlot = state.getAliveSlot(0);
         }
 
         //after a piece has been chosen, set it as the kamikazePiece and give it the Smash BattleMove.
-        if (kamikazePiece != null) {
-            kamikazePiece.setBattleMove("Kamikaze Smash");
-            kamikazePiece.makeKamikaze();
-            kamikazePiece.makeWeapon();
-            kamikazePiece.setDamage(7);
+        if (kamikazeSlot != -1) {
+            state.makeKamikaze(kamikazeSlot);
+            moveIDs[kamikazeSlot] = MoveRegistry.KAMIKAZE_SMASH;
         }
 
-        //At this point there is still a possibility that the kamikazePiece is null, so the calling method should account for that possibility.
+        //At this point there is still a possibility that there is no kamikaze slot, so the calling method should account for that possibility.
         //Although I have written the process so it will never happen...
-        return kamikazePiece;
+        return kamikazeSlot;
     }
 
 
@@ -148,30 +234,64 @@ public class Player {
         character.lose();
     }
 
+    //getter methods
+
     /**
-     * Save the FaceCharacter to the persistent database along with any changes to its properties.
-     * The only change should be either a win or a loss added to the FaceCharacter's stats.
-     * @param context
+     * The original FaceCharacter, so the Fight can save it once the battle is over.
+     * @return
      */
-    public void saveCharacter(Context context)
+    public FaceCharacter getCharacter()
     {
-        character.saveFaceToDB(context);
+        return character;
     }
 
-    //getter methods
-
     /**
      * A randomly chosen piece may be needed from a character during the fight.
      * This method provides that piece.
-     * @return
+     * @return the slot, or -1 if the Player has no pieces left
      */
-    public FacePiece getRandomPiece()
+    public int getRandomSlot()
     {
-        if (pieces.size() > 0) {
-            int randomPieceIndex = randomizer.nextInt(pieces.size());
-            return pieces.get(randomPieceIndex);
+        if (state.getAliveCount() > 0) {
+            return state.getAliveSlot(randomizer.nextInt(state.getAliveCount()));
         }
-        else return null;
+        else return -1;
+    }
+
+    public BattleState getState()
+    {
+        return state;
+    }
+
+    /**
+     * The FaceCharacter's FacePiece in this slot, for its picture and name.
+     * Its battle statistics are in the BattleState.
+     * @param slot
+     * @return
+     */
+    public FacePiece getPiece(int slot)
+    {
+        return slotPieces[slot];
+    }
+
+    /**
+     * The MoveRegistry ID of the slot's BattleMove, which changes if the piece becomes a kamikaze piece.
+     * @param slot
+     * @return
+     */
+    public int getMoveID(int slot)
+    {
+        return moveIDs[slot];
+    }
+
+    /**
+     * The name of the slot's BattleMove, for the screen.
+     * @param slot
+     * @return
+     */
+    public String getBattleMove(int slot)
+    {
+        return MoveRegistry.moveName(moveIDs[slot]);
     }
 
     public Turn getTurn()
@@ -189,8 +309,20 @@ public class Player {
         return name;
     }
 
+    /**
+     * The FacePieces which are still alive, for drawing.
+     * @return
+     */
     public ArrayList<FacePiece> getPieces()
     {
         return pieces;
     }
+
+    /**
+     * @return a number which changes whenever the list of pieces does
+     */
+    public int getPiecesVersion()
+    {
+        return piecesVersion;
+    }
 }
@@ -0,0 +1,109 @@
+package com.pattmayne.facefighter;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import java.util.Arrays;
+
+/**
+ * A line of text which can be changed and drawn over and over without creating any objects
+ * (unlike joining Strings, which makes a new String every time).
+ * The FightView fills these when an announcement changes, and only draws them on each frame.
+ */
+public class TextBuffer {
+
+    //variables
+    private char[] chars;
+    private int length = 0;
+
+    public TextBuffer(int capacity)
+    {
+        chars = new char[capacity];
+    }
+
+    public TextBuffer clear()
+    {
+        length = 0;
+        return this;
+    }
+
+    public TextBuffer append(String text)
+    {
+        int textLength = text.length();
+        ensureCapacity(length + textLength);
+        text.getChars(0, textLength, chars, length);
+        length += textLength;
+        return this;
+    }
+
+    public TextBuffer append(char c)
+    {
+        ensureCapacity(length + 1);
+        chars[length++] = c;
+        return this;
+    }
+
+    /**
+     * Append a number in decimal digits.
+     * @param number
+     * @return
+     */
+    public TextBuffer append(int number)
+    {
+        if (number < 0)
+        {
+            append('-');
+            //(the lowest int has no positive version, so count down from a negative one instead)
+        }
+        else
+        {
+            number = -number;
+        }
+
+        if (number > -10)
+        {
+            return append((char) ('0' - number));
+        }
+
+        int digits = 0;
+        for (int n=number; n!=0; n/=10)
+        {
+            digits++;
+        }
+
+        ensureCapacity(length + digits);
+        for (int i=length + digits - 1; i>=length; i--)
+        {
+            chars[i] = (char) ('0' - (number % 10));
+            number /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    public void draw(Canvas canvas, float x, float y, Paint paint)
+    {
+        canvas.drawText(chars, 0, length, x, y, paint);
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > chars.length)
+        {
+            chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+        }
+    }
+
+    //getter methods
+
+    public int length()
+    {
+        return length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new String(chars, 0, length);
+    }
+}
@@ -1,27 +1,30 @@
 package com.pattmayne.facefighter;
 
-import java.util.Random;
-
 /**
  * Created by Matt on 2014-11-04.
  * This is a turn-based game, and this class is the "Turn" class to resolve those turns.
  * During a Fight between two Player objects (each of which is based on a FaceCharacter object), the fight will proceed with a sequence of Turn objects.
  * An object of this class receives information about whose turn it is and which BattleMoves (attacks and defenses) have been chosen by the players.
- * After receiving the information, an object of this class does the computation for who gains and loses HP, and then lets the Fight initiate the next Turn.
+ * After receiving the information, an object of this class does the computation for who gains and loses HP, and then lets the FightEngine initiate the next Turn.
+ *
+ * A FightEngine only ever creates one Turn object, and restarts it (with start) for every Turn, so a Fight doesn't create garbage as it goes.
  */
 public class Turn {
 
     //variables
 
-    private Fight fight;
+    private FightEngine engine;
     private Player currentPlayer;
     private Player opponent;
     private BattleMove attackMove;
     private BattleMove defendMove;
     private boolean firstMove = true;
 
-    private FacePiece attackingPiece;
-    private FacePiece defendingPiece;
+    //The Turn works on the slots of the Players' BattleStates, not on FacePiece objects.
+    private BattleState attackingState;
+    private BattleState defendingState;
+    private int attackingSlot = -1;
+    private int defendingSlot = -1;
 
     private int damageToDefendingPiece = 0;
     private int damageToAttackingPiece = 0;
@@ -29,32 +32,59 @@ public class Turn {
     private int attackingAbsorbentBenefit = 0;
 
     private final int[] effectModifierArray = {-2, -1, 0, 1, 2};
-    private Random randomizer;
+    private FightRandom effectRandomizer;
+    private FightRandom pieceRandomizer;
+
+    /**
+     * Create the FightEngine's Turn object. It does nothing until start is called.
+     * The random numbers come from the FightEngine's streams, so the Turn can be replayed.
+     * @param engine
+     */
+    public Turn(FightEngine engine)
+    {
+        this.engine = engine;
+        effectRandomizer = engine.getEffectRandomizer();
+        pieceRandomizer = engine.getPieceRandomizer();
+        attackMove = new BattleMove();
+        defendMove = new BattleMove();
+    }
 
     /**
-     * Create a new Turn and do nothing else until a BattleMove has been made.
+     * Start a new Turn for the player, and do nothing else until a BattleMove has been made.
      * @param player
      */
-    public Turn(Player player, Fight fight)
+    public void start(Player player)
     {
-        randomizer = new Random();
-        this.fight = fight;
         currentPlayer = player;
         opponent = currentPlayer.getOpponent();
+        attackingState = currentPlayer.getState();
+        defendingState = opponent.getState();
+
+        firstMove = true;
+        attackingSlot = -1;
+        defendingSlot = -1;
+
+        damageToDefendingPiece = 0;
+        damageToAttackingPiece = 0;
+        defendingAbsorbentBenefit = 0;
+        attackingAbsorbentBenefit = 0;
     }
 
     /**
      * Each turn can have a first move and a responding/defensive move.
      * Both of those moves come through this public method, which directs them to either "firstMove" or "defendMove."
-     * @param move
+     * @param player
+     * @param slot the slot of the player's FacePiece which performs the BattleMove
      */
-    public void makeMove(BattleMove move) {
+    public void makeMove(Player player, int slot) {
         if (firstMove) {
             firstMove = false;
-            makeFirstMove(move);
+            attackMove.set(player, slot);
+            makeFirstMove(attackMove);
         } else
         {
-            makeDefendMove(move);
+            defendMove.set(player, slot);
+            makeDefendMove(defendMove);
         }
     }
 
@@ -65,14 +95,13 @@ public class Turn {
      */
     private void makeFirstMove(BattleMove move)
     {
-        attackMove = move;
-        attackingPiece = attackMove.getPiece();
-        damageToDefendingPiece = attackingPiece.getDamage() + effectModifier();
+        attackingSlot = move.getSlot();
+        damageToDefendingPiece = attackingState.getDamage(attackingSlot) + effectModifier();
 
-        if (attackingPiece.isAbsorbent())
+        if (attackingState.isAbsorbent(attackingSlot))
         {
             resolveAbsorbentAttack();
-        } else if (attackingPiece.isKamikaze())
+        } else if (attackingState.isKamikaze(attackingSlot))
         {
             resolveKamikazeAttack();
         }
@@ -99,13 +128,13 @@ public class Turn {
      */
     private void makeDefendMove(BattleMove move)
     {
-        defendingPiece = move.getPiece();
+        defendingSlot = move.getSlot();
 
-        if (defendingPiece.isAbsorbent())
+        if (defendingState.isAbsorbent(defendingSlot))
         {
             resolveAbsorbentDefense();
         }
-        else if (defendingPiece.isReflective())
+        else if (defendingState.isReflective(defendingSlot))
         {
             resolveReflectiveEffect();
         }
@@ -117,8 +146,8 @@ public class Turn {
      */
     private void resolveAbsorbentDefense()
     {
-        damageToDefendingPiece = resolveArmourEffect(damageToDefendingPiece, defendingPiece.getArmour());
-        defendingAbsorbentBenefit = (attackingPiece.getDamage() - damageToDefendingPiece);
+        damageToDefendingPiece = resolveArmourEffect(damageToDefendingPiece, defendingState.getArmour(defendingSlot));
+        defendingAbsorbentBenefit = (attackingState.getDamage(attackingSlot) - damageToDefendingPiece);
     }
 
     /**
@@ -127,8 +156,8 @@ public class Turn {
      */
     private void resolveReflectiveEffect()
     {
-        damageToDefendingPiece = resolveArmourEffect(damageToDefendingPiece, defendingPiece.getArmour()) / 2;
-        damageToAttackingPiece = damageToAttackingPiece + (attackingPiece.getDamage() - damageToDefendingPiece);
+        damageToDefendingPiece = resolveArmourEffect(damageToDefendingPiece, defendingState.getArmour(defendingSlot)) / 2;
+        damageToAttackingPiece = damageToAttackingPiece + (attackingState.getDamage(attackingSlot) - damageToDefendingPiece);
     }
 
     /**
@@ -152,37 +181,41 @@ public class Turn {
     /**
      * Once all the BattleMoves have been made, and the Turn object has calculated how much HP to subtract or add to different FacePiece objects,
      * this method is called to perform the actual addition and subtraction of HP.
-     * Then it tells the Fight object to finish the turn and prepare the next Turn object.
+     * Then it tells the FightEngine to finish the turn and prepare the next Turn object.
      */
     public void resolveBattleSequence()
     {
         //if there was only one BattleMove (attack) during this turn then no defending (victim) FacePiece has yet been chosen.
         //This conditional statement covers that possibility by assigning a randomly-chosen FacePiece from the CurrentPlayer's opponent.
-        if (defendingPiece == null)
+        if (defendingSlot == -1)
         {
             setDefendingPiece();
-            damageToDefendingPiece = resolveArmourEffect(damageToDefendingPiece, defendingPiece.getArmour());
+            damageToDefendingPiece = resolveArmourEffect(damageToDefendingPiece, defendingState.getArmour(defendingSlot));
         }
 
         //the defender receives HP from the absorbent piece... but the HP goes to a random piece rather than the defending piece.
+        int defendingBenefitSlot = -1;
         if (defendingAbsorbentBenefit != 0)
         {
-                opponent.getRandomPiece().receiveHP(defendingAbsorbentBenefit);
+                defendingBenefitSlot = opponent.getRandomSlot();
+                defendingState.receiveHP(defendingBenefitSlot, defendingAbsorbentBenefit);
         }
 
+        int attackingBenefitSlot = -1;
         if (attackingAbsorbentBenefit != 0) {
-            currentPlayer.getRandomPiece().receiveHP(attackingAbsorbentBenefit);
+            attackingBenefitSlot = currentPlayer.getRandomSlot();
+            attackingState.receiveHP(attackingBenefitSlot, attackingAbsorbentBenefit);
         }
 
-            defendingPiece.sufferWound(damageToDefendingPiece);
-            attackingPiece.sufferWound(damageToAttackingPiece);
+            defendingState.sufferWound(defendingSlot, damageToDefendingPiece);
+            attackingState.sufferWound(attackingSlot, damageToAttackingPiece);
 
         //These statements initiate an announcement to tell the user how much HP has been gained and lost for each Player.
-            fight.announceDamage(damageToDefendingPiece, damageToAttackingPiece, defendingPiece, attackingPiece);
+            engine.announceDamage(damageToDefendingPiece, damageToAttackingPiece, defendingSlot, attackingSlot);
             removeDestroyedParts();
 
-            if (attackingAbsorbentBenefit > 0 || defendingAbsorbentBenefit > 0) {
-                fight.announceHealthBenefit(attackingAbsorbentBenefit, defendingAbsorbentBenefit);
+            if (attackingAbsorbentBenefit != 0 || defendingAbsorbentBenefit != 0) {
+                engine.announceHealthBenefit(attackingAbsorbentBenefit, attackingBenefitSlot, defendingAbsorbentBenefit, defendingBenefitSlot);
         }
 
         defendingAbsorbentBenefit = 0;
@@ -191,7 +224,16 @@ public class Turn {
         damageToAttackingPiece = 0;
         damageToDefendingPiece = 0;
 
-        fight.finishTurn();
+        engine.finishTurn();
+    }
+
+    /**
+     * The slot of the attacking piece, or -1 if nobody has attacked yet.
+     * @return
+     */
+    public int getAttackingSlot()
+    {
+        return attackingSlot;
     }
 
     /**
@@ -200,8 +242,8 @@ public class Turn {
      */
     private void setDefendingPiece()
     {
-        int pieceIndex = randomizer.nextInt(opponent.getPieces().size());
-        defendingPiece = opponent.getPieces().get(pieceIndex);
+        int aliveIndex = pieceRandomizer.nextInt(defendingState.getAliveCount());
+        defendingSlot = defendingState.getAliveSlot(aliveIndex);
     }
 
     /**
@@ -210,11 +252,11 @@ public class Turn {
      */
     private void removeDestroyedParts()
     {
-        currentPlayer.removeDestroyedPieces(fight);
-        opponent.removeDestroyedPieces(fight);
+        currentPlayer.removeDestroyedPieces(engine);
+        opponent.removeDestroyedPieces(engine);
 
         //if any FacePieces have been removed from the user (heroPlayer), associated BattleMoves must be removed from the buttons lists.
-        fight.resetBattleButtons();
+        engine.piecesRemoved();
     }
 
     /**
@@ -223,7 +265,9 @@ public class Turn {
      */
     private int effectModifier()
     {
-        return effectModifierArray[randomizer.nextInt(effectModifierArray.length - 1)];
+        int modifier = effectModifierArray[effectRandomizer.nextInt(effectModifierArray.length - 1)];
+        engine.effectModifierDrawn(modifier);
+        return modifier;
     }
 
 }